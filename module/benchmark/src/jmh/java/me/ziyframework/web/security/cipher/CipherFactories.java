@@ -0,0 +1,38 @@
+package me.ziyframework.web.security.cipher;
+
+/**
+ * 基准测试中按算法名创建Cipher工厂.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class CipherFactories {
+
+    private CipherFactories() {}
+
+    /**
+     * 创建指定算法的Cipher工厂.
+     *
+     * @param poolSize 最多缓存的空闲Cipher数量，小于等于0时不复用
+     */
+    public static HttpCipherFactory create(String algorithm, int poolSize) {
+        return switch (algorithm) {
+            case Sm4CipherFactory.ALGORITHM -> new Sm4CipherFactory(poolSize);
+            case Sm4GcmCipherFactory.ALGORITHM -> new Sm4GcmCipherFactory(poolSize);
+            case AesGcmCipherFactory.ALGORITHM -> new AesGcmCipherFactory(poolSize);
+            case ChaCha20Poly1305CipherFactory.ALGORITHM -> new ChaCha20Poly1305CipherFactory(poolSize);
+            default -> throw new IllegalArgumentException(algorithm);
+        };
+    }
+
+    /**
+     * 递增向量的前8字节，AEAD实现拒绝同一Cipher以相同的密钥和nonce重复加密.
+     */
+    public static void increment(byte[] iv) {
+        for (int i = 7; i >= 0; i--) {
+            if (++iv[i] != 0) {
+                return;
+            }
+        }
+    }
+}
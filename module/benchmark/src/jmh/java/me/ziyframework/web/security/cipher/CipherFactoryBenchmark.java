@@ -0,0 +1,65 @@
+package me.ziyframework.web.security.cipher;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import javax.crypto.Cipher;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cipher创建成本：复用池中的Cipher重新初始化，与每次新建Cipher(provider查找、transformation解析)对比.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CipherFactoryBenchmark {
+
+    @Param({
+        Sm4CipherFactory.ALGORITHM,
+        Sm4GcmCipherFactory.ALGORITHM,
+        AesGcmCipherFactory.ALGORITHM,
+        ChaCha20Poly1305CipherFactory.ALGORITHM
+    })
+    public String algorithm;
+
+    private HttpCipherFactory pooled;
+
+    private HttpCipherFactory unpooled;
+
+    private final byte[] key = new byte[32];
+
+    private final byte[] iv = new byte[16];
+
+    @Setup
+    public void setup() {
+        ThreadLocalRandom.current().nextBytes(key);
+        ThreadLocalRandom.current().nextBytes(iv);
+        pooled = CipherFactories.create(algorithm, 64);
+        unpooled = CipherFactories.create(algorithm, 0);
+    }
+
+    @Benchmark
+    public Cipher pooled() {
+        CipherFactories.increment(iv);
+        Cipher cipher = pooled.createCipher(Cipher.ENCRYPT_MODE, key, iv);
+        pooled.release(cipher);
+        return cipher;
+    }
+
+    @Benchmark
+    public Cipher unpooled() {
+        CipherFactories.increment(iv);
+        Cipher cipher = unpooled.createCipher(Cipher.ENCRYPT_MODE, key, iv);
+        unpooled.release(cipher);
+        return cipher;
+    }
+}
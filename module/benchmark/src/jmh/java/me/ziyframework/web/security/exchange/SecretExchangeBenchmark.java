@@ -0,0 +1,106 @@
+package me.ziyframework.web.security.exchange;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.google.common.io.BaseEncoding;
+import java.security.KeyPairGenerator;
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import org.bouncycastle.jce.ECNamedCurveTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * 密钥协商吞吐：每种曲线分别测试每次都进行ECDH(不缓存)、命中堆外共享密钥缓存和命中原有的Caffeine缓存三种情况.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class SecretExchangeBenchmark {
+
+    private static final long ROTATION_SECONDS = TimeUnit.HOURS.toSeconds(1);
+
+    private static final int CACHE_SIZE = 1024;
+
+    @Param({"SM2", "X25519"})
+    public String curve;
+
+    private SecretExchange uncached;
+
+    private SecretExchange cached;
+
+    private SecretExchange caffeine;
+
+    private String uncachedKeyId;
+
+    private String cachedKeyId;
+
+    private String caffeineKeyId;
+
+    private String clientPublicKey;
+
+    @Setup
+    public void setup() throws Exception {
+        KeyPairGenerator generator;
+        if ("SM2".equals(curve)) {
+            uncached = new Sm2SecretExchange(NoOpSharedSecretCache.INSTANCE, ROTATION_SECONDS);
+            cached = new Sm2SecretExchange(new OffHeapSharedSecretCache(CACHE_SIZE), ROTATION_SECONDS);
+            caffeine = new Sm2SecretExchange(caffeineCache(), ROTATION_SECONDS);
+            generator = KeyPairGenerator.getInstance("ECDH", "BC");
+            generator.initialize(ECNamedCurveTable.getParameterSpec("sm2p256v1"));
+        } else {
+            uncached = new X25519SecretExchange(NoOpSharedSecretCache.INSTANCE, ROTATION_SECONDS);
+            cached = new X25519SecretExchange(new OffHeapSharedSecretCache(CACHE_SIZE), ROTATION_SECONDS);
+            caffeine = new X25519SecretExchange(caffeineCache(), ROTATION_SECONDS);
+            generator = KeyPairGenerator.getInstance("X25519");
+        }
+        uncachedKeyId = uncached.getPublicBase64().v1();
+        cachedKeyId = cached.getPublicBase64().v1();
+        caffeineKeyId = caffeine.getPublicBase64().v1();
+        clientPublicKey = BaseEncoding.base64Url()
+                .encode(generator.generateKeyPair().getPublic().getEncoded());
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        uncached.destroy();
+        cached.destroy();
+        caffeine.destroy();
+    }
+
+    @Benchmark
+    public byte[] uncached() {
+        return uncached.getSharedSecret(clientPublicKey, uncachedKeyId);
+    }
+
+    @Benchmark
+    public byte[] cached() {
+        return cached.getSharedSecret(clientPublicKey, cachedKeyId);
+    }
+
+    @Benchmark
+    public byte[] caffeine() {
+        return caffeine.getSharedSecret(clientPublicKey, caffeineKeyId);
+    }
+
+    /**
+     * 与原有配置相同的Caffeine缓存，容量与堆外缓存一致.
+     */
+    private static CaffeineSharedSecretCache caffeineCache() {
+        return new CaffeineSharedSecretCache(Caffeine.newBuilder()
+                .maximumSize(CACHE_SIZE)
+                .expireAfterAccess(Duration.ofSeconds(30))
+                .build());
+    }
+}
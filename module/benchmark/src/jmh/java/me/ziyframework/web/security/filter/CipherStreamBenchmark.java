@@ -0,0 +1,216 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
+import me.ziyframework.web.security.cipher.AesGcmCipherFactory;
+import me.ziyframework.web.security.cipher.ChaCha20Poly1305CipherFactory;
+import me.ziyframework.web.security.cipher.CipherFactories;
+import me.ziyframework.web.security.cipher.HttpCipherFactory;
+import me.ziyframework.web.security.cipher.Sm4CipherFactory;
+import me.ziyframework.web.security.cipher.Sm4GcmCipherFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * 请求体解密和响应体加密的吞吐，经过真实的{@link HttpEncryptServletResponse}和{@link HttpDecryptServletRequest}.<br />
+ * 接口以{@value #CHUNK}字节为单位写出/读取，密文写入丢弃数据的输出流，避免测量Mock响应的内存复制.
+ * 分帧加解密只支持AEAD算法，单独测试并额外覆盖100MB的请求/响应体.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CipherStreamBenchmark {
+
+    private static final int CHUNK = 8192;
+
+    @State(Scope.Thread)
+    public static class StreamState extends BodyState {
+
+        @Param({"100", "1024", "16384", "1048576", "10485760"})
+        public int size;
+
+        @Param({
+            Sm4CipherFactory.ALGORITHM,
+            Sm4GcmCipherFactory.ALGORITHM,
+            AesGcmCipherFactory.ALGORITHM,
+            ChaCha20Poly1305CipherFactory.ALGORITHM
+        })
+        public String algorithm;
+
+        @Setup
+        public void setup() throws IOException {
+            init(algorithm, size, 0);
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class FramedState extends BodyState {
+
+        @Param({"100", "1024", "16384", "1048576", "10485760", "104857600"})
+        public int size;
+
+        @Param({Sm4GcmCipherFactory.ALGORITHM, AesGcmCipherFactory.ALGORITHM, ChaCha20Poly1305CipherFactory.ALGORITHM})
+        public String algorithm;
+
+        @Setup
+        public void setup() throws IOException {
+            init(algorithm, size, HttpCipherServletFilter.DEFAULT_FRAME_SIZE);
+        }
+    }
+
+    @Benchmark
+    public long encrypt(StreamState state) throws IOException {
+        return state.encrypt();
+    }
+
+    @Benchmark
+    public long decrypt(StreamState state) throws IOException {
+        return state.decrypt();
+    }
+
+    @Benchmark
+    public long encryptFramed(FramedState state) throws IOException {
+        return state.encrypt();
+    }
+
+    @Benchmark
+    public long decryptFramed(FramedState state) throws IOException {
+        return state.decrypt();
+    }
+
+    /**
+     * 明文、密文和加解密使用的工厂与缓冲区.
+     */
+    abstract static class BodyState {
+
+        private final byte[] key = new byte[32];
+
+        /**
+         * 加密使用的向量，每次递增.
+         */
+        private final byte[] iv = new byte[16];
+
+        /**
+         * 预先加密请求体使用的向量，解密时使用.
+         */
+        private final byte[] decryptIv = new byte[16];
+
+        private final byte[] chunk = new byte[CHUNK];
+
+        private HttpCipherFactory factory;
+
+        private CipherBufferPool bufferPool;
+
+        private int frameSize;
+
+        private byte[] body;
+
+        private byte[] cipherBody;
+
+        void init(String algorithm, int size, int frame) throws IOException {
+            ThreadLocalRandom.current().nextBytes(key);
+            ThreadLocalRandom.current().nextBytes(iv);
+            System.arraycopy(iv, 0, decryptIv, 0, iv.length);
+            factory = CipherFactories.create(algorithm, 64);
+            frameSize = frame;
+            bufferPool = frame > 0
+                    ? new CipherBufferPool(
+                            CipherFrames.HEADER_LENGTH + frame + AeadCipherFactory.TAG_LENGTH,
+                            CipherBufferPool.DEFAULT_POOL_SIZE)
+                    : new CipherBufferPool();
+            body = new byte[size];
+            ThreadLocalRandom.current().nextBytes(body);
+            // 预先加密一份请求体用于解密测试
+            MockHttpServletResponse captured = new MockHttpServletResponse();
+            HttpEncryptServletResponse response = newResponse(captured, decryptIv);
+            response.getOutputStream().write(body);
+            response.finish();
+            response.release();
+            cipherBody = captured.getContentAsByteArray();
+        }
+
+        long encrypt() throws IOException {
+            CipherFactories.increment(iv);
+            DiscardingResponse discarding = new DiscardingResponse();
+            HttpEncryptServletResponse response = newResponse(discarding, iv);
+            ServletOutputStream outputStream = response.getOutputStream();
+            for (int offset = 0; offset < body.length; offset += CHUNK) {
+                outputStream.write(body, offset, Math.min(CHUNK, body.length - offset));
+            }
+            response.finish();
+            response.release();
+            return discarding.outputStream.count;
+        }
+
+        long decrypt() throws IOException {
+            MockHttpServletRequest mock = new MockHttpServletRequest();
+            mock.setContent(cipherBody);
+            HttpDecryptServletRequest request =
+                    new HttpDecryptServletRequest(mock, factory, key, decryptIv, frameSize, bufferPool, null, 0);
+            ServletInputStream inputStream = request.getInputStream();
+            long total = 0;
+            int count;
+            while ((count = inputStream.read(chunk)) >= 0) {
+                total += count;
+            }
+            request.release();
+            return total;
+        }
+
+        private HttpEncryptServletResponse newResponse(MockHttpServletResponse response, byte[] nonce) {
+            return new HttpEncryptServletResponse(
+                    response, factory, key, nonce, frameSize, bufferPool, null, null, 0);
+        }
+    }
+
+    /**
+     * 丢弃响应体的响应.
+     */
+    private static final class DiscardingResponse extends MockHttpServletResponse {
+
+        private final CountingOutputStream outputStream = new CountingOutputStream();
+
+        @Override
+        public ServletOutputStream getOutputStream() {
+            return outputStream;
+        }
+    }
+
+    private static final class CountingOutputStream extends ServletOutputStream {
+
+        private long count;
+
+        @Override
+        public void write(int b) {
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) {
+            count += len;
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {}
+    }
+}
@@ -0,0 +1,141 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.http.HttpServletRequest;
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import me.ziyframework.web.common.WebHolder;
+import me.ziyframework.web.security.HttpEncrypt;
+import org.jspecify.annotations.Nullable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.context.support.StaticWebApplicationContext;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerExecutionChain;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
+import org.springframework.web.util.ServletRequestPathUtils;
+
+/**
+ * 过滤器判断请求是否需要加解密的耗时：{@link HttpEncryptRouteIndex}和完整的接口匹配.<br />
+ * 完整的接口匹配与{@link WebHolder#getHandler}相同，逐个{@link HandlerMapping}查找接口后读取{@link HttpEncrypt}，
+ * {@link WebHolder}依赖运行中的容器，这里直接使用同样注册了所有接口的{@link RequestMappingHandlerMapping}.
+ * 接口分为声明了加解密的路径、未声明的路径和声明了加解密的通配符路径(索引命中后回退到完整匹配).<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class HttpEncryptRouteBenchmark {
+
+    private static final int PATTERN_ROUTES = 16;
+
+    @Param({"100", "1000"})
+    public int routes;
+
+    @Param({"encrypted", "plain", "pattern"})
+    public String target;
+
+    private List<HandlerMapping> handlerMappings;
+
+    private HttpEncryptRouteIndex routeIndex;
+
+    private MockHttpServletRequest request;
+
+    @Setup
+    public void setup() throws Exception {
+        StaticWebApplicationContext context = new StaticWebApplicationContext();
+        context.setServletContext(new MockServletContext());
+        context.refresh();
+        RequestMappingHandlerMapping mapping = new RequestMappingHandlerMapping();
+        mapping.setApplicationContext(context);
+        mapping.afterPropertiesSet();
+        routeIndex = new HttpEncryptRouteIndex();
+
+        Handlers handlers = new Handlers();
+        Method encrypted = Handlers.class.getMethod("encrypted");
+        Method plain = Handlers.class.getMethod("plain");
+        for (int i = 0; i < routes / 2; i++) {
+            register(mapping, "/orders/" + i, handlers, encrypted);
+            register(mapping, "/plain/" + i, handlers, plain);
+        }
+        for (int i = 0; i < PATTERN_ROUTES; i++) {
+            register(mapping, "/users/{id}/items/" + i, handlers, encrypted);
+        }
+        routeIndex.after();
+        handlerMappings = List.of(mapping);
+
+        String path = switch (target) {
+            case "encrypted" -> "/orders/" + routes / 4;
+            case "plain" -> "/plain/" + routes / 4;
+            default -> "/users/42/items/" + PATTERN_ROUTES / 2;
+        };
+        request = new MockHttpServletRequest(RequestMethod.POST.name(), path);
+    }
+
+    @Benchmark
+    public @Nullable HttpEncrypt routeIndex() {
+        return routeIndex.getHttpEncrypt(request, this::getHttpEncrypt);
+    }
+
+    @Benchmark
+    public @Nullable HttpEncrypt handlerLookup() {
+        return getHttpEncrypt(request);
+    }
+
+    /**
+     * 与过滤器的完整接口匹配相同.
+     */
+    private @Nullable HttpEncrypt getHttpEncrypt(HttpServletRequest request) {
+        // 过滤器先于DispatcherServlet执行，每个请求都需要重新解析路径
+        request.removeAttribute(ServletRequestPathUtils.PATH_ATTRIBUTE);
+        HandlerExecutionChain chain = null;
+        for (HandlerMapping mapping : handlerMappings) {
+            try {
+                chain = mapping.getHandler(request);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+            if (chain != null) {
+                break;
+            }
+        }
+        if (chain == null || !(chain.getHandler() instanceof HandlerMethod handlerMethod)) {
+            throw new IllegalStateException("handler not found: " + request.getRequestURI());
+        }
+        HttpEncrypt httpEncrypt = handlerMethod.getMethodAnnotation(HttpEncrypt.class);
+        if (httpEncrypt == null) {
+            httpEncrypt = handlerMethod.getBeanType().getAnnotation(HttpEncrypt.class);
+        }
+        return httpEncrypt;
+    }
+
+    private void register(RequestMappingHandlerMapping mapping, String path, Object handler, Method method) {
+        RequestMappingInfo info = RequestMappingInfo.paths(path)
+                .methods(RequestMethod.POST)
+                .options(mapping.getBuilderConfiguration())
+                .build();
+        mapping.registerMapping(info, handler, method);
+        routeIndex.accept(info, method, handler.getClass());
+    }
+
+    public static class Handlers {
+
+        @HttpEncrypt
+        public void encrypted() {}
+
+        public void plain() {}
+    }
+}
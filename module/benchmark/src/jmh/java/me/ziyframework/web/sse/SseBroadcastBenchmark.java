@@ -0,0 +1,82 @@
+package me.ziyframework.web.sse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.ByteArrayHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.StringHttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.mvc.method.annotation.DiscardingEmitterHandler;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * 广播给大量SSE会话的耗时：逐个会话序列化事件和使用预先编码的{@link SseFrame}.
+ * 会话的消息转换器与Spring MVC默认顺序一致，写出的字节直接丢弃.
+ * 事件由各会话的虚拟线程异步写出，每次广播等待所有会话写出后结束.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class SseBroadcastBenchmark {
+
+    @Param({"1000", "10000"})
+    public int sessions;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private final Quote quote = new Quote("600000.SH", 10.24, 1_000_000L, System.currentTimeMillis());
+
+    private final LongAdder written = new LongAdder();
+
+    private SseManager sseManager;
+
+    @Setup
+    public void setup() throws IOException {
+        List<HttpMessageConverter<?>> converters = List.of(
+                new ByteArrayHttpMessageConverter(),
+                new StringHttpMessageConverter(),
+                new MappingJackson2HttpMessageConverter(objectMapper));
+        sseManager = new SseManager(0, 16, SseOverflowPolicy.DROP_NEWEST, Duration.ofMinutes(1));
+        for (int i = 0; i < sessions; i++) {
+            SseEmitter emitter = sseManager.register("client-" + i).getNativeSseEmitter();
+            DiscardingEmitterHandler.initialize(emitter, converters, written);
+        }
+    }
+
+    @Benchmark
+    public void sendAllEvent() {
+        long target = written.sum() + sessions;
+        sseManager.sendAll(SseEmitter.event().name("quote").data(quote));
+        awaitWritten(target);
+    }
+
+    @Benchmark
+    public void sendAllFrame() {
+        long target = written.sum() + sessions;
+        sseManager.sendAll(SseFrame.json(objectMapper, null, "quote", quote));
+        awaitWritten(target);
+    }
+
+    private void awaitWritten(long target) {
+        while (written.sum() < target) {
+            Thread.onSpinWait();
+        }
+    }
+
+    public record Quote(String symbol, double price, long volume, long timestamp) {}
+}
@@ -0,0 +1,98 @@
+package org.springframework.web.servlet.mvc.method.annotation;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+
+/**
+ * 按照ResponseBodyEmitterReturnValueHandler的方式逐个数据查找消息转换器并写出，写出的字节直接丢弃.
+ * ResponseBodyEmitter的初始化方法和Handler接口不对外公开，所以放在同一个包下.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public final class DiscardingEmitterHandler implements ResponseBodyEmitter.Handler {
+
+    private final List<HttpMessageConverter<?>> converters;
+
+    private final HttpOutputMessage outputMessage;
+
+    private final LongAdder written;
+
+    private DiscardingEmitterHandler(List<HttpMessageConverter<?>> converters, LongAdder written) {
+        this.converters = converters;
+        this.written = written;
+        HttpHeaders headers = new HttpHeaders();
+        this.outputMessage = new HttpOutputMessage() {
+            @Override
+            public OutputStream getBody() {
+                return OutputStream.nullOutputStream();
+            }
+
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+        };
+    }
+
+    /**
+     * 初始化SseEmitter，之后发送的数据经过消息转换器后丢弃.
+     *
+     * @param written 每写出一个事件加1
+     */
+    public static void initialize(
+            ResponseBodyEmitter emitter, List<HttpMessageConverter<?>> converters, LongAdder written)
+            throws IOException {
+        emitter.initialize(new DiscardingEmitterHandler(converters, written));
+    }
+
+    @Override
+    public void send(Object data, @Nullable MediaType mediaType) throws IOException {
+        write(data, mediaType);
+        written.increment();
+    }
+
+    @Override
+    public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+        for (ResponseBodyEmitter.DataWithMediaType item : items) {
+            write(item.getData(), item.getMediaType());
+        }
+        written.increment();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> void write(T data, @Nullable MediaType mediaType) throws IOException {
+        Class<?> type = data.getClass();
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter.canWrite(type, mediaType)) {
+                ((HttpMessageConverter<T>) converter).write(data, mediaType, outputMessage);
+                return;
+            }
+        }
+        throw new IllegalArgumentException("No suitable converter for " + type);
+    }
+
+    @Override
+    public void complete() {}
+
+    @Override
+    public void completeWithError(Throwable failure) {}
+
+    @Override
+    public void onTimeout(Runnable callback) {}
+
+    @Override
+    public void onError(Consumer<Throwable> callback) {}
+
+    @Override
+    public void onCompletion(Runnable callback) {}
+}
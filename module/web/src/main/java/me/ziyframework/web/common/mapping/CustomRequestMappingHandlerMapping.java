@@ -3,9 +3,11 @@ package me.ziyframework.web.common.mapping;
 import com.palantir.logsafe.exceptions.SafeNullPointerException;
 import java.lang.reflect.Method;
 import java.util.List;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
 import org.jspecify.annotations.Nullable;
 import org.springframework.util.CollectionUtils;
+import org.springframework.web.method.HandlerMethod;
 import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
 import org.springframework.web.servlet.mvc.method.annotation.RequestMappingHandlerMapping;
 
@@ -40,10 +42,18 @@ public class CustomRequestMappingHandlerMapping extends RequestMappingHandlerMap
         for (RequestMappingInfoConsumer consumer : consumers) {
             consumer.accept(newMappingInfo, method, handlerType);
         }
+
+        return newMappingInfo;
+    }
+
+    /**
+     * 所有接口注册完成后通知消费者.
+     */
+    @Override
+    protected void handlerMethodsInitialized(Map<RequestMappingInfo, HandlerMethod> handlerMethods) {
+        super.handlerMethodsInitialized(handlerMethods);
         for (RequestMappingInfoConsumer consumer : consumers) {
             consumer.after();
         }
-
-        return newMappingInfo;
     }
 }
@@ -25,4 +25,18 @@ public @interface HttpEncrypt {
      * 是否解密请求体.
      */
     boolean decrypt() default true;
+
+    /**
+     * 是否缓冲完整的响应体后一次性加密.<br/>
+     * 响应体不超过{@code ziy.web.encrypt.buffered-response-limit}时以准确的Content-Length写出(不使用chunked编码)，
+     * 超过时自动退化为流式加密.客户端请求分帧加密时不生效.
+     */
+    boolean buffered() default false;
+
+    /**
+     * 是否开启重放保护.<br/>
+     * 开启后要求{@code X-Nonce}的前8字节为时间戳(毫秒，大端序)且总长度不少于16字节，
+     * 超出时间窗口或重复的nonce被拒绝，见{@link me.ziyframework.web.security.replay.NonceReplayDetector}.
+     */
+    boolean replayProtection() default false;
 }
@@ -0,0 +1,76 @@
+package me.ziyframework.web.security;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.atomic.LongAdder;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 有界的加解密对象复用池.<br />
+ * 用于复用Cipher、KeyAgreement等创建成本较高且非线程安全的对象，对象借出期间仅由借用方使用.
+ * 不依赖ThreadLocal，在虚拟线程下同样可以复用.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class InstancePool<T> {
+
+    private final @Nullable ArrayBlockingQueue<T> idle;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * 创建复用池.
+     *
+     * @param capacity 最大空闲对象数量，小于等于0时不复用
+     */
+    public InstancePool(int capacity) {
+        this.idle = capacity > 0 ? new ArrayBlockingQueue<>(capacity) : null;
+    }
+
+    /**
+     * 借出一个空闲对象.
+     *
+     * @return 空闲对象，没有时返回null(需要调用方自行创建)
+     */
+    public @Nullable T poll() {
+        T instance = idle == null ? null : idle.poll();
+        if (instance == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return instance;
+    }
+
+    /**
+     * 归还对象，池已满时直接丢弃.
+     */
+    public void offer(T instance) {
+        if (idle != null) {
+            boolean unused = idle.offer(instance);
+        }
+    }
+
+    /**
+     * 从池中借出成功的次数.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * 池中无空闲对象的次数.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * 当前空闲对象数量.
+     */
+    public int getIdleCount() {
+        return idle == null ? 0 : idle.size();
+    }
+}
@@ -23,5 +23,39 @@ public final class SecurityHttpHeaders {
      */
     public static final String X_NONCE = "X-Nonce";
 
+    /**
+     * 会话票据.<br />
+     * 服务端开启会话恢复时在完成密钥协商的响应中返回，客户端之后的请求只需携带票据和{@link #X_NONCE}.
+     */
+    public static final String X_SESSION_TICKET = "X-Session-Ticket";
+
+    /**
+     * 对称加解密算法，客户端在请求头中指定(未指定时使用服务端默认算法)，服务端在响应头中返回实际使用的算法.
+     */
+    public static final String X_CIPHER = "X-Cipher";
+
+    /**
+     * 分帧加解密.<br />
+     * 客户端携带该请求头时请求体按帧加密，响应体同样按帧加密，服务端在响应头中返回单帧明文的长度.
+     */
+    public static final String X_CIPHER_FRAME = "X-Cipher-Frame";
+
+    /**
+     * 明文的压缩算法.<br />
+     * 请求头中表示请求体明文在加密前使用该算法压缩，响应头中表示响应体明文在加密前使用该算法压缩.
+     */
+    public static final String X_COMPRESS = "X-Compress";
+
+    /**
+     * 客户端可以解压的算法，按优先级逗号分隔.服务端选择其中一个压缩响应体，响应体过小时不压缩.
+     */
+    public static final String X_ACCEPT_COMPRESS = "X-Accept-Compress";
+
+    /**
+     * 服务端为每个响应生成的随机盐(base64编码).<br />
+     * 响应体使用由共享密钥、{@link #X_NONCE}和该盐派生的响应密钥加密，重放的请求不会得到相同密钥流加密的响应.
+     */
+    public static final String X_RESPONSE_SALT = "X-Response-Salt";
+
     private SecurityHttpHeaders() {}
 }
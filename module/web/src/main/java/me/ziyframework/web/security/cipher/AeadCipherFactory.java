@@ -0,0 +1,86 @@
+package me.ziyframework.web.security.cipher;
+
+import com.google.common.hash.Hashing;
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+import javax.crypto.Cipher;
+import javax.crypto.spec.SecretKeySpec;
+
+/**
+ * AEAD(认证加密)的Cipher工厂基类.<br />
+ * 请求体解密和响应体加密使用相同的共享密钥和客户端nonce，对流密码结构的AEAD而言密钥流重用是致命的，
+ * 因此加密(响应方向)时将nonce首字节的最高位取反，与请求方向的nonce区分.
+ * 客户端每次请求都需要使用新的nonce；响应方向的密钥由过滤器混入服务端随机盐派生，
+ * 重放的请求或重复使用nonce的客户端也不会使响应在相同的(密钥, nonce)下加密.
+ * 超过{@value #NONCE_LENGTH}字节的nonce取SHA-256的前{@value #NONCE_LENGTH}字节，使完整的nonce都参与区分：
+ * 开启重放保护时nonce的前8字节为时间戳，直接截断只剩4字节随机数.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public abstract class AeadCipherFactory extends PooledCipherFactory {
+
+    /**
+     * nonce长度(96bit).
+     */
+    public static final int NONCE_LENGTH = 12;
+
+    /**
+     * 认证标签长度(128bit).
+     */
+    public static final int TAG_LENGTH = 16;
+
+    protected static final int TAG_BITS = TAG_LENGTH * 8;
+
+    /**
+     * 响应方向的nonce标记位.
+     */
+    private static final int RESPONSE_DIRECTION_BIT = 0x80;
+
+    private final int keyLength;
+
+    /**
+     * 创建AEAD工厂.
+     *
+     * @param poolSize 最多缓存的空闲Cipher数量，小于等于0时不复用
+     * @param keyLength 算法要求的密钥长度(字节)
+     */
+    protected AeadCipherFactory(int poolSize, int keyLength) {
+        super(poolSize);
+        this.keyLength = keyLength;
+    }
+
+    @Override
+    protected void initCipher(Cipher cipher, int mode, byte[] key, byte[] iv) throws GeneralSecurityException {
+        SecretKeySpec keySpec = key.length >= keyLength
+                ? new SecretKeySpec(key, 0, keyLength, getKeyAlgorithm())
+                : new SecretKeySpec(normalize(key, keyLength), getKeyAlgorithm());
+        byte[] nonce = iv.length > NONCE_LENGTH ? digest(iv) : normalize(iv, NONCE_LENGTH);
+        if (mode == Cipher.ENCRYPT_MODE) {
+            nonce[0] ^= (byte) RESPONSE_DIRECTION_BIT;
+        }
+        cipher.init(mode, keySpec, parameterSpec(nonce));
+    }
+
+    /**
+     * 密钥的算法名.
+     */
+    protected abstract String getKeyAlgorithm();
+
+    /**
+     * 由nonce创建算法参数.
+     */
+    protected abstract AlgorithmParameterSpec parameterSpec(byte[] nonce);
+
+    private static byte[] digest(byte[] iv) {
+        byte[] nonce = new byte[NONCE_LENGTH];
+        Hashing.sha256().hashBytes(iv).writeBytesTo(nonce, 0, NONCE_LENGTH);
+        return nonce;
+    }
+
+    private static byte[] normalize(byte[] bytes, int length) {
+        byte[] newBytes = new byte[length];
+        System.arraycopy(bytes, 0, newBytes, 0, Math.min(bytes.length, length));
+        return newBytes;
+    }
+}
@@ -0,0 +1,53 @@
+package me.ziyframework.web.security.cipher;
+
+import java.security.GeneralSecurityException;
+import java.security.spec.AlgorithmParameterSpec;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+
+/**
+ * AES-256-GCM工厂类.<br />
+ * 使用JDK的provider，在支持AES-NI/PCLMULQDQ的CPU上由JIT内联为硬件指令.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public class AesGcmCipherFactory extends AeadCipherFactory {
+
+    public static final String ALGORITHM = "AES-GCM";
+
+    private static final int KEY_LENGTH = 32;
+
+    public AesGcmCipherFactory() {
+        this(Sm4CipherFactory.DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * 创建AES-GCM工厂.
+     *
+     * @param poolSize 最多缓存的空闲Cipher数量，小于等于0时不复用
+     */
+    public AesGcmCipherFactory(int poolSize) {
+        super(poolSize, KEY_LENGTH);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    protected Cipher newCipher() throws GeneralSecurityException {
+        return Cipher.getInstance("AES/GCM/NoPadding");
+    }
+
+    @Override
+    protected String getKeyAlgorithm() {
+        return "AES";
+    }
+
+    @Override
+    protected AlgorithmParameterSpec parameterSpec(byte[] nonce) {
+        return new GCMParameterSpec(TAG_BITS, nonce);
+    }
+}
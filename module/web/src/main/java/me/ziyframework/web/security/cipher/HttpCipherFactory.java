@@ -9,6 +9,13 @@ import javax.crypto.Cipher;
  */
 public interface HttpCipherFactory {
 
+    /**
+     * 算法名，客户端通过{@link me.ziyframework.web.security.SecurityHttpHeaders#X_CIPHER}协商使用的算法.
+     */
+    default String getAlgorithm() {
+        return getClass().getSimpleName();
+    }
+
     /**
      * 创建加解密对象.
      * @param mode 模式 {@link Cipher#ENCRYPT_MODE}等
@@ -17,4 +24,11 @@ public interface HttpCipherFactory {
      * @return 加解密对象
      */
     Cipher createCipher(int mode, byte[] key, byte[] iv);
+
+    /**
+     * 归还使用完毕的加解密对象，实现类可以复用该对象.<br />
+     * 调用后不应再使用该对象.
+     * @param cipher 由{@link #createCipher(int, byte[], byte[])}创建的加解密对象
+     */
+    default void release(Cipher cipher) {}
 }
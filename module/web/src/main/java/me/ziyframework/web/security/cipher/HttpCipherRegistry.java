@@ -0,0 +1,162 @@
+package me.ziyframework.web.security.cipher;
+
+import com.google.common.collect.ImmutableMap;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Cipher;
+import lombok.CustomLog;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.common.result.ResultCode;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 服务端允许的对称加解密算法.<br />
+ * 客户端通过{@link me.ziyframework.web.security.SecurityHttpHeaders#X_CIPHER}指定算法，
+ * 未指定时使用默认算法，指定了未被允许的算法时拒绝请求.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@CustomLog
+public final class HttpCipherRegistry {
+
+    /**
+     * 默认算法配置为该值时，启动时测试所有允许的算法并选择当前JVM上最快的算法.
+     */
+    public static final String AUTO = "auto";
+
+    private static final int BENCHMARK_PAYLOAD = 64 * 1024;
+
+    private static final long BENCHMARK_NANOS = 50_000_000L;
+
+    private final Map<String, HttpCipherFactory> factories;
+
+    private final HttpCipherFactory defaultFactory;
+
+    /**
+     * 创建算法注册表.
+     *
+     * @param factories 允许的算法
+     * @param defaultAlgorithm 默认算法，为{@value #AUTO}时选择最快的算法
+     */
+    public HttpCipherRegistry(Collection<? extends HttpCipherFactory> factories, String defaultAlgorithm) {
+        Preconditions.checkArgument(!factories.isEmpty(), "no http cipher allowed");
+        ImmutableMap.Builder<String, HttpCipherFactory> builder = ImmutableMap.builder();
+        for (HttpCipherFactory factory : factories) {
+            builder.put(key(factory.getAlgorithm()), factory);
+        }
+        this.factories = builder.buildOrThrow();
+        if (AUTO.equalsIgnoreCase(defaultAlgorithm)) {
+            this.defaultFactory = fastest(this.factories.values());
+        } else {
+            HttpCipherFactory factory = this.factories.get(key(defaultAlgorithm));
+            Preconditions.checkArgument(
+                    factory != null,
+                    "default http cipher is not allowed",
+                    SafeArg.of("defaultAlgorithm", defaultAlgorithm));
+            this.defaultFactory = factory;
+        }
+    }
+
+    /**
+     * 只允许一种算法.
+     */
+    public static HttpCipherRegistry of(HttpCipherFactory factory) {
+        return new HttpCipherRegistry(List.of(factory), factory.getAlgorithm());
+    }
+
+    /**
+     * 获取客户端指定的算法.
+     *
+     * @param algorithm 客户端指定的算法，为null时使用默认算法
+     */
+    public HttpCipherFactory resolve(@Nullable String algorithm) {
+        if (algorithm == null || algorithm.isEmpty()) {
+            return defaultFactory;
+        }
+        HttpCipherFactory factory = factories.get(key(algorithm));
+        if (factory == null) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "不支持的加密算法");
+        }
+        return factory;
+    }
+
+    /**
+     * 默认算法.
+     */
+    public HttpCipherFactory getDefault() {
+        return defaultFactory;
+    }
+
+    private static String key(String algorithm) {
+        return algorithm.toUpperCase(Locale.ROOT);
+    }
+
+    /**
+     * 在当前JVM上测试每种算法加密{@value #BENCHMARK_PAYLOAD}字节的吞吐，选择最快的算法.<br />
+     * 每种算法先预热再计时，各约{@value #BENCHMARK_NANOS}纳秒，结果受JIT和CPU指令集(AES-NI等)影响.
+     */
+    private static HttpCipherFactory fastest(Collection<HttpCipherFactory> candidates) {
+        byte[] payload = new byte[BENCHMARK_PAYLOAD];
+        byte[] key = new byte[32];
+        ThreadLocalRandom.current().nextBytes(payload);
+        ThreadLocalRandom.current().nextBytes(key);
+        HttpCipherFactory fastest = null;
+        double best = -1;
+        for (HttpCipherFactory factory : candidates) {
+            double throughput;
+            try {
+                // 预热
+                encryptFor(factory, key, payload, BENCHMARK_NANOS);
+                throughput = encryptFor(factory, key, payload, BENCHMARK_NANOS);
+            } catch (RuntimeException e) {
+                log.warn(
+                        "http cipher benchmark failed", SafeArg.of("algorithm", factory.getAlgorithm()), e);
+                continue;
+            }
+            log.info(
+                    "http cipher benchmark",
+                    SafeArg.of("algorithm", factory.getAlgorithm()),
+                    SafeArg.of("mbPerSecond", (long) (throughput / (1024 * 1024))));
+            if (throughput > best) {
+                best = throughput;
+                fastest = factory;
+            }
+        }
+        if (fastest == null) {
+            throw new GlobalException("no http cipher available");
+        }
+        return fastest;
+    }
+
+    /**
+     * 在给定时间内重复加密.
+     *
+     * @return 吞吐(字节/秒)
+     */
+    private static double encryptFor(HttpCipherFactory factory, byte[] key, byte[] payload, long nanos) {
+        byte[] iv = new byte[16];
+        long bytes = 0;
+        long start = System.nanoTime();
+        long elapsed;
+        do {
+            // 每次使用不同的nonce，AEAD实现会拒绝相同密钥和nonce的重复加密
+            ThreadLocalRandom.current().nextBytes(iv);
+            Cipher cipher = factory.createCipher(Cipher.ENCRYPT_MODE, key, iv);
+            try {
+                cipher.doFinal(payload);
+            } catch (Exception e) {
+                throw GlobalException.wrap(e);
+            }
+            factory.release(cipher);
+            bytes += payload.length;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < nanos);
+        return bytes * 1e9 / elapsed;
+    }
+}
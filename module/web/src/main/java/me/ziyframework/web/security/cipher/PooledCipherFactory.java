@@ -0,0 +1,83 @@
+package me.ziyframework.web.security.cipher;
+
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.InstancePool;
+
+/**
+ * 复用Cipher的工厂基类.<br />
+ * Cipher使用完毕并通过{@link #release(Cipher)}归还后，下一次请求使用新的密钥和向量重新初始化，
+ * 避免每次请求都进行provider查找、transformation解析和对象分配.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public abstract class PooledCipherFactory implements HttpCipherFactory {
+
+    private final InstancePool<Cipher> pool;
+
+    /**
+     * 创建Cipher工厂.
+     *
+     * @param poolSize 最多缓存的空闲Cipher数量，小于等于0时不复用
+     */
+    protected PooledCipherFactory(int poolSize) {
+        this.pool = new InstancePool<>(poolSize);
+    }
+
+    /**
+     * 优先从池中借出Cipher并重新初始化.
+     */
+    @Override
+    public Cipher createCipher(int mode, byte[] key, byte[] iv) {
+        Cipher cipher = pool.poll();
+        try {
+            if (cipher == null) {
+                cipher = newCipher();
+            }
+            initCipher(cipher, mode, key, iv);
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+        return cipher;
+    }
+
+    /**
+     * 归还Cipher.
+     */
+    @Override
+    public void release(Cipher cipher) {
+        pool.offer(cipher);
+    }
+
+    /**
+     * Cipher复用命中次数.
+     */
+    public long getPoolHits() {
+        return pool.getHits();
+    }
+
+    /**
+     * Cipher复用未命中(新建)次数.
+     */
+    public long getPoolMisses() {
+        return pool.getMisses();
+    }
+
+    /**
+     * 创建一个未初始化的Cipher.
+     */
+    protected abstract Cipher newCipher() throws GeneralSecurityException;
+
+    /**
+     * 使用密钥和向量(重新)初始化Cipher.
+     *
+     * @param cipher 新建或复用的Cipher
+     * @param mode 模式 {@link Cipher#ENCRYPT_MODE}等
+     * @param key 协商出的密钥，需要自行处理到算法要求的长度
+     * @param iv 初始化向量，需要自行处理到算法要求的长度
+     */
+    protected abstract void initCipher(Cipher cipher, int mode, byte[] key, byte[] iv)
+            throws GeneralSecurityException;
+}
@@ -1,30 +1,75 @@
 package me.ziyframework.web.security.cipher;
 
+import java.security.GeneralSecurityException;
+import java.security.Security;
 import javax.crypto.Cipher;
+import javax.crypto.spec.IvParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import me.ziyframework.core.utils.sm.Sm4;
+import org.bouncycastle.jce.provider.BouncyCastleProvider;
 
 /**
  * sm4工厂类.<br />
  * created on 2025-04
  * @author ziy
  */
-public class Sm4CipherFactory implements HttpCipherFactory {
+public class Sm4CipherFactory extends PooledCipherFactory {
 
     /**
-     * 创建支持Sm4的Cipher.<br/>
-     * 需要处理key到128bit、iv到128bit
+     * 默认最多缓存的空闲Cipher数量.
+     */
+    public static final int DEFAULT_POOL_SIZE = 64;
+
+    public static final String ALGORITHM = "SM4";
+
+    private static final int BLOCK_SIZE = 16;
+
+    static {
+        if (Security.getProvider(BouncyCastleProvider.PROVIDER_NAME) == null) {
+            Security.addProvider(new BouncyCastleProvider());
+        }
+    }
+
+    public Sm4CipherFactory() {
+        this(DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * 创建sm4工厂.
+     *
+     * @param poolSize 最多缓存的空闲Cipher数量，小于等于0时不复用
+     */
+    public Sm4CipherFactory(int poolSize) {
+        super(poolSize);
+    }
+
+    @Override
+    public String getAlgorithm() {
+        return ALGORITHM;
+    }
+
+    @Override
+    protected Cipher newCipher() throws GeneralSecurityException {
+        return Cipher.getInstance(Sm4.TRANSFORMATION, BouncyCastleProvider.PROVIDER_NAME);
+    }
+
+    /**
+     * 初始化支持Sm4的Cipher.<br/>
+     * 需要处理key到128bit、iv到128bit，长度足够时直接引用原数组的前16字节
      */
     @Override
-    public Cipher createCipher(int mode, byte[] key, byte[] iv) {
-        return Sm4.createCipher(mode, Sm4.TRANSFORMATION, normalize(key), normalize(iv));
+    protected void initCipher(Cipher cipher, int mode, byte[] key, byte[] iv) throws GeneralSecurityException {
+        SecretKeySpec keySpec = key.length >= BLOCK_SIZE
+                ? new SecretKeySpec(key, 0, BLOCK_SIZE, "SM4")
+                : new SecretKeySpec(normalize(key), "SM4");
+        IvParameterSpec ivSpec =
+                iv.length >= BLOCK_SIZE ? new IvParameterSpec(iv, 0, BLOCK_SIZE) : new IvParameterSpec(normalize(iv));
+        cipher.init(mode, keySpec, ivSpec);
     }
 
     private byte[] normalize(byte[] bytes) {
-        if (bytes.length == 16) {
-            return bytes;
-        }
-        byte[] newBytes = new byte[16];
-        System.arraycopy(bytes, 0, newBytes, 0, Math.min(bytes.length, 16));
+        byte[] newBytes = new byte[BLOCK_SIZE];
+        System.arraycopy(bytes, 0, newBytes, 0, Math.min(bytes.length, BLOCK_SIZE));
         return newBytes;
     }
 }
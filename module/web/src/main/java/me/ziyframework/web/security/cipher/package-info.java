@@ -1,5 +1,5 @@
 /**
- * Http加解密后对称加解密的方案接口及SM4实现.
+ * Http加解密后对称加解密的方案接口及SM4、AES-GCM、ChaCha20-Poly1305、SM4-GCM实现.
  * created in 2025-08
  *
  * @author ziy
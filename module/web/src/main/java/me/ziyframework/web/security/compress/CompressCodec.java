@@ -0,0 +1,135 @@
+package me.ziyframework.web.security.compress;
+
+import com.palantir.logsafe.Preconditions;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+import me.ziyframework.web.security.InstancePool;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 压缩算法.<br />
+ * 密文无法压缩，因此在加密前压缩响应体、解密后解压请求体.Deflater/Inflater持有堆外内存，借出使用后重置并复用.
+ * <ul>
+ *     <li>{@value #GZIP}：gzip格式(RFC 1952)</li>
+ *     <li>{@value #DEFLATE}：zlib格式(RFC 1950)</li>
+ *     <li>{@value #DEFLATE_DICT}：使用预置字典的zlib格式，字典由典型响应体离线训练，
+ *     zlib头部携带字典的Adler-32，客户端据此选择字典</li>
+ * </ul>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class CompressCodec {
+
+    public static final String GZIP = "gzip";
+
+    public static final String DEFLATE = "deflate";
+
+    public static final String DEFLATE_DICT = "deflate-dict";
+
+    private static final int POOL_SIZE = 64;
+
+    private final String name;
+
+    private final boolean gzip;
+
+    private final byte @Nullable [] dictionary;
+
+    private final int level;
+
+    private final InstancePool<Deflater> deflaterPool = new InstancePool<>(POOL_SIZE);
+
+    private final InstancePool<Inflater> inflaterPool = new InstancePool<>(POOL_SIZE);
+
+    private CompressCodec(String name, boolean gzip, byte @Nullable [] dictionary, int level) {
+        Preconditions.checkArgument(
+                level == Deflater.DEFAULT_COMPRESSION || (level >= 0 && level <= 9), "invalid compression level");
+        this.name = name;
+        this.gzip = gzip;
+        this.dictionary = dictionary;
+        this.level = level;
+    }
+
+    /**
+     * gzip.
+     */
+    public static CompressCodec gzip(int level) {
+        return new CompressCodec(GZIP, true, null, level);
+    }
+
+    /**
+     * zlib格式的deflate.
+     */
+    public static CompressCodec deflate(int level) {
+        return new CompressCodec(DEFLATE, false, null, level);
+    }
+
+    /**
+     * 使用预置字典的zlib格式的deflate.
+     *
+     * @param dictionary 字典，由典型的响应体训练(将最常见的片段放在末尾)，最多使用最后32KB
+     */
+    public static CompressCodec deflateDictionary(byte[] dictionary, int level) {
+        Preconditions.checkArgument(dictionary.length > 0, "dictionary is empty");
+        return new CompressCodec(DEFLATE_DICT, false, dictionary.clone(), level);
+    }
+
+    /**
+     * 算法名，对应{@link me.ziyframework.web.security.SecurityHttpHeaders#X_COMPRESS}.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * 是否gzip格式(需要自行写出/校验gzip头部和CRC32尾部，Deflater/Inflater使用nowrap模式).
+     */
+    public boolean isGzip() {
+        return gzip;
+    }
+
+    /**
+     * 借出一个Deflater，使用完毕后通过{@link #release(Deflater)}归还.
+     */
+    public Deflater borrowDeflater() {
+        Deflater deflater = deflaterPool.poll();
+        if (deflater == null) {
+            deflater = new Deflater(level, gzip);
+        }
+        if (dictionary != null) {
+            deflater.setDictionary(dictionary);
+        }
+        return deflater;
+    }
+
+    /**
+     * 借出一个Inflater，使用完毕后通过{@link #release(Inflater)}归还.
+     */
+    public Inflater borrowInflater() {
+        Inflater inflater = inflaterPool.poll();
+        return inflater != null ? inflater : new Inflater(gzip);
+    }
+
+    /**
+     * 解压需要字典时设置字典.
+     *
+     * @return 是否设置了字典，没有字典时数据无法解压
+     */
+    public boolean setDictionary(Inflater inflater) {
+        if (dictionary == null) {
+            return false;
+        }
+        inflater.setDictionary(dictionary);
+        return true;
+    }
+
+    public void release(Deflater deflater) {
+        deflater.reset();
+        deflaterPool.offer(deflater);
+    }
+
+    public void release(Inflater inflater) {
+        inflater.reset();
+        inflaterPool.offer(inflater);
+    }
+}
@@ -0,0 +1,108 @@
+package me.ziyframework.web.security.compress;
+
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableMap;
+import com.palantir.logsafe.Preconditions;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.common.result.ResultCode;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 服务端支持的压缩算法.<br />
+ * 客户端通过{@link me.ziyframework.web.security.SecurityHttpHeaders#X_ACCEPT_COMPRESS}按优先级列出可以解压的算法，
+ * 服务端选择第一个支持的算法压缩响应体；请求体使用{@link me.ziyframework.web.security.SecurityHttpHeaders#X_COMPRESS}声明的算法解压.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class HttpCompressRegistry {
+
+    private static final Splitter SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+
+    private final Map<String, CompressCodec> codecs;
+
+    /**
+     * 默认的请求体解压后的最大长度(字节).
+     */
+    public static final long DEFAULT_MAX_INFLATED_SIZE = 16L * 1024 * 1024;
+
+    private final int threshold;
+
+    private final long maxInflatedSize;
+
+    /**
+     * 创建压缩算法注册表，请求体解压后的最大长度为{@value #DEFAULT_MAX_INFLATED_SIZE}字节.
+     *
+     * @param codecs 支持的算法
+     * @param threshold 响应体小于该长度(字节)时不压缩
+     */
+    public HttpCompressRegistry(Collection<CompressCodec> codecs, int threshold) {
+        this(codecs, threshold, DEFAULT_MAX_INFLATED_SIZE);
+    }
+
+    /**
+     * 创建压缩算法注册表.
+     *
+     * @param codecs 支持的算法
+     * @param threshold 响应体小于该长度(字节)时不压缩
+     * @param maxInflatedSize 请求体解压后的最大长度(字节)，防止高压缩比的请求体耗尽内存和CPU
+     */
+    public HttpCompressRegistry(Collection<CompressCodec> codecs, int threshold, long maxInflatedSize) {
+        Preconditions.checkArgument(threshold >= 0, "threshold must not be negative");
+        Preconditions.checkArgument(maxInflatedSize > 0, "maxInflatedSize must be positive");
+        ImmutableMap.Builder<String, CompressCodec> builder = ImmutableMap.builder();
+        for (CompressCodec codec : codecs) {
+            builder.put(codec.getName(), codec);
+        }
+        this.codecs = builder.buildOrThrow();
+        this.threshold = threshold;
+        this.maxInflatedSize = maxInflatedSize;
+    }
+
+    /**
+     * 根据客户端可以解压的算法选择响应体的压缩算法.
+     *
+     * @param accept 客户端按优先级列出的算法，逗号分隔
+     * @return 不压缩时返回null
+     */
+    public @Nullable CompressCodec negotiate(@Nullable String accept) {
+        if (accept == null || accept.isEmpty()) {
+            return null;
+        }
+        for (String name : SPLITTER.split(accept)) {
+            CompressCodec codec = codecs.get(name.toLowerCase(Locale.ROOT));
+            if (codec != null) {
+                return codec;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 获取请求体声明的压缩算法.
+     */
+    public CompressCodec resolve(String name) {
+        CompressCodec codec = codecs.get(name.toLowerCase(Locale.ROOT));
+        if (codec == null) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "不支持的压缩算法");
+        }
+        return codec;
+    }
+
+    /**
+     * 响应体小于该长度(字节)时不压缩.
+     */
+    public int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * 请求体解压后的最大长度(字节).
+     */
+    public long getMaxInflatedSize() {
+        return maxInflatedSize;
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * Http接口加解密前的压缩/解压.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@NullMarked
+package me.ziyframework.web.security.compress;
+
+import org.jspecify.annotations.NullMarked;
@@ -1,19 +1,53 @@
 package me.ziyframework.web.security.config;
 
-import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
-import java.time.Duration;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 import lombok.RequiredArgsConstructor;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.cipher.AesGcmCipherFactory;
+import me.ziyframework.web.security.cipher.ChaCha20Poly1305CipherFactory;
 import me.ziyframework.web.security.cipher.HttpCipherFactory;
+import me.ziyframework.web.security.cipher.HttpCipherRegistry;
 import me.ziyframework.web.security.cipher.Sm4CipherFactory;
+import me.ziyframework.web.security.cipher.Sm4GcmCipherFactory;
+import me.ziyframework.web.security.compress.CompressCodec;
+import me.ziyframework.web.security.compress.HttpCompressRegistry;
+import me.ziyframework.web.security.exchange.FileServerKeyStore;
+import me.ziyframework.web.security.exchange.HandshakeServlet;
+import me.ziyframework.web.security.exchange.InMemoryServerKeyStore;
+import me.ziyframework.web.security.exchange.NoOpSharedSecretCache;
+import me.ziyframework.web.security.exchange.OffHeapSharedSecretCache;
 import me.ziyframework.web.security.exchange.SecretExchange;
+import me.ziyframework.web.security.exchange.ServerKeyStore;
+import me.ziyframework.web.security.exchange.SharedSecretCache;
 import me.ziyframework.web.security.exchange.Sm2SecretExchange;
+import me.ziyframework.web.security.filter.CipherBufferPool;
 import me.ziyframework.web.security.filter.HttpCipherServletFilter;
+import me.ziyframework.web.security.filter.HttpEncryptRouteIndex;
+import me.ziyframework.web.security.metrics.CryptoMetrics;
+import me.ziyframework.web.security.metrics.MicrometerCryptoMetrics;
+import me.ziyframework.web.security.metrics.NoOpCryptoMetrics;
+import me.ziyframework.web.security.replay.NonceReplayDetector;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.boot.web.servlet.ServletRegistrationBean;
 import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
 
 /**
  * 加解密配置类.<br/>
@@ -23,20 +57,72 @@ import org.springframework.context.annotation.Bean;
  */
 @AutoConfiguration
 @RequiredArgsConstructor
+@EnableConfigurationProperties(EncryptProperties.class)
 public class EncryptAutoConfiguration {
 
+    private final EncryptProperties encryptProperties;
+
+    /**
+     * 存在Micrometer时基于容器中的MeterRegistry采集加解密指标.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.MeterRegistry")
+    static class MicrometerMetricsConfiguration {
+
+        @ConditionalOnMissingBean
+        @Bean
+        public CryptoMetrics cryptoMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+            MeterRegistry registry = meterRegistry.getIfAvailable();
+            return registry == null ? NoOpCryptoMetrics.INSTANCE : new MicrometerCryptoMetrics(registry);
+        }
+    }
+
+    /**
+     * 未引入Micrometer时不采集指标.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public CryptoMetrics noOpCryptoMetrics() {
+        return NoOpCryptoMetrics.INSTANCE;
+    }
+
+    /**
+     * 服务端密钥对存储，配置了文件时使用加密的本地文件，否则仅在进程内保存.<br/>
+     * 集群部署时可以提供基于共享存储的实现.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public ServerKeyStore serverKeyStore() {
+        EncryptProperties.KeyStore keyStore = encryptProperties.getKeyStore();
+        Path file = keyStore.getFile();
+        if (file == null) {
+            return new InMemoryServerKeyStore();
+        }
+        String password = keyStore.getPassword();
+        if (password == null || password.isEmpty()) {
+            throw new GlobalException("ziy.web.encrypt.key-store.password is required");
+        }
+        return new FileServerKeyStore(file, password.toCharArray());
+    }
+
     /**
      * 默认使用Sm2作为密钥协商对象.
      */
     @ConditionalOnMissingBean
     @Bean
-    public SecretExchange secretExchange() {
-        // 创建一个用于缓存相同公钥的共享密钥的缓存对象
-        Cache<String, byte[]> cache = Caffeine.newBuilder()
-                .maximumSize(1 << 20)
-                .expireAfterAccess(Duration.ofSeconds(30))
-                .build();
-        return new Sm2SecretExchange(cache, Duration.ofHours(5).toSeconds());
+    public SecretExchange secretExchange(ServerKeyStore serverKeyStore, CryptoMetrics cryptoMetrics) {
+        // 创建一个用于缓存相同公钥的共享密钥的堆外缓存对象
+        int cacheSize = encryptProperties.getSharedSecretCacheSize();
+        SharedSecretCache cache = cacheSize > 0
+                ? new OffHeapSharedSecretCache(cacheSize, encryptProperties.getSharedSecretCacheExpireAfterAccess())
+                : NoOpSharedSecretCache.INSTANCE;
+        SecretExchange secretExchange = new Sm2SecretExchange(
+                cache,
+                serverKeyStore,
+                encryptProperties.getKeyRotation().toSeconds(),
+                encryptProperties.getKeyGracePeriod().toSeconds());
+        secretExchange.bindMetrics(cryptoMetrics);
+        return secretExchange;
     }
 
     /**
@@ -45,7 +131,111 @@ public class EncryptAutoConfiguration {
     @ConditionalOnMissingBean(HttpCipherFactory.class)
     @Bean
     public HttpCipherFactory httpDecryptResolver() {
-        return new Sm4CipherFactory();
+        return new Sm4CipherFactory(encryptProperties.getCipherPoolSize());
+    }
+
+    /**
+     * 允许客户端选择的对称加解密算法.<br/>
+     * 优先使用容器中同名算法的{@link HttpCipherFactory}，其余允许的算法使用内置实现.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public HttpCipherRegistry httpCipherRegistry(List<HttpCipherFactory> httpCipherFactories) {
+        Map<String, HttpCipherFactory> factories = new LinkedHashMap<>();
+        for (String algorithm : encryptProperties.getCiphers()) {
+            String key = algorithm.toUpperCase(Locale.ROOT);
+            HttpCipherFactory factory = httpCipherFactories.stream()
+                    .filter(candidate -> candidate.getAlgorithm().equalsIgnoreCase(algorithm))
+                    .findFirst()
+                    .orElseGet(() -> builtinCipherFactory(key));
+            factories.put(key, factory);
+        }
+        return new HttpCipherRegistry(factories.values(), encryptProperties.getDefaultCipher());
+    }
+
+    private HttpCipherFactory builtinCipherFactory(String algorithm) {
+        int poolSize = encryptProperties.getCipherPoolSize();
+        return switch (algorithm) {
+            case Sm4CipherFactory.ALGORITHM -> new Sm4CipherFactory(poolSize);
+            case Sm4GcmCipherFactory.ALGORITHM -> new Sm4GcmCipherFactory(poolSize);
+            case AesGcmCipherFactory.ALGORITHM -> new AesGcmCipherFactory(poolSize);
+            case ChaCha20Poly1305CipherFactory.ALGORITHM -> new ChaCha20Poly1305CipherFactory(poolSize);
+            default -> throw new GlobalException("unknown http cipher: {}", algorithm);
+        };
+    }
+
+    /**
+     * 允许客户端选择的压缩算法.
+     */
+    @ConditionalOnProperty(prefix = "ziy.web.encrypt.compress", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @Bean
+    public HttpCompressRegistry httpCompressRegistry() {
+        EncryptProperties.Compress compress = encryptProperties.getCompress();
+        int level = compress.getLevel();
+        List<CompressCodec> codecs = new ArrayList<>();
+        for (String name : compress.getCodecs()) {
+            CompressCodec codec = switch (name.toLowerCase(Locale.ROOT)) {
+                case CompressCodec.GZIP -> CompressCodec.gzip(level);
+                case CompressCodec.DEFLATE -> CompressCodec.deflate(level);
+                case CompressCodec.DEFLATE_DICT -> CompressCodec.deflateDictionary(readDictionary(compress), level);
+                default -> throw new GlobalException("unknown compress codec: {}", name);
+            };
+            codecs.add(codec);
+        }
+        return new HttpCompressRegistry(
+                codecs, compress.getThreshold(), compress.getMaxInflatedSize().toBytes());
+    }
+
+    private static byte[] readDictionary(EncryptProperties.Compress compress) {
+        Path dictionary = compress.getDictionary();
+        if (dictionary == null) {
+            throw new GlobalException("ziy.web.encrypt.compress.dictionary is required");
+        }
+        try {
+            return Files.readAllBytes(dictionary);
+        } catch (IOException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 重放检测，过滤器在开启重放保护的接口首次被请求时才分配内存.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public NonceReplayDetector nonceReplayDetector(CryptoMetrics cryptoMetrics) {
+        EncryptProperties.Replay replay = encryptProperties.getReplay();
+        NonceReplayDetector detector = new NonceReplayDetector(
+                replay.getWindow().toMillis(), replay.getFilterBits(), replay.getHashFunctions());
+        cryptoMetrics.bindReplayDetector(detector);
+        return detector;
+    }
+
+    /**
+     * 握手接口，返回当前服务端密钥id和公钥，支持ETag和缓存.
+     */
+    @ConditionalOnProperty(
+            prefix = "ziy.web.encrypt.handshake",
+            name = "enabled",
+            havingValue = "true",
+            matchIfMissing = true)
+    @Bean
+    public ServletRegistrationBean<HandshakeServlet> handshakeServlet(
+            SecretExchange secretExchange, ObjectMapper objectMapper) {
+        ServletRegistrationBean<HandshakeServlet> registrationBean = new ServletRegistrationBean<>(
+                new HandshakeServlet(secretExchange, objectMapper),
+                encryptProperties.getHandshake().getPath());
+        registrationBean.setName("handshakeServlet");
+        return registrationBean;
+    }
+
+    /**
+     * 接口加解密路由索引,在接口注册时收集{@link me.ziyframework.web.security.HttpEncrypt}声明.
+     */
+    @Bean
+    public HttpEncryptRouteIndex httpEncryptRouteIndex() {
+        return new HttpEncryptRouteIndex();
     }
 
     /**
@@ -53,9 +243,29 @@ public class EncryptAutoConfiguration {
      */
     @Bean
     public FilterRegistrationBean<Filter> decryptServletFilter(
-            SecretExchange secretExchange, HttpCipherFactory httpCipherFactory) {
-        FilterRegistrationBean<Filter> registrationBean =
-                new FilterRegistrationBean<>(new HttpCipherServletFilter(secretExchange, httpCipherFactory));
+            SecretExchange secretExchange,
+            HttpCipherRegistry httpCipherRegistry,
+            HttpEncryptRouteIndex httpEncryptRouteIndex,
+            ObjectProvider<HttpCompressRegistry> httpCompressRegistry,
+            CryptoMetrics cryptoMetrics,
+            NonceReplayDetector nonceReplayDetector) {
+        HttpCipherServletFilter filter = new HttpCipherServletFilter(
+                secretExchange,
+                httpCipherRegistry,
+                httpEncryptRouteIndex,
+                encryptProperties.isSessionTicketEnabled()
+                        ? encryptProperties.getSessionTicketTtl().toMillis()
+                        : 0,
+                encryptProperties.getCipherFrameSize(),
+                new CipherBufferPool(
+                        encryptProperties.getCipherBufferSize(), encryptProperties.getCipherBufferPoolSize()),
+                encryptProperties.getBufferedResponseLimit(),
+                httpCompressRegistry.getIfAvailable());
+        filter.setCryptoMetrics(cryptoMetrics);
+        filter.setReplayDetector(nonceReplayDetector);
+        FilterRegistrationBean<Filter> registrationBean = new FilterRegistrationBean<>(filter);
+        // 异步请求在最后一次异步分派时完成响应体加密
+        registrationBean.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
         registrationBean.setOrder(10);
         return registrationBean;
     }
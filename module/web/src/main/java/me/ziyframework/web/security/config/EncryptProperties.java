@@ -0,0 +1,218 @@
+package me.ziyframework.web.security.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.Deflater;
+import lombok.Data;
+import me.ziyframework.web.security.cipher.AesGcmCipherFactory;
+import me.ziyframework.web.security.cipher.ChaCha20Poly1305CipherFactory;
+import me.ziyframework.web.security.cipher.HttpCipherRegistry;
+import me.ziyframework.web.security.cipher.Sm4CipherFactory;
+import me.ziyframework.web.security.cipher.Sm4GcmCipherFactory;
+import me.ziyframework.web.security.compress.CompressCodec;
+import me.ziyframework.web.security.compress.HttpCompressRegistry;
+import me.ziyframework.web.security.exchange.OffHeapSharedSecretCache;
+import me.ziyframework.web.security.filter.CipherBufferPool;
+import me.ziyframework.web.security.filter.HttpCipherServletFilter;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * 接口加解密配置属性.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@Data
+@ConfigurationProperties(prefix = "ziy.web.encrypt")
+public class EncryptProperties {
+
+    /**
+     * 最多缓存的空闲Cipher数量，小于等于0时每次请求都创建新的Cipher.
+     */
+    private int cipherPoolSize = Sm4CipherFactory.DEFAULT_POOL_SIZE;
+
+    /**
+     * 允许客户端通过{@code X-Cipher}请求头选择的对称加解密算法.
+     */
+    private List<String> ciphers = new ArrayList<>(List.of(
+            Sm4CipherFactory.ALGORITHM,
+            Sm4GcmCipherFactory.ALGORITHM,
+            AesGcmCipherFactory.ALGORITHM,
+            ChaCha20Poly1305CipherFactory.ALGORITHM));
+
+    /**
+     * 客户端未指定算法时使用的默认算法，默认SM4兼容已有客户端.
+     * 配置为{@value HttpCipherRegistry#AUTO}时在启动时测试并选择当前JVM上最快的允许算法.
+     */
+    private String defaultCipher = Sm4CipherFactory.ALGORITHM;
+
+    /**
+     * 客户端请求分帧加解密({@code X-Cipher-Frame})时单帧明文的长度(字节)，同时是请求体单帧的上限.
+     */
+    private int cipherFrameSize = HttpCipherServletFilter.DEFAULT_FRAME_SIZE;
+
+    /**
+     * 加解密流缓冲区的大小(字节)，建议与容器的socket读写缓冲区一致.
+     */
+    private int cipherBufferSize = CipherBufferPool.DEFAULT_BUFFER_SIZE;
+
+    /**
+     * 最多缓存的空闲加解密流缓冲区数量，小于等于0时每次请求都分配新的缓冲区.
+     */
+    private int cipherBufferPoolSize = CipherBufferPool.DEFAULT_POOL_SIZE;
+
+    /**
+     * {@link me.ziyframework.web.security.HttpEncrypt#buffered()}时可以缓冲的最大响应体(字节)，超过时退化为流式加密.
+     */
+    private int bufferedResponseLimit = HttpCipherServletFilter.DEFAULT_BUFFERED_RESPONSE_LIMIT;
+
+    /**
+     * 共享密钥缓存的最大数量，每个条目固定占用64字节堆外内存.
+     * 小于等于0时不缓存(客户端均使用会话票据时无需缓存).
+     */
+    private int sharedSecretCacheSize = 1 << 16;
+
+    /**
+     * 共享密钥缓存的条目超过该时间未被访问时过期，至少1秒.
+     */
+    private Duration sharedSecretCacheExpireAfterAccess = OffHeapSharedSecretCache.DEFAULT_EXPIRE_AFTER_ACCESS;
+
+    /**
+     * 服务端密钥对的更换周期.
+     */
+    private Duration keyRotation = Duration.ofHours(5);
+
+    /**
+     * 密钥对被更换后继续有效的宽限期，期间使用旧密钥对的客户端无需重新协商.
+     */
+    private Duration keyGracePeriod = Duration.ofHours(5);
+
+    /**
+     * 是否在完成密钥协商后签发会话票据，客户端之后只需携带票据，无需服务端缓存共享密钥.
+     */
+    private boolean sessionTicketEnabled = false;
+
+    /**
+     * 会话票据的有效期，最长不超过签发时所用服务端密钥对的有效期.
+     */
+    private Duration sessionTicketTtl = Duration.ofHours(1);
+
+    /**
+     * 服务端密钥对存储.
+     */
+    private KeyStore keyStore = new KeyStore();
+
+    /**
+     * 加密前压缩响应体、解密后解压请求体.
+     */
+    private Compress compress = new Compress();
+
+    /**
+     * 返回当前服务端密钥id和公钥的握手接口.
+     */
+    private Handshake handshake = new Handshake();
+
+    /**
+     * {@link me.ziyframework.web.security.HttpEncrypt#replayProtection()}接口的重放检测.
+     */
+    private Replay replay = new Replay();
+
+    /**
+     * 服务端密钥对存储配置，未配置文件时仅在进程内保存.
+     */
+    @Data
+    public static class KeyStore {
+
+        /**
+         * 加密保存密钥对的本地文件，多个进程使用同一文件时共享密钥对，重启后无需客户端重新协商.
+         */
+        private @Nullable Path file;
+
+        /**
+         * 密钥对文件的加密口令.
+         */
+        private @Nullable String password;
+    }
+
+    /**
+     * 握手接口配置.
+     */
+    @Data
+    public static class Handshake {
+
+        /**
+         * 是否注册握手接口.
+         */
+        private boolean enabled = true;
+
+        /**
+         * 握手接口路径(不含上下文路径).
+         */
+        private String path = "/encrypt/handshake";
+    }
+
+    /**
+     * 重放检测配置.内存固定为3个过滤器，仅在开启重放保护的接口首次被请求时分配.
+     */
+    @Data
+    public static class Replay {
+
+        /**
+         * 允许的客户端时间偏差，nonce中的时间戳超出该范围时拒绝请求.
+         */
+        private Duration window = Duration.ofMinutes(5);
+
+        /**
+         * 单个时间片过滤器的比特数，需要容纳一个窗口内的请求数.
+         * 误判率约为(1 - e^(-k * n / m))^k，默认8M比特(1MB)、7个哈希函数时，每个窗口80万个请求时误判率低于1%.
+         */
+        private long filterBits = 1L << 23;
+
+        /**
+         * 哈希函数个数.
+         */
+        private int hashFunctions = 7;
+    }
+
+    /**
+     * 明文压缩配置.客户端通过{@code X-Accept-Compress}声明可以解压的算法，通过{@code X-Compress}声明请求体的压缩算法.
+     */
+    @Data
+    public static class Compress {
+
+        /**
+         * 是否支持压缩.
+         */
+        private boolean enabled = false;
+
+        /**
+         * 支持的压缩算法，可选{@value CompressCodec#GZIP}、{@value CompressCodec#DEFLATE}、
+         * {@value CompressCodec#DEFLATE_DICT}(需要配置字典).
+         */
+        private List<String> codecs = new ArrayList<>(List.of(CompressCodec.GZIP, CompressCodec.DEFLATE));
+
+        /**
+         * 响应体小于该长度(字节)时不压缩，压缩小响应体的收益低于CPU开销.
+         */
+        private int threshold = 1024;
+
+        /**
+         * 压缩级别(0-9)，-1为默认级别.
+         */
+        private int level = Deflater.DEFAULT_COMPRESSION;
+
+        /**
+         * {@value CompressCodec#DEFLATE_DICT}使用的预置字典文件，由典型的响应体离线训练，客户端需要使用相同的字典.
+         */
+        private @Nullable Path dictionary;
+
+        /**
+         * 请求体解压后的最大长度，超过时请求以400结束.
+         */
+        private DataSize maxInflatedSize = DataSize.ofBytes(HttpCompressRegistry.DEFAULT_MAX_INFLATED_SIZE);
+    }
+}
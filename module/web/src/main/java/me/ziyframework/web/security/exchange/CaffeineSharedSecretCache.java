@@ -0,0 +1,52 @@
+package me.ziyframework.web.security.exchange;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.google.common.io.BaseEncoding;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * 基于Caffeine的共享密钥缓存.<br />
+ * 以{@code serverKeyId:base64(公钥)}作为key，兼容原有的{@code Cache<String, byte[]>}配置.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class CaffeineSharedSecretCache implements SharedSecretCache {
+
+    private final Cache<String, byte[]> cache;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    public CaffeineSharedSecretCache(Cache<String, byte[]> cache) {
+        this.cache = cache;
+    }
+
+    @Override
+    public byte[] get(String serverKeyId, byte[] remotePublicKey, Supplier<byte[]> loader) {
+        String key = serverKeyId + ":" + BaseEncoding.base64Url().encode(remotePublicKey);
+        byte[] secret = cache.getIfPresent(key);
+        if (secret != null) {
+            hits.increment();
+            return secret;
+        }
+        misses.increment();
+        return cache.get(key, unused -> loader.get());
+    }
+
+    @Override
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    /**
+     * 淘汰次数需要Caffeine开启{@code recordStats()}.
+     */
+    @Override
+    public SharedSecretCacheStats stats() {
+        return new SharedSecretCacheStats(
+                hits.sum(), misses.sum(), cache.stats().evictionCount(), cache.estimatedSize());
+    }
+}
@@ -0,0 +1,232 @@
+package me.ziyframework.web.security.exchange;
+
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.PBEKeySpec;
+import javax.crypto.spec.SecretKeySpec;
+import me.ziyframework.web.common.exception.GlobalException;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 加密的本地文件服务端密钥对存储.<br />
+ * 密钥对使用AES-256-GCM加密后保存，加密密钥由口令通过PBKDF2派生.
+ * 更换密钥对时持有{@code <file>.lock}文件锁，同一台机器上的多个进程(以及重启前后)共享相同的密钥对.
+ * <pre>
+ * 文件格式: magic(4) | salt(16) | nonce(12) | AES-GCM(密钥对列表)
+ * </pre>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class FileServerKeyStore implements ServerKeyStore {
+
+    private static final int MAGIC = 0x5a4b5331; // ZKS1
+
+    private static final int SALT_LENGTH = 16;
+
+    private static final int NONCE_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final int PBKDF2_ITERATIONS = 210_000;
+
+    private final Path file;
+
+    private final Path lockFile;
+
+    private final char[] password;
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 最近一次派生的加密密钥及其salt，避免每次读写都进行PBKDF2.
+     */
+    private byte @Nullable [] derivedSalt;
+
+    private @Nullable SecretKeySpec derivedKey;
+
+    /**
+     * 创建本地文件存储.
+     *
+     * @param file 密钥对文件
+     * @param password 加密口令
+     */
+    public FileServerKeyStore(Path file, char[] password) {
+        Preconditions.checkArgument(password.length > 0, "key store password is empty");
+        this.file = file.toAbsolutePath();
+        this.lockFile = this.file.resolveSibling(this.file.getFileName() + ".lock");
+        this.password = password.clone();
+    }
+
+    @Override
+    public synchronized List<StoredServerKey> load(String algorithm) {
+        long now = System.currentTimeMillis();
+        return read().stream()
+                .filter(key -> key.getAlgorithm().equals(algorithm) && key.getExpireAt() > now)
+                .toList();
+    }
+
+    @Override
+    public synchronized List<StoredServerKey> rotate(
+            String algorithm, @Nullable String expectedKeyId, StoredServerKey newKey, long retireAt) {
+        try {
+            Files.createDirectories(lockFile.getParent());
+            try (FileChannel channel = FileChannel.open(
+                            lockFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                    FileLock unusedLock = channel.lock()) {
+                long now = System.currentTimeMillis();
+                List<StoredServerKey> all = read();
+                List<StoredServerKey> current = all.stream()
+                        .filter(key -> key.getAlgorithm().equals(algorithm) && key.getExpireAt() > now)
+                        .toList();
+                String currentKeyId = current.isEmpty() ? null : current.getLast().getKeyId();
+                if (!Objects.equals(currentKeyId, expectedKeyId)) {
+                    return current;
+                }
+                List<StoredServerKey> updated = new ArrayList<>(all.size() + 1);
+                for (StoredServerKey key : all) {
+                    if (key.getExpireAt() <= now) {
+                        continue;
+                    }
+                    updated.add(key.getAlgorithm().equals(algorithm) ? key.retire(retireAt) : key);
+                }
+                updated.add(newKey);
+                write(updated);
+                return updated.stream()
+                        .filter(key -> key.getAlgorithm().equals(algorithm))
+                        .toList();
+            }
+        } catch (IOException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    private List<StoredServerKey> read() {
+        if (!Files.exists(file)) {
+            return List.of();
+        }
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (input.readInt() != MAGIC) {
+                throw new GlobalException("invalid server key store file");
+            }
+            byte[] salt = input.readNBytes(SALT_LENGTH);
+            byte[] nonce = input.readNBytes(NONCE_LENGTH);
+            byte[] encrypted = input.readAllBytes();
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.DECRYPT_MODE, key(salt), new GCMParameterSpec(TAG_BITS, nonce));
+            return decode(cipher.doFinal(encrypted));
+        } catch (IOException | GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 写入临时文件后原子替换，读取方不会读到写入一半的文件.
+     */
+    private void write(List<StoredServerKey> keys) throws IOException {
+        byte[] salt = derivedSalt;
+        if (salt == null) {
+            salt = new byte[SALT_LENGTH];
+            random.nextBytes(salt);
+        }
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        byte[] encrypted;
+        try {
+            Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+            cipher.init(Cipher.ENCRYPT_MODE, key(salt), new GCMParameterSpec(TAG_BITS, nonce));
+            encrypted = cipher.doFinal(encode(keys));
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(4 + SALT_LENGTH + NONCE_LENGTH + encrypted.length);
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(MAGIC);
+            output.write(salt);
+            output.write(nonce);
+            output.write(encrypted);
+        }
+        Path temp = Files.createTempFile(file.getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(temp, bytes.toByteArray());
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    private SecretKeySpec key(byte[] salt) throws GeneralSecurityException {
+        SecretKeySpec key = derivedKey;
+        if (key != null && Arrays.equals(salt, derivedSalt)) {
+            return key;
+        }
+        PBEKeySpec spec = new PBEKeySpec(password, salt, PBKDF2_ITERATIONS, 256);
+        try {
+            byte[] encoded = SecretKeyFactory.getInstance("PBKDF2WithHmacSHA256")
+                    .generateSecret(spec)
+                    .getEncoded();
+            key = new SecretKeySpec(encoded, "AES");
+        } finally {
+            spec.clearPassword();
+        }
+        derivedSalt = salt.clone();
+        derivedKey = key;
+        return key;
+    }
+
+    private static byte[] encode(List<StoredServerKey> keys) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(keys.size());
+            for (StoredServerKey key : keys) {
+                output.writeUTF(key.getKeyId());
+                output.writeUTF(key.getAlgorithm());
+                output.writeLong(key.getCreatedAt());
+                output.writeLong(key.getExpireAt());
+                output.writeInt(key.getPublicKey().length);
+                output.write(key.getPublicKey());
+                output.writeInt(key.getPrivateKey().length);
+                output.write(key.getPrivateKey());
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private static List<StoredServerKey> decode(byte[] bytes) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            int count = input.readInt();
+            Preconditions.checkState(count >= 0, "invalid server key count", SafeArg.of("count", count));
+            List<StoredServerKey> keys = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                String keyId = input.readUTF();
+                String algorithm = input.readUTF();
+                long createdAt = input.readLong();
+                long expireAt = input.readLong();
+                byte[] publicKey = input.readNBytes(input.readInt());
+                byte[] privateKey = input.readNBytes(input.readInt());
+                keys.add(new StoredServerKey(keyId, algorithm, publicKey, privateKey, createdAt, expireAt));
+            }
+            return keys;
+        }
+    }
+}
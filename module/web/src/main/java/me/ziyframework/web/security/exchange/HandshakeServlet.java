@@ -0,0 +1,108 @@
+package me.ziyframework.web.security.exchange;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Splitter;
+import jakarta.servlet.http.HttpServlet;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import me.ziyframework.core.tuple.Tuple2;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.common.result.Result;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+
+/**
+ * 密钥协商的握手接口，返回当前的服务端密钥id和公钥.<br />
+ * 响应体在密钥对更换时序列化一次，之后的请求直接写出缓存的字节.
+ * ETag为密钥id(强校验，同一密钥id的响应体完全相同)，Cache-Control的有效期截止到下一次计划的密钥对更换，
+ * 客户端携带If-None-Match轮询时返回304.旧密钥对在宽限期内仍然有效，客户端缓存稍有过期不影响协商.<br />
+ * 直接注册为Servlet，不经过DispatcherServlet的接口匹配和消息转换.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public class HandshakeServlet extends HttpServlet {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final Splitter ETAG_SPLITTER = Splitter.on(',').trimResults();
+
+    private final transient SecretExchange secretExchange;
+
+    private final transient ObjectMapper objectMapper;
+
+    private transient volatile @Nullable Snapshot snapshot;
+
+    public HandshakeServlet(SecretExchange secretExchange, ObjectMapper objectMapper) {
+        this.secretExchange = secretExchange;
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        Snapshot current = current();
+        response.setHeader(HttpHeaders.ETAG, current.etag());
+        long maxAge = TimeUnit.MILLISECONDS.toSeconds(secretExchange.getNextRotationAt() - System.currentTimeMillis());
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=" + Math.max(0, maxAge));
+        if (notModified(request.getHeader(HttpHeaders.IF_NONE_MATCH), current.etag())) {
+            response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return;
+        }
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setContentLength(current.body().length);
+        response.getOutputStream().write(current.body());
+    }
+
+    /**
+     * 获取当前密钥对的响应，密钥对更换后重新序列化.
+     */
+    private Snapshot current() {
+        Tuple2<String, String> publicKey = secretExchange.getPublicBase64();
+        Snapshot current = snapshot;
+        if (current != null && current.publicKey() == publicKey) {
+            return current;
+        }
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(Result.ok(new Handshake(publicKey.v1(), publicKey.v2())));
+        } catch (JsonProcessingException e) {
+            throw GlobalException.wrap(e);
+        }
+        current = new Snapshot(publicKey, body, '"' + publicKey.v1() + '"');
+        snapshot = current;
+        return current;
+    }
+
+    private static boolean notModified(@Nullable String ifNoneMatch, String etag) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        if (ifNoneMatch.equals(etag)) {
+            return true;
+        }
+        for (String candidate : ETAG_SPLITTER.split(ifNoneMatch)) {
+            // If-None-Match使用弱比较
+            if (candidate.equals("*") || candidate.equals(etag) || candidate.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 握手响应.
+     *
+     * @param keyId 服务端密钥id，请求时通过{@link me.ziyframework.web.security.SecurityHttpHeaders#X_KEY_ID}指定
+     * @param publicKey base64url编码的服务端公钥
+     */
+    public record Handshake(String keyId, String publicKey) {}
+
+    /**
+     * 序列化后的响应.
+     */
+    private record Snapshot(Tuple2<String, String> publicKey, byte[] body, String etag) {}
+}
@@ -0,0 +1,55 @@
+package me.ziyframework.web.security.exchange;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 进程内的服务端密钥对存储.<br />
+ * 同一进程中的多个{@link SecretExchange}共享同一个实例时，共享密钥id并协调密钥对的更换.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class InMemoryServerKeyStore implements ServerKeyStore {
+
+    private final Map<String, List<StoredServerKey>> keys = new HashMap<>();
+
+    @Override
+    public synchronized List<StoredServerKey> load(String algorithm) {
+        List<StoredServerKey> stored = prune(keys.getOrDefault(algorithm, List.of()), System.currentTimeMillis());
+        keys.put(algorithm, stored);
+        return stored;
+    }
+
+    @Override
+    public synchronized List<StoredServerKey> rotate(
+            String algorithm, @Nullable String expectedKeyId, StoredServerKey newKey, long retireAt) {
+        List<StoredServerKey> stored = load(algorithm);
+        String currentKeyId = stored.isEmpty() ? null : stored.getLast().getKeyId();
+        if (!Objects.equals(currentKeyId, expectedKeyId)) {
+            return stored;
+        }
+        List<StoredServerKey> rotated = new ArrayList<>(stored.size() + 1);
+        for (StoredServerKey key : stored) {
+            rotated.add(key.retire(retireAt));
+        }
+        rotated.add(newKey);
+        List<StoredServerKey> result = List.copyOf(rotated);
+        keys.put(algorithm, result);
+        return result;
+    }
+
+    /**
+     * 清理已失效的密钥对.
+     */
+    static List<StoredServerKey> prune(List<StoredServerKey> keys, long now) {
+        if (keys.stream().allMatch(key -> key.getExpireAt() > now)) {
+            return keys;
+        }
+        return keys.stream().filter(key -> key.getExpireAt() > now).toList();
+    }
+}
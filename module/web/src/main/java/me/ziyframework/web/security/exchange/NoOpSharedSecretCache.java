@@ -0,0 +1,27 @@
+package me.ziyframework.web.security.exchange;
+
+import java.util.function.Supplier;
+
+/**
+ * 不缓存的共享密钥缓存.<br />
+ * 客户端使用会话票据恢复会话时无需在服务端缓存共享密钥，内存占用与客户端数量无关.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public enum NoOpSharedSecretCache implements SharedSecretCache {
+    INSTANCE;
+
+    @Override
+    public byte[] get(String serverKeyId, byte[] remotePublicKey, Supplier<byte[]> loader) {
+        return loader.get();
+    }
+
+    @Override
+    public void invalidateAll() {}
+
+    @Override
+    public SharedSecretCacheStats stats() {
+        return new SharedSecretCacheStats(0, 0, 0, 0);
+    }
+}
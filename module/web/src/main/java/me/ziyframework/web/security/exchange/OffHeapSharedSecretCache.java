@@ -0,0 +1,293 @@
+package me.ziyframework.web.security.exchange;
+
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.lang.invoke.VarHandle;
+import java.nio.charset.StandardCharsets;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 堆外固定槽位的共享密钥缓存.<br />
+ * 所有槽位在创建时一次性分配在堆外，不产生String、byte[]和缓存节点等堆内对象，不参与GC.
+ * <ul>
+ *     <li>key：服务端密钥id和客户端公钥原始字节的128bit哈希(随机密钥的SipHash)，不保存公钥本身</li>
+ *     <li>value：定长的共享密钥(最长{@value #MAX_SECRET_LENGTH}字节)，超出长度的密钥不缓存</li>
+ *     <li>淘汰：8路组相联，组内使用CLOCK(二次机会)算法淘汰</li>
+ *     <li>过期：超过指定时间未被访问的条目视为不存在(秒级精度)，写入时优先覆盖</li>
+ *     <li>并发：每个槽位使用seqlock，读取无锁，写入冲突时放弃缓存</li>
+ * </ul>
+ * 槽位布局(64字节): version(8) | hashHi(8) | hashLo(8) | referenced(1) | length(1) | padding(2) | accessedAt(4)
+ * | secret(32)，accessedAt为相对缓存创建时间的秒数.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class OffHeapSharedSecretCache implements SharedSecretCache, AutoCloseable {
+
+    /**
+     * 可缓存的共享密钥最大长度(X25519和SM2的ECDH结果均为32字节).
+     */
+    public static final int MAX_SECRET_LENGTH = 32;
+
+    /**
+     * 默认的过期时间，与原先基于Caffeine的缓存一致.
+     */
+    public static final Duration DEFAULT_EXPIRE_AFTER_ACCESS = Duration.ofSeconds(30);
+
+    private static final int WAYS = 8;
+
+    private static final long SLOT_SIZE = 64;
+
+    private static final long VERSION_OFFSET = 0;
+
+    private static final long HASH_HI_OFFSET = 8;
+
+    private static final long HASH_LO_OFFSET = 16;
+
+    private static final long REFERENCED_OFFSET = 24;
+
+    private static final long LENGTH_OFFSET = 25;
+
+    private static final long ACCESSED_AT_OFFSET = 28;
+
+    private static final long SECRET_OFFSET = 32;
+
+    private static final int MAX_READ_RETRIES = 4;
+
+    private static final VarHandle LONG_HANDLE = ValueLayout.JAVA_LONG.varHandle();
+
+    private final Arena arena;
+
+    private final MemorySegment slots;
+
+    /**
+     * 每组的CLOCK指针，每组1字节.
+     */
+    private final MemorySegment hands;
+
+    private final long setMask;
+
+    /**
+     * 计算accessedAt的起点(纳秒).
+     */
+    private final long origin = System.nanoTime();
+
+    private final long expireAfterAccessSeconds;
+
+    private final HashFunction hashHi;
+
+    private final HashFunction hashLo;
+
+    private final LongAdder hits = new LongAdder();
+
+    private final LongAdder misses = new LongAdder();
+
+    private final LongAdder evictions = new LongAdder();
+
+    private final LongAdder size = new LongAdder();
+
+    public OffHeapSharedSecretCache(int capacity) {
+        this(capacity, DEFAULT_EXPIRE_AFTER_ACCESS);
+    }
+
+    /**
+     * 创建堆外共享密钥缓存.
+     *
+     * @param capacity 最大缓存数量，向上取整为2的幂(至少{@value #WAYS})，每个条目占用64字节堆外内存
+     * @param expireAfterAccess 条目超过该时间未被访问时过期，至少1秒
+     */
+    public OffHeapSharedSecretCache(int capacity, Duration expireAfterAccess) {
+        Preconditions.checkArgument(
+                capacity > 0 && capacity <= 1 << 30, "capacity out of range", SafeArg.of("capacity", capacity));
+        Preconditions.checkArgument(
+                expireAfterAccess.toSeconds() > 0 && expireAfterAccess.toSeconds() < Integer.MAX_VALUE,
+                "expireAfterAccess out of range",
+                SafeArg.of("expireAfterAccess", expireAfterAccess));
+        this.expireAfterAccessSeconds = expireAfterAccess.toSeconds();
+        int slotCount = Math.max(WAYS, Integer.highestOneBit(capacity - 1) << 1);
+        long sets = slotCount / WAYS;
+        this.setMask = sets - 1;
+        this.arena = Arena.ofShared();
+        this.slots = arena.allocate(slotCount * SLOT_SIZE, SLOT_SIZE);
+        this.hands = arena.allocate(sets);
+        SecureRandom random = new SecureRandom();
+        this.hashHi = Hashing.sipHash24(random.nextLong(), random.nextLong());
+        this.hashLo = Hashing.sipHash24(random.nextLong(), random.nextLong());
+    }
+
+    @Override
+    public byte[] get(String serverKeyId, byte[] remotePublicKey, Supplier<byte[]> loader) {
+        long hi = hash(hashHi, serverKeyId, remotePublicKey);
+        long lo = hash(hashLo, serverKeyId, remotePublicKey);
+        long setBase = (lo & setMask) * WAYS * SLOT_SIZE;
+        int now = now();
+        for (int way = 0; way < WAYS; way++) {
+            byte[] secret = read(setBase + way * SLOT_SIZE, hi, lo, now);
+            if (secret != null) {
+                hits.increment();
+                return secret;
+            }
+        }
+        misses.increment();
+        byte[] secret = loader.get();
+        if (secret.length <= MAX_SECRET_LENGTH) {
+            write(lo & setMask, setBase, hi, lo, secret, now);
+        }
+        return secret;
+    }
+
+    @Override
+    public void invalidateAll() {
+        long slotCount = slots.byteSize() / SLOT_SIZE;
+        for (long i = 0; i < slotCount; i++) {
+            long slot = i * SLOT_SIZE;
+            long version = lock(slot);
+            if (slots.get(ValueLayout.JAVA_BYTE, slot + LENGTH_OFFSET) != 0) {
+                slots.set(ValueLayout.JAVA_BYTE, slot + LENGTH_OFFSET, (byte) 0);
+                size.decrement();
+            }
+            unlock(slot, version);
+        }
+    }
+
+    @Override
+    public SharedSecretCacheStats stats() {
+        return new SharedSecretCacheStats(hits.sum(), misses.sum(), evictions.sum(), size.sum());
+    }
+
+    /**
+     * 释放堆外内存，释放后不可再使用.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * 无锁读取槽位，key不匹配、已过期或读取期间被并发修改时返回null.
+     */
+    private byte @Nullable [] read(long slot, long hi, long lo, int now) {
+        for (int retry = 0; retry < MAX_READ_RETRIES; retry++) {
+            long version = (long) LONG_HANDLE.getAcquire(slots, slot + VERSION_OFFSET);
+            if ((version & 1) != 0) {
+                Thread.onSpinWait();
+                continue;
+            }
+            int length = slots.get(ValueLayout.JAVA_BYTE, slot + LENGTH_OFFSET);
+            if (length <= 0
+                    || slots.get(ValueLayout.JAVA_LONG, slot + HASH_HI_OFFSET) != hi
+                    || slots.get(ValueLayout.JAVA_LONG, slot + HASH_LO_OFFSET) != lo
+                    || isExpired(slot, now)) {
+                return null;
+            }
+            byte[] secret = new byte[Math.min(length, MAX_SECRET_LENGTH)];
+            MemorySegment.copy(slots, ValueLayout.JAVA_BYTE, slot + SECRET_OFFSET, secret, 0, secret.length);
+            VarHandle.loadLoadFence();
+            if ((long) LONG_HANDLE.getOpaque(slots, slot + VERSION_OFFSET) == version) {
+                // 与写入并发时可能记录到新条目上，只会使新条目晚1秒内过期
+                slots.set(ValueLayout.JAVA_BYTE, slot + REFERENCED_OFFSET, (byte) 1);
+                slots.set(ValueLayout.JAVA_INT, slot + ACCESSED_AT_OFFSET, now);
+                return secret;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 写入槽位：优先使用空槽位和已过期的槽位，否则按CLOCK算法淘汰未被再次访问的槽位.
+     */
+    private void write(long set, long setBase, long hi, long lo, byte[] secret, int now) {
+        long victim = -1;
+        for (int way = 0; way < WAYS; way++) {
+            long slot = setBase + way * SLOT_SIZE;
+            if (slots.get(ValueLayout.JAVA_BYTE, slot + LENGTH_OFFSET) == 0 || isExpired(slot, now)) {
+                victim = victim < 0 ? slot : victim;
+            } else if (slots.get(ValueLayout.JAVA_LONG, slot + HASH_HI_OFFSET) == hi
+                    && slots.get(ValueLayout.JAVA_LONG, slot + HASH_LO_OFFSET) == lo) {
+                // 其他线程已经缓存了相同的key
+                return;
+            }
+        }
+        if (victim < 0) {
+            int hand = hands.get(ValueLayout.JAVA_BYTE, set) & (WAYS - 1);
+            for (int step = 0; step < WAYS * 2; step++) {
+                long slot = setBase + hand * SLOT_SIZE;
+                hand = (hand + 1) & (WAYS - 1);
+                if (slots.get(ValueLayout.JAVA_BYTE, slot + REFERENCED_OFFSET) == 0) {
+                    victim = slot;
+                    break;
+                }
+                slots.set(ValueLayout.JAVA_BYTE, slot + REFERENCED_OFFSET, (byte) 0);
+            }
+            if (victim < 0) {
+                victim = setBase + hand * SLOT_SIZE;
+            }
+            hands.set(ValueLayout.JAVA_BYTE, set, (byte) hand);
+        }
+        long version = (long) LONG_HANDLE.getAcquire(slots, victim + VERSION_OFFSET);
+        if ((version & 1) != 0 || !LONG_HANDLE.compareAndSet(slots, victim + VERSION_OFFSET, version, version + 1)) {
+            // 其他线程正在写入该槽位，放弃缓存
+            return;
+        }
+        if (slots.get(ValueLayout.JAVA_BYTE, victim + LENGTH_OFFSET) == 0) {
+            size.increment();
+        } else {
+            evictions.increment();
+        }
+        slots.set(ValueLayout.JAVA_LONG, victim + HASH_HI_OFFSET, hi);
+        slots.set(ValueLayout.JAVA_LONG, victim + HASH_LO_OFFSET, lo);
+        slots.set(ValueLayout.JAVA_BYTE, victim + REFERENCED_OFFSET, (byte) 0);
+        slots.set(ValueLayout.JAVA_BYTE, victim + LENGTH_OFFSET, (byte) secret.length);
+        slots.set(ValueLayout.JAVA_INT, victim + ACCESSED_AT_OFFSET, now);
+        MemorySegment.copy(secret, 0, slots, ValueLayout.JAVA_BYTE, victim + SECRET_OFFSET, secret.length);
+        unlock(victim, version + 1);
+    }
+
+    /**
+     * 自旋获取槽位的写锁.
+     *
+     * @return 加锁后的version(奇数)
+     */
+    private long lock(long slot) {
+        while (true) {
+            long version = (long) LONG_HANDLE.getAcquire(slots, slot + VERSION_OFFSET);
+            if ((version & 1) == 0 && LONG_HANDLE.compareAndSet(slots, slot + VERSION_OFFSET, version, version + 1)) {
+                return version + 1;
+            }
+            Thread.onSpinWait();
+        }
+    }
+
+    private void unlock(long slot, long lockedVersion) {
+        LONG_HANDLE.setRelease(slots, slot + VERSION_OFFSET, lockedVersion + 1);
+    }
+
+    private boolean isExpired(long slot, int now) {
+        return now - slots.get(ValueLayout.JAVA_INT, slot + ACCESSED_AT_OFFSET) >= expireAfterAccessSeconds;
+    }
+
+    /**
+     * 相对缓存创建时间的秒数.
+     */
+    private int now() {
+        return (int) ((System.nanoTime() - origin) / 1_000_000_000L);
+    }
+
+    private static long hash(HashFunction function, String serverKeyId, byte[] remotePublicKey) {
+        return function.newHasher()
+                .putInt(serverKeyId.length())
+                .putString(serverKeyId, StandardCharsets.UTF_8)
+                .putBytes(remotePublicKey)
+                .hash()
+                .asLong();
+    }
+}
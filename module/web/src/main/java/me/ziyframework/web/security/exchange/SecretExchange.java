@@ -1,29 +1,39 @@
 package me.ziyframework.web.security.exchange;
 
 import com.github.benmanes.caffeine.cache.Cache;
-import com.github.benmanes.caffeine.cache.Caffeine;
 import com.google.common.io.BaseEncoding;
 import com.palantir.logsafe.Preconditions;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
+import java.security.SecureRandom;
 import java.security.Security;
+import java.security.spec.PKCS8EncodedKeySpec;
 import java.security.spec.X509EncodedKeySpec;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.crypto.KeyAgreement;
+import lombok.CustomLog;
 import me.ziyframework.core.tuple.Tuple2;
 import me.ziyframework.core.tuple.Tuples;
 import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.InstancePool;
+import me.ziyframework.web.security.metrics.CryptoMetrics;
+import me.ziyframework.web.security.metrics.NoOpCryptoMetrics;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
-import org.jetbrains.annotations.Nullable;
+import org.jspecify.annotations.Nullable;
 import org.springframework.beans.factory.DisposableBean;
-import org.springframework.util.StringUtils;
 
 /**
  * 密钥交换.<br />
@@ -31,16 +41,44 @@ import org.springframework.util.StringUtils;
  *
  * @author ziy
  */
+@CustomLog
 public abstract class SecretExchange implements DisposableBean {
 
+    /**
+     * 最多缓存的空闲KeyFactory/KeyAgreement数量.
+     */
+    private static final int INSTANCE_POOL_SIZE = 64;
+
+    /**
+     * 与密钥对存储同步的最大间隔(秒)，其他节点更换的密钥对最迟在该间隔后生效.
+     */
+    private static final long MAX_SYNC_SECONDS = 60;
+
+    /**
+     * 遇到未知密钥id时重新读取存储的最小间隔(毫秒)，避免伪造的密钥id击穿到存储.
+     */
+    private static final long MISS_RELOAD_INTERVAL_MILLIS = 1000;
+
     private final KeyPairGenerator keyPairGenerator;
 
-    private final KeyFactory keyFactory;
+    /**
+     * KeyFactory和KeyAgreement均非线程安全，借出期间仅由当前线程使用.
+     */
+    private final InstancePool<KeyFactory> keyFactoryPool = new InstancePool<>(INSTANCE_POOL_SIZE);
+
+    private final InstancePool<KeyAgreement> keyAgreementPool = new InstancePool<>(INSTANCE_POOL_SIZE);
 
     /**
      * 缓存客户端共享密钥协商结果(提高高频加解密接口性能).
      */
-    private final Cache<String, byte[]> cache;
+    private final SharedSecretCache cache;
+
+    /**
+     * 密钥对存储，多个节点共享同一存储时使用相同的密钥对.
+     */
+    private final ServerKeyStore keyStore;
+
+    private final String keyAlgorithm;
 
     private final ScheduledExecutorService scheduledExecutorService =
             Executors.newSingleThreadScheduledExecutor(runnable -> {
@@ -50,13 +88,42 @@ public abstract class SecretExchange implements DisposableBean {
             });
 
     /**
-     * 用于临时缓存切换服务端密钥对,从而允许密钥对更新后对旧密钥对的支持.
-     * 在下一次密钥对更新时会清理旧密钥对
+     * 所有仍然有效的服务端密钥对(按代区分),从而允许密钥对更新后对旧密钥对的支持.
+     * 旧密钥对在宽限期结束后失效，并在之后的密钥对更新时清理
      */
-    private final Cache<String, KeyPair> keyIdCache =
-            Caffeine.newBuilder().maximumSize(2).build();
+    private final Map<String, ServerKey> serverKeys = new ConcurrentHashMap<>();
 
-    private final AtomicReference<@Nullable String> newKeyIdRef = new AtomicReference<>();
+    /**
+     * 当前最新的密钥对.
+     */
+    private volatile @Nullable ServerKey currentKey;
+
+    /**
+     * 当前密钥对的id和base64编码的公钥，仅在密钥对更换时重新编码.
+     */
+    private volatile @Nullable Tuple2<String, String> currentPublicKey;
+
+    /**
+     * 预先生成的下一代密钥对，更新时直接切换.
+     */
+    private volatile @Nullable KeyPair nextKeyPair;
+
+    /**
+     * 密钥id的进程唯一前缀，避免多个实例或重启后的密钥id冲突.
+     */
+    private final String keyIdPrefix = newKeyIdPrefix();
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final long rotationMillis;
+
+    private final long gracePeriodMillis;
+
+    private final AtomicLong lastMissReload = new AtomicLong();
+
+    private final SessionTickets sessionTickets = new SessionTickets();
+
+    private volatile CryptoMetrics metrics = NoOpCryptoMetrics.INSTANCE;
 
     static {
         if (Security.getProvider("BC") == null) {
@@ -67,48 +134,110 @@ public abstract class SecretExchange implements DisposableBean {
     /**
      * 创建一个服务端密钥对管理对象.
      *
-     * @param cache 缓存共享密钥
-     * @param seconds 定时更换服务端密钥对的时间（秒），每次更换都将清理共享密钥的缓存
+     * @param cache 缓存共享密钥，key为{@code serverKeyId:base64(公钥)}
+     * @param seconds 定时更换服务端密钥对的时间（秒），旧密钥对在下一次更换前继续有效
      */
     public SecretExchange(Cache<String, byte[]> cache, long seconds) {
+        this(new CaffeineSharedSecretCache(cache), seconds);
+    }
+
+    /**
+     * 创建一个服务端密钥对管理对象.
+     *
+     * @param cache 缓存共享密钥
+     * @param seconds 定时更换服务端密钥对的时间（秒），旧密钥对在下一次更换前继续有效
+     */
+    public SecretExchange(SharedSecretCache cache, long seconds) {
+        this(cache, seconds, seconds);
+    }
+
+    /**
+     * 创建一个服务端密钥对管理对象.
+     *
+     * @param cache 缓存共享密钥
+     * @param seconds 定时更换服务端密钥对的时间（秒）
+     * @param graceSeconds 密钥对被更换后继续有效的宽限期（秒），期间由旧密钥对协商出的共享密钥仍然可用
+     */
+    public SecretExchange(SharedSecretCache cache, long seconds, long graceSeconds) {
+        this(cache, new InMemoryServerKeyStore(), seconds, graceSeconds);
+    }
+
+    /**
+     * 创建一个服务端密钥对管理对象.
+     *
+     * @param cache 缓存共享密钥
+     * @param keyStore 密钥对存储，多个节点(或重启前后)共享存储时使用相同的密钥对
+     * @param seconds 定时更换服务端密钥对的时间（秒）
+     * @param graceSeconds 密钥对被更换后继续有效的宽限期（秒），期间由旧密钥对协商出的共享密钥仍然可用
+     */
+    public SecretExchange(SharedSecretCache cache, ServerKeyStore keyStore, long seconds, long graceSeconds) {
+        this.rotationMillis = TimeUnit.SECONDS.toMillis(seconds);
+        this.gracePeriodMillis = TimeUnit.SECONDS.toMillis(graceSeconds);
         try {
             this.keyPairGenerator = getKeyPairGenerator();
-            this.keyFactory = getKeyFactory();
+            keyFactoryPool.offer(getKeyFactory());
         } catch (Exception e) {
             throw GlobalException.wrap(e);
         }
+        this.keyAlgorithm = getKeyAlgorithm();
         this.cache = cache;
-        updateKeyPair();
-        // 启动定时线程.
+        this.keyStore = keyStore;
+        refreshKeys();
+        // 启动定时线程，定时与存储同步并在到期时更换密钥对.
+        long syncSeconds = Math.max(1, Math.min(seconds, MAX_SYNC_SECONDS));
         Future<?> unusedFuture = scheduledExecutorService.scheduleWithFixedDelay(
-                this::updateKeyPair, seconds, seconds, TimeUnit.SECONDS);
+                this::refreshKeys, syncSeconds, syncSeconds, TimeUnit.SECONDS);
     }
 
     /**
      * 清理资源.
      */
     @Override
-    public void destroy() {
+    public void destroy() throws Exception {
         scheduledExecutorService.shutdownNow();
+        if (cache instanceof AutoCloseable closeable) {
+            closeable.close();
+        }
     }
 
     /**
-     * 获取公钥base64编码.
+     * 采集密钥协商耗时、密钥对更换次数和共享密钥缓存的指标.
+     */
+    public void bindMetrics(CryptoMetrics metrics) {
+        this.metrics = metrics;
+        metrics.bindSharedSecretCache(keyAlgorithm, this::getCacheStats);
+    }
+
+    /**
+     * 获取共享密钥缓存的统计信息.
+     */
+    public SharedSecretCacheStats getCacheStats() {
+        return cache.stats();
+    }
+
+    /**
+     * 获取公钥base64编码.<br />
+     * 密钥对更换前返回同一对象，调用方可以据此判断密钥对是否已更换.
      *
      * @return _1 keyId  _2 公钥base64编码
      */
     public Tuple2<String, String> getPublicBase64() {
-        String keyId = newKeyIdRef.get();
-        if (!StringUtils.hasText(keyId)) {
+        Tuple2<String, String> publicKey = currentPublicKey;
+        if (publicKey == null) {
             throw new GlobalException("server key is null");
         }
-        KeyPair keyPair = keyIdCache.getIfPresent(keyId);
-        if (keyPair == null) {
+        return publicKey;
+    }
+
+    /**
+     * 当前密钥对下一次按计划更换的时间(毫秒)，其他节点可能先完成更换.
+     */
+    public long getNextRotationAt() {
+        ServerKey serverKey = currentKey;
+        if (serverKey == null) {
             throw new GlobalException("server key is null");
         }
-        String publicKeyBase64 =
-                BaseEncoding.base64Url().encode(keyPair.getPublic().getEncoded());
-        return Tuples.of(keyId, publicKeyBase64);
+        return serverKey.createdAt() + rotationMillis;
     }
 
     /**
@@ -122,16 +251,43 @@ public abstract class SecretExchange implements DisposableBean {
         if (StringUtil.isBlank(remotePublicKeyBase64)) {
             throw new GlobalException("publicKey is blank");
         }
-        byte[] serverKeyBytes = cache.get(serverKeyId + ":" + remotePublicKeyBase64, key -> {
-            KeyPair serverKeyPair = keyIdCache.getIfPresent(serverKeyId);
-            if (serverKeyPair == null) {
-                throw new GlobalException("server key is null");
-            }
-            return generateSharedSecret(remotePublicKeyBase64, serverKeyPair.getPrivate());
-        });
+        // 先确认密钥对仍在有效期内，失效密钥对的共享密钥即使仍在缓存中也不可再使用
+        ServerKey serverKey = getServerKey(serverKeyId);
+        // 缓存以解码后的公钥原始字节作为key
+        byte[] remotePublicKeyBytes = BaseEncoding.base64Url().decode(remotePublicKeyBase64);
+        PrivateKey privateKey = serverKey.keyPair().getPrivate();
+        byte[] serverKeyBytes = cache.get(
+                serverKeyId, remotePublicKeyBytes, () -> generateSharedSecret(remotePublicKeyBytes, privateKey));
         return Preconditions.checkNotNull(serverKeyBytes, "server key is null");
     }
 
+    /**
+     * 为协商出的共享密钥签发会话票据，之后的请求只需携带票据即可恢复共享密钥.<br />
+     * 票据最迟随服务端密钥对一同失效.
+     *
+     * @param serverKeyId 协商共享密钥时使用的服务端密钥id
+     * @param sharedSecret 共享密钥
+     * @param ttlMillis 票据有效期(毫秒)
+     * @return base64url编码的票据
+     */
+    public String issueSessionTicket(String serverKeyId, byte[] sharedSecret, long ttlMillis) {
+        ServerKey serverKey = getServerKey(serverKeyId);
+        long now = System.currentTimeMillis();
+        return sessionTickets.issue(serverKey, sharedSecret, Math.min(now + ttlMillis, serverKey.expireAt()));
+    }
+
+    /**
+     * 通过会话票据恢复共享密钥，无需密钥协商和共享密钥缓存.
+     *
+     * @param ticketBase64 base64url编码的票据
+     * @return 共享密钥
+     */
+    public byte[] resumeSessionTicket(String ticketBase64) {
+        byte[] ticket = BaseEncoding.base64Url().omitPadding().decode(ticketBase64);
+        ServerKey serverKey = getServerKey(SessionTickets.keyId(ticket));
+        return sessionTickets.open(serverKey, ticket, System.currentTimeMillis());
+    }
+
     /**
      * 通过客户端的公钥计算出共享密钥(密钥协商).
      *
@@ -139,19 +295,51 @@ public abstract class SecretExchange implements DisposableBean {
      */
     public byte[] generateSharedSecret(String remotePublicKeyBase64, PrivateKey serverPrivetKey) {
         // 解析base64编码的公钥
-        byte[] remotePublicKeyBytes = BaseEncoding.base64Url().decode(remotePublicKeyBase64);
-        X509EncodedKeySpec keySpec = new X509EncodedKeySpec(remotePublicKeyBytes);
-        KeyAgreement agree;
+        return generateSharedSecret(BaseEncoding.base64Url().decode(remotePublicKeyBase64), serverPrivetKey);
+    }
+
+    /**
+     * 通过客户端的公钥计算出共享密钥(密钥协商).<br />
+     * KeyFactory和KeyAgreement从复用池中借出，协商成功后归还.
+     *
+     * @param remotePublicKeyBytes 远程公钥(X.509编码，或子类支持的原始编码)
+     */
+    public byte[] generateSharedSecret(byte[] remotePublicKeyBytes, PrivateKey serverPrivetKey) {
+        long start = System.nanoTime();
         try {
-            agree = getKeyAgreement();
-            PublicKey publicKey = keyFactory.generatePublic(keySpec);
-            // 计算共享公钥
+            KeyFactory keyFactory = keyFactoryPool.poll();
+            if (keyFactory == null) {
+                keyFactory = getKeyFactory();
+            }
+            PublicKey publicKey = decodePublicKey(remotePublicKeyBytes, keyFactory);
+            keyFactoryPool.offer(keyFactory);
+
+            KeyAgreement agree = keyAgreementPool.poll();
+            if (agree == null) {
+                agree = getKeyAgreement();
+            }
+            // 计算共享公钥, generateSecret后KeyAgreement恢复到init前的状态
             agree.init(serverPrivetKey);
             agree.doPhase(publicKey, true);
+            byte[] secret = agree.generateSecret();
+            keyAgreementPool.offer(agree);
+            metrics.recordKeyAgreement(keyAlgorithm, System.nanoTime() - start);
+            return secret;
         } catch (Exception e) {
             throw GlobalException.wrap(e);
         }
-        return agree.generateSecret();
+    }
+
+    /**
+     * 解析客户端公钥，默认按X.509编码解析.<br />
+     * 子类可以覆盖以支持无需ASN.1解析的原始编码.
+     *
+     * @param remotePublicKeyBytes 客户端公钥
+     * @param keyFactory 当前线程借出的密钥工厂
+     */
+    protected PublicKey decodePublicKey(byte[] remotePublicKeyBytes, KeyFactory keyFactory)
+            throws GeneralSecurityException {
+        return keyFactory.generatePublic(new X509EncodedKeySpec(remotePublicKeyBytes));
     }
 
     /**
@@ -170,14 +358,141 @@ public abstract class SecretExchange implements DisposableBean {
     protected abstract KeyAgreement getKeyAgreement() throws Exception;
 
     /**
-     * 更新密钥对.
+     * 获取仍在有效期内的服务端密钥对.
      */
-    private void updateKeyPair() {
-        KeyPair newKeyPair = keyPairGenerator.generateKeyPair();
-        cache.invalidateAll();
-        final String keyId = String.valueOf(System.currentTimeMillis());
-        keyIdCache.put(keyId, newKeyPair);
-        // 记录当前最新的密钥对版本
-        newKeyIdRef.set(keyId);
+    private ServerKey getServerKey(String serverKeyId) {
+        ServerKey serverKey = serverKeys.get(serverKeyId);
+        if (serverKey == null && reloadOnMiss()) {
+            // 可能是其他节点刚更换的密钥对
+            serverKey = serverKeys.get(serverKeyId);
+        }
+        if (serverKey == null || serverKey.isExpired(System.currentTimeMillis())) {
+            throw new GlobalException("server key is null");
+        }
+        return serverKey;
+    }
+
+    /**
+     * 存储中区分不同实现的密钥算法名，默认为密钥对生成器的算法.
+     */
+    protected String getKeyAlgorithm() {
+        return keyPairGenerator.getAlgorithm();
+    }
+
+    /**
+     * 与存储同步密钥对，当前密钥对到期时更换.<br />
+     * 更换通过存储的CAS完成，多个节点同时到期时只有一个节点的新密钥对生效，其余节点直接使用存储中的结果.
+     * 共享密钥缓存按密钥id区分，更换时不清理缓存：旧密钥对在宽限期内仍然可用，避免所有客户端同时重新协商.
+     */
+    private synchronized void refreshKeys() {
+        try {
+            long now = System.currentTimeMillis();
+            List<StoredServerKey> stored = keyStore.load(keyAlgorithm);
+            StoredServerKey latest = stored.isEmpty() ? null : stored.getLast();
+            if (latest == null || now - latest.getCreatedAt() >= rotationMillis) {
+                KeyPair pregenerated = nextKeyPair;
+                KeyPair newKeyPair = pregenerated != null ? pregenerated : keyPairGenerator.generateKeyPair();
+                StoredServerKey newKey = new StoredServerKey(
+                        nextKeyId(),
+                        keyAlgorithm,
+                        newKeyPair.getPublic().getEncoded(),
+                        newKeyPair.getPrivate().getEncoded(),
+                        now,
+                        Long.MAX_VALUE);
+                stored = keyStore.rotate(
+                        keyAlgorithm, latest == null ? null : latest.getKeyId(), newKey, now + gracePeriodMillis);
+                if (stored.stream().anyMatch(key -> key.getKeyId().equals(newKey.getKeyId()))) {
+                    metrics.recordKeyRotation(keyAlgorithm);
+                    // 在定时线程中预先生成下一代密钥对
+                    nextKeyPair = keyPairGenerator.generateKeyPair();
+                }
+            }
+            install(stored, now);
+        } catch (RuntimeException e) {
+            if (currentKey == null) {
+                throw e;
+            }
+            // 存储暂时不可用时继续使用已加载的密钥对
+            log.warn("refresh server keys failed", e);
+        }
+    }
+
+    /**
+     * 遇到未知密钥id时重新读取存储，每{@value #MISS_RELOAD_INTERVAL_MILLIS}毫秒最多一次.
+     *
+     * @return 是否重新读取了存储
+     */
+    private boolean reloadOnMiss() {
+        long now = System.currentTimeMillis();
+        long last = lastMissReload.get();
+        if (now - last < MISS_RELOAD_INTERVAL_MILLIS || !lastMissReload.compareAndSet(last, now)) {
+            return false;
+        }
+        synchronized (this) {
+            install(keyStore.load(keyAlgorithm), now);
+        }
+        return true;
+    }
+
+    /**
+     * 使用存储中的密钥对替换本地密钥对，已加载的密钥对只更新失效时间，不重复解析.
+     */
+    private void install(List<StoredServerKey> stored, long now) {
+        if (stored.isEmpty()) {
+            return;
+        }
+        Set<String> keyIds = new HashSet<>();
+        ServerKey latest = null;
+        for (StoredServerKey key : stored) {
+            if (key.getExpireAt() <= now) {
+                continue;
+            }
+            ServerKey loaded = serverKeys.get(key.getKeyId());
+            ServerKey serverKey = loaded != null
+                    ? loaded.retire(key.getExpireAt())
+                    : new ServerKey(key.getKeyId(), decodeKeyPair(key), key.getCreatedAt(), key.getExpireAt());
+            serverKeys.put(serverKey.keyId(), serverKey);
+            keyIds.add(serverKey.keyId());
+            latest = serverKey;
+        }
+        if (latest != null) {
+            // 记录当前最新的密钥对版本
+            ServerKey previous = currentKey;
+            currentKey = latest;
+            if (previous == null || !previous.keyId().equals(latest.keyId())) {
+                currentPublicKey = Tuples.of(
+                        latest.keyId(),
+                        BaseEncoding.base64Url().encode(latest.keyPair().getPublic().getEncoded()));
+            }
+        }
+        serverKeys.keySet().retainAll(keyIds);
+    }
+
+    private KeyPair decodeKeyPair(StoredServerKey key) {
+        KeyFactory keyFactory = keyFactoryPool.poll();
+        try {
+            if (keyFactory == null) {
+                keyFactory = getKeyFactory();
+            }
+            PublicKey publicKey = keyFactory.generatePublic(new X509EncodedKeySpec(key.getPublicKey()));
+            PrivateKey privateKey = keyFactory.generatePrivate(new PKCS8EncodedKeySpec(key.getPrivateKey()));
+            keyFactoryPool.offer(keyFactory);
+            return new KeyPair(publicKey, privateKey);
+        } catch (Exception e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 生成新的密钥id: 进程唯一前缀 + 代数.
+     */
+    private String nextKeyId() {
+        return keyIdPrefix + "." + Long.toString(generation.incrementAndGet(), Character.MAX_RADIX);
+    }
+
+    private static String newKeyIdPrefix() {
+        byte[] bytes = new byte[12];
+        new SecureRandom().nextBytes(bytes);
+        return BaseEncoding.base64Url().omitPadding().encode(bytes);
     }
 }
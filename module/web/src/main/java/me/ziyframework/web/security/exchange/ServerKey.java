@@ -0,0 +1,38 @@
+package me.ziyframework.web.security.exchange;
+
+import java.security.KeyPair;
+import javax.crypto.SecretKey;
+
+/**
+ * 服务端密钥对(一代).<br />
+ * created on 2026-10
+ *
+ * @param keyId 密钥id，客户端通过{@link me.ziyframework.web.security.SecurityHttpHeaders#X_KEY_ID}指定
+ * @param keyPair 密钥对
+ * @param createdAt 创建时间(毫秒)
+ * @param expireAt 失效时间(毫秒)，当前使用中的密钥为{@link Long#MAX_VALUE}
+ * @param ticketKey 由私钥派生的会话票据密钥
+ * @author ziy
+ */
+public record ServerKey(String keyId, KeyPair keyPair, long createdAt, long expireAt, SecretKey ticketKey) {
+
+    public ServerKey(String keyId, KeyPair keyPair, long createdAt, long expireAt) {
+        this(keyId, keyPair, createdAt, expireAt, SessionTickets.deriveKey(keyId, keyPair.getPrivate()));
+    }
+
+    /**
+     * 是否已经失效.
+     */
+    public boolean isExpired(long now) {
+        return expireAt <= now;
+    }
+
+    /**
+     * 被新的密钥对替换后，在宽限期内继续有效.
+     *
+     * @param expireAt 失效时间(毫秒)
+     */
+    public ServerKey retire(long expireAt) {
+        return new ServerKey(keyId, keyPair, createdAt, Math.min(this.expireAt, expireAt), ticketKey);
+    }
+}
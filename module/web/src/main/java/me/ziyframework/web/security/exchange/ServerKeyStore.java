@@ -0,0 +1,37 @@
+package me.ziyframework.web.security.exchange;
+
+import java.util.List;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 服务端密钥对存储SPI.<br />
+ * {@link SecretExchange}从存储中加载密钥对，并通过存储协调密钥对的更换，
+ * 使多个节点以及重启前后共享相同的密钥id，客户端无需重新协商.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public interface ServerKeyStore {
+
+    /**
+     * 读取指定算法所有未失效的密钥对.
+     *
+     * @param algorithm 密钥算法
+     * @return 按创建时间升序排列，最后一个为当前密钥对
+     */
+    List<StoredServerKey> load(String algorithm);
+
+    /**
+     * 更换当前密钥对.<br />
+     * 仅当存储中的当前密钥对仍为{@code expectedKeyId}时写入{@code newKey}，
+     * 否则说明其他节点已完成更换，保持存储不变.
+     *
+     * @param algorithm 密钥算法
+     * @param expectedKeyId 调用方看到的当前密钥id，存储为空时为null
+     * @param newKey 新的密钥对
+     * @param retireAt 被替换的密钥对的失效时间(毫秒)
+     * @return 更换后(或未更换时)存储中所有未失效的密钥对，同{@link #load(String)}
+     */
+    List<StoredServerKey> rotate(
+            String algorithm, @Nullable String expectedKeyId, StoredServerKey newKey, long retireAt);
+}
@@ -0,0 +1,155 @@
+package me.ziyframework.web.security.exchange;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Longs;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.PrivateKey;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import javax.crypto.Cipher;
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.InstancePool;
+
+/**
+ * 无状态会话恢复票据.<br />
+ * 票据中携带协商出的共享密钥，使用服务端密钥对派生的票据密钥AES-GCM加密，服务端不保存任何会话状态.
+ * 票据密钥由私钥派生，共享{@link ServerKeyStore}的节点均可解开票据，且票据随密钥对一同失效.
+ * <pre>
+ * 票据格式: version(1) | keyIdLength(1) | keyId | nonce(12) | AES-GCM(expireAt(8) | secret)
+ * </pre>
+ * 票据头部(version、keyId)作为GCM的附加认证数据.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+final class SessionTickets {
+
+    private static final byte VERSION = 1;
+
+    private static final int NONCE_LENGTH = 12;
+
+    private static final int TAG_BITS = 128;
+
+    private static final int POOL_SIZE = 64;
+
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+
+    private static final byte[] KEY_LABEL = "ziy-session-ticket".getBytes(StandardCharsets.UTF_8);
+
+    private final InstancePool<Cipher> cipherPool = new InstancePool<>(POOL_SIZE);
+
+    private final SecureRandom random = new SecureRandom();
+
+    /**
+     * 由服务端私钥派生票据密钥: HMAC-SHA256(私钥, label | keyId).
+     */
+    static SecretKey deriveKey(String keyId, PrivateKey privateKey) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(privateKey.getEncoded(), "HmacSHA256"));
+            mac.update(KEY_LABEL);
+            return new SecretKeySpec(mac.doFinal(keyId.getBytes(StandardCharsets.UTF_8)), "AES");
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 签发票据.
+     *
+     * @param serverKey 协商共享密钥时使用的服务端密钥对
+     * @param secret 共享密钥
+     * @param expireAt 票据失效时间(毫秒)
+     * @return base64url编码的票据
+     */
+    String issue(ServerKey serverKey, byte[] secret, long expireAt) {
+        byte[] keyId = serverKey.keyId().getBytes(StandardCharsets.UTF_8);
+        int headerLength = 2 + keyId.length;
+        byte[] ticket = new byte[headerLength + NONCE_LENGTH + Long.BYTES + secret.length + TAG_BITS / 8];
+        ticket[0] = VERSION;
+        ticket[1] = (byte) keyId.length;
+        System.arraycopy(keyId, 0, ticket, 2, keyId.length);
+        byte[] nonce = new byte[NONCE_LENGTH];
+        random.nextBytes(nonce);
+        System.arraycopy(nonce, 0, ticket, headerLength, NONCE_LENGTH);
+        byte[] plain = new byte[Long.BYTES + secret.length];
+        System.arraycopy(Longs.toByteArray(expireAt), 0, plain, 0, Long.BYTES);
+        System.arraycopy(secret, 0, plain, Long.BYTES, secret.length);
+
+        Cipher cipher = borrow();
+        try {
+            cipher.init(Cipher.ENCRYPT_MODE, serverKey.ticketKey(), new GCMParameterSpec(TAG_BITS, nonce));
+            cipher.updateAAD(ticket, 0, headerLength);
+            cipher.doFinal(plain, 0, plain.length, ticket, headerLength + NONCE_LENGTH);
+            cipherPool.offer(cipher);
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        } finally {
+            Arrays.fill(plain, (byte) 0);
+        }
+        return BaseEncoding.base64Url().omitPadding().encode(ticket);
+    }
+
+    /**
+     * 读取票据中的服务端密钥id，格式不正确时抛出异常.
+     */
+    static String keyId(byte[] ticket) {
+        if (ticket.length < 2 + NONCE_LENGTH + Long.BYTES + TAG_BITS / 8 || ticket[0] != VERSION) {
+            throw new GlobalException("invalid session ticket");
+        }
+        int keyIdLength = ticket[1] & 0xff;
+        if (ticket.length < 2 + keyIdLength + NONCE_LENGTH + Long.BYTES + TAG_BITS / 8) {
+            throw new GlobalException("invalid session ticket");
+        }
+        return new String(ticket, 2, keyIdLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 解密票据.
+     *
+     * @param serverKey 票据中密钥id对应的服务端密钥对
+     * @param ticket 解码后的票据
+     * @param now 当前时间(毫秒)
+     * @return 共享密钥
+     */
+    byte[] open(ServerKey serverKey, byte[] ticket, long now) {
+        int headerLength = 2 + (ticket[1] & 0xff);
+        byte[] plain;
+        Cipher cipher = borrow();
+        try {
+            cipher.init(
+                    Cipher.DECRYPT_MODE,
+                    serverKey.ticketKey(),
+                    new GCMParameterSpec(TAG_BITS, ticket, headerLength, NONCE_LENGTH));
+            cipher.updateAAD(ticket, 0, headerLength);
+            int offset = headerLength + NONCE_LENGTH;
+            plain = cipher.doFinal(ticket, offset, ticket.length - offset);
+            cipherPool.offer(cipher);
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(plain);
+        if (buffer.getLong() <= now) {
+            throw new GlobalException("session ticket expired");
+        }
+        return Arrays.copyOfRange(plain, Long.BYTES, plain.length);
+    }
+
+    private Cipher borrow() {
+        Cipher cipher = cipherPool.poll();
+        if (cipher != null) {
+            return cipher;
+        }
+        try {
+            return Cipher.getInstance(TRANSFORMATION);
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+}
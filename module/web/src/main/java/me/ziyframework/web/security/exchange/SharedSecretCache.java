@@ -0,0 +1,33 @@
+package me.ziyframework.web.security.exchange;
+
+import java.util.function.Supplier;
+
+/**
+ * 共享密钥缓存.<br />
+ * 以服务端密钥id和客户端公钥(解码后的原始字节)作为key缓存密钥协商结果，避免高频接口重复进行密钥协商.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public interface SharedSecretCache {
+
+    /**
+     * 获取共享密钥，不存在时通过loader协商并缓存.
+     *
+     * @param serverKeyId 服务端密钥id
+     * @param remotePublicKey 客户端公钥(解码后的原始字节)
+     * @param loader 缓存未命中时的密钥协商
+     * @return 共享密钥
+     */
+    byte[] get(String serverKeyId, byte[] remotePublicKey, Supplier<byte[]> loader);
+
+    /**
+     * 清空缓存.
+     */
+    void invalidateAll();
+
+    /**
+     * 获取缓存统计信息.
+     */
+    SharedSecretCacheStats stats();
+}
@@ -0,0 +1,22 @@
+package me.ziyframework.web.security.exchange;
+
+/**
+ * 共享密钥缓存统计信息.<br />
+ * created on 2026-10
+ *
+ * @param hitCount 命中次数
+ * @param missCount 未命中次数
+ * @param evictionCount 淘汰次数
+ * @param size 当前缓存数量(估计值)
+ * @author ziy
+ */
+public record SharedSecretCacheStats(long hitCount, long missCount, long evictionCount, long size) {
+
+    /**
+     * 命中率，没有请求时返回1.
+     */
+    public double hitRate() {
+        long requestCount = hitCount + missCount;
+        return requestCount == 0 ? 1.0 : (double) hitCount / requestCount;
+    }
+}
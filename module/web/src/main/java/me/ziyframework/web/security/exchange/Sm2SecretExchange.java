@@ -1,11 +1,14 @@
 package me.ziyframework.web.security.exchange;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.KeyPairGenerator;
+import java.security.PublicKey;
 import javax.crypto.KeyAgreement;
 import org.bouncycastle.jce.ECNamedCurveTable;
 import org.bouncycastle.jce.spec.ECParameterSpec;
+import org.bouncycastle.jce.spec.ECPublicKeySpec;
 
 /**
  * .
@@ -15,21 +18,52 @@ import org.bouncycastle.jce.spec.ECParameterSpec;
  */
 public class Sm2SecretExchange extends SecretExchange {
 
+    private static final ECParameterSpec SM2_SPEC = ECNamedCurveTable.getParameterSpec("sm2p256v1");
+
+    /**
+     * 压缩点编码长度(0x02/0x03 + x).
+     */
+    private static final int COMPRESSED_POINT_LENGTH = 33;
+
+    /**
+     * 未压缩点编码长度(0x04 + x + y).
+     */
+    private static final int UNCOMPRESSED_POINT_LENGTH = 65;
+
     public Sm2SecretExchange(Cache<String, byte[]> cache, long seconds) {
         super(cache, seconds);
     }
 
+    public Sm2SecretExchange(SharedSecretCache cache, long seconds) {
+        super(cache, seconds);
+    }
+
+    public Sm2SecretExchange(SharedSecretCache cache, long seconds, long graceSeconds) {
+        super(cache, seconds, graceSeconds);
+    }
+
+    public Sm2SecretExchange(SharedSecretCache cache, ServerKeyStore keyStore, long seconds, long graceSeconds) {
+        super(cache, keyStore, seconds, graceSeconds);
+    }
+
     /**
      * 生成sm2p256v1曲线的密钥对生成器.
      */
     @Override
     protected KeyPairGenerator getKeyPairGenerator() throws Exception {
-        ECParameterSpec ecSpec = ECNamedCurveTable.getParameterSpec("sm2p256v1");
         KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("ECDH", "BC");
-        keyPairGenerator.initialize(ecSpec);
+        keyPairGenerator.initialize(SM2_SPEC);
         return keyPairGenerator;
     }
 
+    /**
+     * 密钥对生成器的算法为ECDH，存储中使用SM2区分其他曲线的密钥对.
+     */
+    @Override
+    protected String getKeyAlgorithm() {
+        return "SM2";
+    }
+
     /**
      * 生成ECDH的密钥工厂.
      */
@@ -45,4 +79,20 @@ public class Sm2SecretExchange extends SecretExchange {
     protected KeyAgreement getKeyAgreement() throws Exception {
         return KeyAgreement.getInstance("ECDH", "BC");
     }
+
+    /**
+     * 支持直接解析压缩/未压缩的sm2p256v1曲线点，无需ASN.1解析.
+     */
+    @Override
+    protected PublicKey decodePublicKey(byte[] remotePublicKeyBytes, KeyFactory keyFactory)
+            throws GeneralSecurityException {
+        int length = remotePublicKeyBytes.length;
+        byte prefix = length == 0 ? 0 : remotePublicKeyBytes[0];
+        if ((length == COMPRESSED_POINT_LENGTH && (prefix == 0x02 || prefix == 0x03))
+                || (length == UNCOMPRESSED_POINT_LENGTH && prefix == 0x04)) {
+            return keyFactory.generatePublic(
+                    new ECPublicKeySpec(SM2_SPEC.getCurve().decodePoint(remotePublicKeyBytes), SM2_SPEC));
+        }
+        return super.decodePublicKey(remotePublicKeyBytes, keyFactory);
+    }
 }
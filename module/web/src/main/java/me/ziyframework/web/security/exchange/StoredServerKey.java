@@ -0,0 +1,53 @@
+package me.ziyframework.web.security.exchange;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 持久化/共享的服务端密钥对.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@Getter
+@AllArgsConstructor
+public final class StoredServerKey {
+
+    /**
+     * 密钥id.
+     */
+    private final String keyId;
+
+    /**
+     * 密钥算法，区分同一存储中不同{@link SecretExchange}实现的密钥.
+     */
+    private final String algorithm;
+
+    /**
+     * X.509编码的公钥.
+     */
+    private final byte[] publicKey;
+
+    /**
+     * PKCS#8编码的私钥.
+     */
+    private final byte[] privateKey;
+
+    /**
+     * 创建时间(毫秒).
+     */
+    private final long createdAt;
+
+    /**
+     * 失效时间(毫秒)，当前使用中的密钥为{@link Long#MAX_VALUE}.
+     */
+    private final long expireAt;
+
+    /**
+     * 被新的密钥对替换后，在宽限期内继续有效.
+     */
+    public StoredServerKey retire(long retireAt) {
+        return new StoredServerKey(
+                keyId, algorithm, publicKey, privateKey, createdAt, Math.min(expireAt, retireAt));
+    }
+}
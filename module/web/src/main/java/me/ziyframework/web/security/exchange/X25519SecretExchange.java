@@ -1,10 +1,13 @@
 package me.ziyframework.web.security.exchange;
 
 import com.github.benmanes.caffeine.cache.Cache;
+import java.security.GeneralSecurityException;
 import java.security.KeyFactory;
 import java.security.KeyPairGenerator;
+import java.security.PublicKey;
 import java.security.spec.NamedParameterSpec;
 import javax.crypto.KeyAgreement;
+import org.bouncycastle.jcajce.spec.RawEncodedKeySpec;
 
 /**
  * x25519密钥交换实现.
@@ -14,10 +17,27 @@ import javax.crypto.KeyAgreement;
  */
 public class X25519SecretExchange extends SecretExchange {
 
+    /**
+     * X25519原始公钥长度(RFC 7748).
+     */
+    private static final int RAW_KEY_LENGTH = 32;
+
     public X25519SecretExchange(Cache<String, byte[]> cache, long seconds) {
         super(cache, seconds);
     }
 
+    public X25519SecretExchange(SharedSecretCache cache, long seconds) {
+        super(cache, seconds);
+    }
+
+    public X25519SecretExchange(SharedSecretCache cache, long seconds, long graceSeconds) {
+        super(cache, seconds, graceSeconds);
+    }
+
+    public X25519SecretExchange(SharedSecretCache cache, ServerKeyStore keyStore, long seconds, long graceSeconds) {
+        super(cache, keyStore, seconds, graceSeconds);
+    }
+
     /**
      * 生成密钥对生成器.
      */
@@ -43,4 +63,16 @@ public class X25519SecretExchange extends SecretExchange {
     protected KeyAgreement getKeyAgreement() throws Exception {
         return KeyAgreement.getInstance("X25519", "BC");
     }
+
+    /**
+     * 支持直接解析32字节的原始公钥，无需ASN.1解析.
+     */
+    @Override
+    protected PublicKey decodePublicKey(byte[] remotePublicKeyBytes, KeyFactory keyFactory)
+            throws GeneralSecurityException {
+        if (remotePublicKeyBytes.length == RAW_KEY_LENGTH) {
+            return keyFactory.generatePublic(new RawEncodedKeySpec(remotePublicKeyBytes));
+        }
+        return super.decodePublicKey(remotePublicKeyBytes, keyFactory);
+    }
 }
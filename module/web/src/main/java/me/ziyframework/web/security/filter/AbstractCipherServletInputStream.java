@@ -0,0 +1,200 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.jetbrains.annotations.NotNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 解密输入流的基类，同时支持阻塞读取和Servlet非阻塞读取({@link ReadListener}).<br />
+ * 只解密原始流中已经到达的数据：{@link #isReady()}在没有可读明文时从原始流读取就绪的数据并解密，
+ * 原始流暂无数据时返回false，由容器在数据到达后再次回调{@link ReadListener#onDataAvailable()}，不会阻塞线程.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+abstract class AbstractCipherServletInputStream extends ServletInputStream {
+
+    protected final ServletInputStream originalInputStream;
+
+    protected final CipherBufferPool bufferPool;
+
+    /**
+     * 已解密未读取的明文(读模式).
+     */
+    protected ByteBuffer plain;
+
+    /**
+     * 所有明文均已解密(原始流结束且校验通过).
+     */
+    protected boolean last;
+
+    /**
+     * {@link #isReady()}中出现的异常，在下一次读取时抛出.
+     */
+    private @Nullable IOException failure;
+
+    /**
+     * 解密(或解压)过程中是否出现过异常.
+     */
+    private boolean failed;
+
+    /**
+     * 已被读取的明文字节数.
+     */
+    private long readBytes;
+
+    AbstractCipherServletInputStream(ServletInputStream originalInputStream, CipherBufferPool bufferPool) {
+        this.originalInputStream = originalInputStream;
+        this.bufferPool = bufferPool;
+        this.plain = bufferPool.acquire().flip();
+    }
+
+    /**
+     * 从原始流读取并解密，直到产生明文、所有明文解密完毕，或非阻塞时原始流暂无数据.
+     *
+     * @param blocking 是否允许阻塞读取原始流
+     */
+    protected abstract void decrypt(boolean blocking) throws IOException;
+
+    /**
+     * 清空明文缓冲区用于写入至少{@code size}字节的明文，仅在明文已读完时调用.<br />
+     * 写入后需要{@link ByteBuffer#flip()}.
+     */
+    protected final ByteBuffer clearPlain(int size) {
+        if (plain.capacity() < size) {
+            bufferPool.release(plain);
+            plain = bufferPool.acquire(size);
+        }
+        return plain.clear();
+    }
+
+    /**
+     * 请求处理完毕后归还缓冲区，之后不可再读取.
+     */
+    void release() {
+        bufferPool.release(plain);
+        plain = ByteBuffer.allocate(0);
+        last = true;
+    }
+
+    /**
+     * 已被读取的明文字节数.
+     */
+    long getReadBytes() {
+        return readBytes;
+    }
+
+    /**
+     * 解密(或解压)过程中是否出现过异常.
+     */
+    boolean isFailed() {
+        return failed;
+    }
+
+    private boolean fill(boolean blocking) throws IOException {
+        IOException exception = failure;
+        if (exception != null) {
+            throw exception;
+        }
+        if (!plain.hasRemaining() && !last) {
+            try {
+                decrypt(blocking);
+            } catch (IOException e) {
+                failed = true;
+                throw e;
+            }
+        }
+        return plain.hasRemaining() || last;
+    }
+
+    /**
+     * 有可读的明文，或已经读取完毕时返回true.
+     */
+    @Override
+    public boolean isReady() {
+        try {
+            return fill(false);
+        } catch (IOException e) {
+            // 让调用方通过read获取异常
+            failure = e;
+            return true;
+        }
+    }
+
+    @Override
+    public boolean isFinished() {
+        return last && !plain.hasRemaining();
+    }
+
+    @Override
+    public void setReadListener(ReadListener listener) {
+        originalInputStream.setReadListener(new DecryptReadListener(listener));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill(true) || !plain.hasRemaining()) {
+            return -1;
+        }
+        readBytes++;
+        return plain.get() & 0xff;
+    }
+
+    @Override
+    public int read(@NotNull byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill(true) || !plain.hasRemaining()) {
+            return -1;
+        }
+        int count = Math.min(len, plain.remaining());
+        plain.get(b, off, count);
+        readBytes += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return plain.remaining();
+    }
+
+    @Override
+    public void close() throws IOException {
+        originalInputStream.close();
+    }
+
+    /**
+     * 原始流读取完毕时，解密后的最后一部分明文可能还未被读取，先通知读取再通知完成.
+     */
+    private final class DecryptReadListener implements ReadListener {
+
+        private final ReadListener delegate;
+
+        DecryptReadListener(ReadListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onDataAvailable() throws IOException {
+            delegate.onDataAvailable();
+        }
+
+        @Override
+        public void onAllDataRead() throws IOException {
+            if (!isFinished()) {
+                delegate.onDataAvailable();
+            }
+            delegate.onAllDataRead();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            delegate.onError(t);
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 加密输出流的基类，同时支持阻塞写出和Servlet非阻塞写出({@link WriteListener}).<br />
+ * 每次写入产生的密文合并为一次原始流写出：非阻塞模式下原始流在{@link #isReady()}为false后不允许继续写出.
+ * 原始流未就绪时密文暂存，在容器回调{@link WriteListener#onWritePossible()}时先写出暂存的密文再通知调用方.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+abstract class AbstractCipherServletOutputStream extends ServletOutputStream {
+
+    protected final ServletOutputStream originalOutputStream;
+
+    protected final CipherBufferPool bufferPool;
+
+    /**
+     * 等待写出的密文(写模式).
+     */
+    private ByteBuffer pending;
+
+    private boolean nonBlocking;
+
+    private boolean finished;
+
+    private boolean closeRequested;
+
+    /**
+     * 已写出到原始流的密文字节数.
+     */
+    private long writtenBytes;
+
+    AbstractCipherServletOutputStream(ServletOutputStream originalOutputStream, CipherBufferPool bufferPool) {
+        this.originalOutputStream = originalOutputStream;
+        this.bufferPool = bufferPool;
+        this.pending = bufferPool.acquire();
+    }
+
+    /**
+     * 加密剩余的明文，通过{@link #append}写入最后的密文.
+     */
+    protected abstract void finishCipher() throws IOException;
+
+    /**
+     * 将已缓冲的明文尽可能加密，由{@link #flush()}调用.
+     */
+    protected void flushCipher() throws IOException {}
+
+    /**
+     * 追加待写出的密文.
+     */
+    protected final void append(byte[] b, int off, int len) {
+        reserve(len).put(b, off, len);
+    }
+
+    /**
+     * 为追加密文预留空间，返回可直接写入的缓冲区(写模式).
+     */
+    protected final ByteBuffer reserve(int len) {
+        if (pending.remaining() < len) {
+            ByteBuffer expanded = bufferPool.acquire(Math.max(pending.position() + len, pending.capacity() * 2));
+            expanded.put(pending.flip());
+            bufferPool.release(pending);
+            pending = expanded;
+        }
+        return pending;
+    }
+
+    /**
+     * 直接写出密文，已有暂存的密文或原始流未就绪时追加到暂存的密文之后.
+     */
+    protected final void emit(byte[] b, int off, int len) throws IOException {
+        if (pending.position() == 0 && (!nonBlocking || originalOutputStream.isReady())) {
+            originalOutputStream.write(b, off, len);
+            writtenBytes += len;
+        } else {
+            append(b, off, len);
+        }
+    }
+
+    /**
+     * 写出暂存的密文，非阻塞模式下原始流未就绪时继续暂存.
+     */
+    protected final void drain() throws IOException {
+        if (pending.position() == 0 || (nonBlocking && !originalOutputStream.isReady())) {
+            return;
+        }
+        originalOutputStream.write(pending.array(), pending.arrayOffset(), pending.position());
+        writtenBytes += pending.position();
+        pending.clear();
+    }
+
+    /**
+     * 已写出到原始流的密文字节数.
+     */
+    long getWrittenBytes() {
+        return writtenBytes;
+    }
+
+    /**
+     * 请求处理完毕后归还缓冲区.
+     */
+    void release() {
+        if (pending.position() == 0) {
+            bufferPool.release(pending);
+            pending = ByteBuffer.allocate(0);
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            flushCipher();
+        }
+        drain();
+        if (pending.position() == 0 && (!nonBlocking || originalOutputStream.isReady())) {
+            originalOutputStream.flush();
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        if (pending.position() == 0) {
+            originalOutputStream.close();
+        } else {
+            closeRequested = true;
+        }
+    }
+
+    /**
+     * 完成加密并写出最后的密文，不关闭原始输出流.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        finishCipher();
+        drain();
+    }
+
+    /**
+     * 没有暂存的密文且原始流就绪时才允许继续写入.
+     */
+    @Override
+    public boolean isReady() {
+        return pending.position() == 0 && originalOutputStream.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {
+        nonBlocking = true;
+        originalOutputStream.setWriteListener(new EncryptWriteListener(listener));
+    }
+
+    private final class EncryptWriteListener implements WriteListener {
+
+        private final WriteListener delegate;
+
+        EncryptWriteListener(WriteListener delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onWritePossible() throws IOException {
+            drain();
+            if (pending.position() > 0) {
+                return;
+            }
+            if (closeRequested) {
+                closeRequested = false;
+                originalOutputStream.close();
+                return;
+            }
+            delegate.onWritePossible();
+        }
+
+        @Override
+        public void onError(Throwable t) {
+            delegate.onError(t);
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.ServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+
+/**
+ * 缓冲完整响应体后一次性加密的Servlet输出流.<br />
+ * 响应体不超过缓冲区时在请求结束时原地{@link Cipher#doFinal}，并以准确的Content-Length写出，避免chunked编码；
+ * 超过缓冲区时自动退化为流式加密.缓冲期间{@link #flush()}不提交响应.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+public final class BufferedCipherServletOutputStream extends AbstractCipherServletOutputStream {
+
+    /**
+     * 加密后密文相对明文的最大增长(分组填充或认证标签).
+     */
+    static final int MAX_CIPHER_OVERHEAD = 32;
+
+    private final ServletResponse response;
+
+    private final Cipher cipher;
+
+    private final CipherBufferPool bodyPool;
+
+    /**
+     * 缓冲的明文，加密时原地写入密文.
+     */
+    private ByteBuffer body;
+
+    /**
+     * 可以缓冲的最大明文长度.
+     */
+    private final int limit;
+
+    private boolean buffering = true;
+
+    private final byte[] single = new byte[1];
+
+    BufferedCipherServletOutputStream(
+            ServletOutputStream originalOutputStream,
+            ServletResponse response,
+            Cipher cipher,
+            CipherBufferPool bufferPool,
+            CipherBufferPool bodyPool) {
+        super(originalOutputStream, bufferPool);
+        this.response = response;
+        this.cipher = cipher;
+        this.bodyPool = bodyPool;
+        this.body = bodyPool.acquire();
+        this.limit = body.capacity() - MAX_CIPHER_OVERHEAD;
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        single[0] = (byte) b;
+        write(single, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        if (buffering) {
+            if (body.position() + len <= limit) {
+                body.put(b, off, len);
+                return;
+            }
+            // 超过缓冲区，将已缓冲的明文加密后退化为流式加密
+            buffering = false;
+            update(body.array(), 0, body.position());
+            bodyPool.release(body);
+            body = ByteBuffer.allocate(0);
+        }
+        update(b, off, len);
+        drain();
+    }
+
+    /**
+     * 缓冲期间不提交响应，否则无法再设置Content-Length.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!buffering) {
+            super.flush();
+        }
+    }
+
+    @Override
+    protected void finishCipher() throws IOException {
+        try {
+            if (buffering) {
+                int length = body.position();
+                int outputSize = cipher.getOutputSize(length);
+                if (outputSize > body.capacity()) {
+                    ByteBuffer expanded = ByteBuffer.allocate(outputSize);
+                    expanded.put(body.flip());
+                    bodyPool.release(body);
+                    body = expanded;
+                }
+                // Cipher的doFinal是copy-safe的，明文和密文可以使用同一个数组
+                byte[] array = body.array();
+                int cipherLength = cipher.doFinal(array, 0, length, array, 0);
+                response.setContentLength(cipherLength);
+                emit(array, 0, cipherLength);
+            } else {
+                ByteBuffer output = reserve(cipher.getOutputSize(0));
+                cipher.doFinal(ByteBuffer.allocate(0), output);
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+
+    @Override
+    void release() {
+        bodyPool.release(body);
+        body = ByteBuffer.allocate(0);
+        super.release();
+    }
+
+    private void update(byte[] b, int off, int len) throws IOException {
+        try {
+            ByteBuffer output = reserve(cipher.getOutputSize(len));
+            int offset = output.arrayOffset() + output.position();
+            output.position(output.position() + cipher.update(b, off, len, output.array(), offset));
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package me.ziyframework.web.security.filter;
+
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.nio.ByteBuffer;
+import me.ziyframework.web.security.InstancePool;
+
+/**
+ * 加解密流使用的定长缓冲区复用池.<br />
+ * 加解密流在请求结束时归还缓冲区，加密接口每个请求不再分配输入、明文和密文缓冲区.
+ * 缓冲区为堆内缓冲区：Servlet流的读写均基于byte[]，使用堆外缓冲区反而需要额外复制一次.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class CipherBufferPool {
+
+    /**
+     * 默认缓冲区大小，与Tomcat默认的socket读写缓冲区(socket.appReadBufSize/appWriteBufSize)一致.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    /**
+     * 默认最多缓存的空闲缓冲区数量.
+     */
+    public static final int DEFAULT_POOL_SIZE = 256;
+
+    private final int bufferSize;
+
+    private final InstancePool<ByteBuffer> pool;
+
+    public CipherBufferPool() {
+        this(DEFAULT_BUFFER_SIZE, DEFAULT_POOL_SIZE);
+    }
+
+    /**
+     * 创建缓冲区池.
+     *
+     * @param bufferSize 缓冲区大小(字节)
+     * @param poolSize 最多缓存的空闲缓冲区数量，小于等于0时不复用
+     */
+    public CipherBufferPool(int bufferSize, int poolSize) {
+        Preconditions.checkArgument(
+                bufferSize > 0, "bufferSize must be positive", SafeArg.of("bufferSize", bufferSize));
+        this.bufferSize = bufferSize;
+        this.pool = new InstancePool<>(poolSize);
+    }
+
+    /**
+     * 借出一个已清空的缓冲区.
+     */
+    public ByteBuffer acquire() {
+        ByteBuffer buffer = pool.poll();
+        if (buffer == null) {
+            return ByteBuffer.allocate(bufferSize);
+        }
+        return buffer.clear();
+    }
+
+    /**
+     * 借出一个至少能容纳{@code size}字节的缓冲区，超过缓冲区大小时直接分配且不会被复用.
+     */
+    public ByteBuffer acquire(int size) {
+        return size <= bufferSize ? acquire() : ByteBuffer.allocate(size);
+    }
+
+    /**
+     * 归还缓冲区，大小不同的缓冲区直接丢弃.
+     */
+    public void release(ByteBuffer buffer) {
+        if (buffer.capacity() == bufferSize && buffer.hasArray()) {
+            pool.offer(buffer);
+        }
+    }
+
+    /**
+     * 缓冲区大小.
+     */
+    public int getBufferSize() {
+        return bufferSize;
+    }
+
+    /**
+     * 缓冲区复用命中次数.
+     */
+    public long getHits() {
+        return pool.getHits();
+    }
+
+    /**
+     * 缓冲区复用未命中(新建)次数.
+     */
+    public long getMisses() {
+        return pool.getMisses();
+    }
+}
@@ -0,0 +1,84 @@
+package me.ziyframework.web.security.filter;
+
+import java.nio.charset.StandardCharsets;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.common.result.ResultCode;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
+
+/**
+ * 分帧加密的记录格式.<br />
+ * 请求体/响应体被切分为固定大小的帧，每帧单独使用AEAD加密，接收方可以逐帧解密和校验，内存占用与body大小无关.
+ * <pre>
+ * 帧: header(4) | AEAD(明文)
+ * header: final(1bit) | 密文长度(31bit)，大端序，同时作为AEAD的附加认证数据
+ * 密钥: HKDF-SHA256(IKM=方向密钥, salt=客户端nonce, info="ziy-http-frame")，32字节
+ * nonce: 4字节0 | 帧序号(大端序long)
+ * </pre>
+ * 请求方向的方向密钥为共享密钥，每个请求由客户端nonce派生独立的密钥；响应方向的方向密钥为{@link CipherKeys#responseKey}，
+ * 混入了服务端盐，重放的请求也不会使响应的帧在同一个密钥下使用相同的nonce.
+ * 最后一帧必须带有final标记(可以没有明文)，在final帧之前结束的body被视为截断.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+final class CipherFrames {
+
+    /**
+     * 帧头长度.
+     */
+    static final int HEADER_LENGTH = 4;
+
+    /**
+     * 最后一帧的标记位.
+     */
+    static final int FINAL_FLAG = 0x80000000;
+
+    /**
+     * 客户端nonce的最小长度.
+     */
+    static final int MIN_CLIENT_NONCE_LENGTH = AeadCipherFactory.NONCE_LENGTH;
+
+    private static final int COUNTER_OFFSET = AeadCipherFactory.NONCE_LENGTH - Long.BYTES;
+
+    private static final byte[] KDF_INFO = "ziy-http-frame".getBytes(StandardCharsets.US_ASCII);
+
+    private CipherFrames() {}
+
+    /**
+     * 由方向密钥和客户端nonce派生本次请求/响应的分帧密钥.
+     *
+     * @param secret 请求方向为共享密钥，响应方向为响应密钥
+     * @param clientNonce 客户端nonce，至少{@value #MIN_CLIENT_NONCE_LENGTH}字节
+     */
+    static byte[] frameKey(byte[] secret, byte[] clientNonce) {
+        if (clientNonce.length < MIN_CLIENT_NONCE_LENGTH) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "分帧加解密的nonce长度不足");
+        }
+        return CipherKeys.derive(secret, clientNonce, KDF_INFO);
+    }
+
+    /**
+     * 计算第{@code counter}帧的nonce.
+     *
+     * @param counter 帧序号，从0开始
+     */
+    static byte[] nonce(long counter) {
+        byte[] nonce = new byte[AeadCipherFactory.NONCE_LENGTH];
+        for (int i = 0; i < Long.BYTES; i++) {
+            nonce[COUNTER_OFFSET + i] = (byte) (counter >>> (8 * (Long.BYTES - 1 - i)));
+        }
+        return nonce;
+    }
+
+    static void writeHeader(byte[] buffer, int offset, boolean last, int length) {
+        int header = last ? length | FINAL_FLAG : length;
+        buffer[offset] = (byte) (header >>> 24);
+        buffer[offset + 1] = (byte) (header >>> 16);
+        buffer[offset + 2] = (byte) (header >>> 8);
+        buffer[offset + 3] = (byte) header;
+    }
+
+    static int readHeader(byte[] buffer) {
+        return ((buffer[0] & 0xff) << 24) | ((buffer[1] & 0xff) << 16) | ((buffer[2] & 0xff) << 8) | (buffer[3] & 0xff);
+    }
+}
@@ -0,0 +1,79 @@
+package me.ziyframework.web.security.filter;
+
+import com.google.common.primitives.Bytes;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import javax.crypto.KDF;
+import javax.crypto.spec.HKDFParameterSpec;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.SecurityHttpHeaders;
+
+/**
+ * 由共享密钥派生单次请求/响应使用的密钥.<br />
+ * 共享密钥通过缓存和会话票据在多个请求间复用，客户端nonce只由客户端决定：重放的请求或重复使用nonce的客户端
+ * 会使服务端在相同的(密钥, nonce)下加密新的响应，对AEAD而言这会泄露明文的异或和认证密钥.
+ * 因此响应方向的密钥额外混入服务端为每个响应生成的随机盐，
+ * 盐通过{@link SecurityHttpHeaders#X_RESPONSE_SALT}返回给客户端.
+ * <pre>
+ * 响应密钥: HKDF-SHA256(IKM=共享密钥, salt=服务端盐 | 客户端nonce, info="ziy-http-response")，32字节
+ * </pre>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+final class CipherKeys {
+
+    /**
+     * 服务端盐的长度.
+     */
+    static final int SALT_LENGTH = 16;
+
+    /**
+     * 派生密钥的长度.
+     */
+    static final int KEY_LENGTH = 32;
+
+    private static final String KDF_ALGORITHM = "HKDF-SHA256";
+
+    private static final byte[] RESPONSE_INFO = "ziy-http-response".getBytes(StandardCharsets.US_ASCII);
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private CipherKeys() {}
+
+    /**
+     * 生成响应的服务端盐.
+     */
+    static byte[] newSalt() {
+        byte[] salt = new byte[SALT_LENGTH];
+        RANDOM.nextBytes(salt);
+        return salt;
+    }
+
+    /**
+     * 派生本次响应的密钥.
+     *
+     * @param secret 共享密钥
+     * @param clientNonce 客户端nonce
+     * @param serverSalt 服务端盐
+     */
+    static byte[] responseKey(byte[] secret, byte[] clientNonce, byte[] serverSalt) {
+        return derive(secret, Bytes.concat(serverSalt, clientNonce), RESPONSE_INFO);
+    }
+
+    /**
+     * HKDF-SHA256派生{@value #KEY_LENGTH}字节的密钥.
+     */
+    static byte[] derive(byte[] secret, byte[] salt, byte[] info) {
+        try {
+            return KDF.getInstance(KDF_ALGORITHM)
+                    .deriveData(HKDFParameterSpec.ofExtract()
+                            .addIKM(secret)
+                            .addSalt(salt)
+                            .thenExpand(info, KEY_LENGTH));
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+}
@@ -1,56 +1,82 @@
 package me.ziyframework.web.security.filter;
 
-import jakarta.servlet.ReadListener;
 import jakarta.servlet.ServletInputStream;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherInputStream;
-import org.jetbrains.annotations.NotNull;
+import javax.crypto.ShortBufferException;
 
 /**
  * 支持接口解密的Servlet输入流.<br />
+ * 使用复用的缓冲区和{@link Cipher#update(ByteBuffer, ByteBuffer)}解密已经到达的数据，
+ * 支持非阻塞读取，见{@link AbstractCipherServletInputStream}.<br />
  * created on 2025-04
  * @author ziy
  */
-@SuppressWarnings("checkstyle:ParameterName")
-public final class CipherServletInputStream extends ServletInputStream {
+public final class CipherServletInputStream extends AbstractCipherServletInputStream {
 
-    private final CipherInputStream cipherInputStream;
+    private final Cipher cipher;
 
-    private final ServletInputStream originalInputStream;
+    /**
+     * 从原始流读取的密文.
+     */
+    private final ByteBuffer input;
 
-    CipherServletInputStream(ServletInputStream originalInputStream, Cipher cipher) {
-        this.originalInputStream = originalInputStream;
-        this.cipherInputStream = new CipherInputStream(originalInputStream, cipher);
-    }
+    /**
+     * 每次从原始流读取的最大长度，保证解密结果可以放入明文缓冲区.
+     */
+    private final int readLength;
 
-    @Override
-    public boolean isFinished() {
-        return originalInputStream.isFinished();
-    }
-
-    @Override
-    public boolean isReady() {
-        return originalInputStream.isReady();
+    CipherServletInputStream(ServletInputStream originalInputStream, Cipher cipher, CipherBufferPool bufferPool) {
+        super(originalInputStream, bufferPool);
+        this.cipher = cipher;
+        this.input = bufferPool.acquire();
+        int blockSize = Math.max(cipher.getBlockSize(), 1);
+        this.readLength = Math.max(blockSize, input.capacity() - blockSize);
     }
 
     @Override
-    public void setReadListener(ReadListener listener) {
-        originalInputStream.setReadListener(listener);
+    protected void decrypt(boolean blocking) throws IOException {
+        try {
+            // 分组密码在凑满一个分组前不会产生明文，需要继续读取
+            while (!plain.hasRemaining() && !last) {
+                if (!blocking && !originalInputStream.isReady()) {
+                    return;
+                }
+                int count = originalInputStream.read(input.array(), 0, readLength);
+                if (count < 0) {
+                    // AEAD解密时所有明文都在doFinal时产生，可能超过缓冲区大小
+                    input.clear().limit(0);
+                    cipher.doFinal(input, clearPlain(cipher.getOutputSize(0)));
+                    plain.flip();
+                    last = true;
+                } else if (count > 0) {
+                    input.clear().limit(count);
+                    update();
+                }
+            }
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
     }
 
-    @Override
-    public int read() throws IOException {
-        return cipherInputStream.read();
-    }
-
-    @Override
-    public int read(@NotNull byte[] b, int off, int len) throws IOException {
-        return cipherInputStream.read(b, off, len);
+    /**
+     * 解密读取的密文.<br />
+     * 不按{@link Cipher#getOutputSize(int)}预留空间：AEAD解密在doFinal前不输出明文，但getOutputSize包含所有已缓冲的密文.
+     */
+    private void update() throws GeneralSecurityException {
+        try {
+            cipher.update(input, clearPlain(0));
+        } catch (ShortBufferException e) {
+            cipher.update(input, clearPlain(cipher.getOutputSize(input.remaining())));
+        }
+        plain.flip();
     }
 
     @Override
-    public void close() throws IOException {
-        this.cipherInputStream.close();
+    void release() {
+        bufferPool.release(input);
+        super.release();
     }
 }
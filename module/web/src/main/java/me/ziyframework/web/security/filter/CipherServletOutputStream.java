@@ -1,55 +1,58 @@
 package me.ziyframework.web.security.filter;
 
 import jakarta.servlet.ServletOutputStream;
-import jakarta.servlet.WriteListener;
 import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
 import javax.crypto.Cipher;
-import javax.crypto.CipherOutputStream;
 
 /**
  * 支持响应体加密的Servlet输出流.<br />
+ * 直接使用{@link Cipher#update}将密文写入复用的缓冲区，每次写入最多产生一次原始流写出，支持非阻塞写出，
+ * 见{@link AbstractCipherServletOutputStream}.<br />
  * created on 2025-04
  * @author ziy
  */
 @SuppressWarnings("checkstyle:ParameterName")
-public final class CipherServletOutputStream extends ServletOutputStream {
+public final class CipherServletOutputStream extends AbstractCipherServletOutputStream {
 
-    private final CipherOutputStream cipherOutputStream;
+    private final Cipher cipher;
 
-    private final ServletOutputStream originalOutputStream;
+    private final byte[] single = new byte[1];
 
-    CipherServletOutputStream(ServletOutputStream originalOutputStream, Cipher cipher) {
-        this.originalOutputStream = originalOutputStream;
-        this.cipherOutputStream = new CipherOutputStream(originalOutputStream, cipher);
+    CipherServletOutputStream(ServletOutputStream originalOutputStream, Cipher cipher, CipherBufferPool bufferPool) {
+        super(originalOutputStream, bufferPool);
+        this.cipher = cipher;
     }
 
     @Override
     public void write(int b) throws IOException {
-        cipherOutputStream.write(b);
+        single[0] = (byte) b;
+        write(single, 0, 1);
     }
 
     @Override
     public void write(byte[] b, int off, int len) throws IOException {
-        cipherOutputStream.write(b, off, len);
+        try {
+            ByteBuffer output = reserve(cipher.getOutputSize(len));
+            int offset = output.arrayOffset() + output.position();
+            output.position(output.position() + cipher.update(b, off, len, output.array(), offset));
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        drain();
     }
 
+    /**
+     * 写出最后的密文块，完成后Cipher恢复到初始化后的状态，可以安全归还.
+     */
     @Override
-    public void flush() throws IOException {
-        cipherOutputStream.flush();
-    }
-
-    @Override
-    public void close() throws IOException {
-        cipherOutputStream.close();
-    }
-
-    @Override
-    public boolean isReady() {
-        return originalOutputStream.isReady();
-    }
-
-    @Override
-    public void setWriteListener(WriteListener listener) {
-        originalOutputStream.setWriteListener(listener);
+    protected void finishCipher() throws IOException {
+        try {
+            ByteBuffer output = reserve(cipher.getOutputSize(0));
+            cipher.doFinal(ByteBuffer.allocate(0), output);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
     }
 }
@@ -0,0 +1,213 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import jakarta.servlet.WriteListener;
+import jakarta.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import me.ziyframework.web.security.SecurityHttpHeaders;
+import me.ziyframework.web.security.compress.CompressCodec;
+import org.jetbrains.annotations.NotNull;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 在加密前压缩响应体的Servlet输出流.<br />
+ * 先缓冲不超过阈值的明文：响应体在阈值内结束时原样写出(不压缩，也不返回{@link SecurityHttpHeaders#X_COMPRESS})，
+ * 超过阈值后在写出任何数据前设置响应头再开始压缩.压缩后的数据写入加密流，非阻塞写出由加密流暂存，
+ * 见{@link AbstractCipherServletOutputStream}.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+final class CompressingServletOutputStream extends ServletOutputStream {
+
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private final AbstractCipherServletOutputStream target;
+
+    private final HttpServletResponse response;
+
+    private final CompressCodec codec;
+
+    private final CipherBufferPool bufferPool;
+
+    /**
+     * 决定是否压缩前缓冲的明文(写模式)，容量即阈值.
+     */
+    private ByteBuffer head;
+
+    /**
+     * 压缩输出缓冲区.
+     */
+    private ByteBuffer output;
+
+    private final CRC32 crc = new CRC32();
+
+    private @Nullable Deflater deflater;
+
+    private boolean decided;
+
+    private boolean finished;
+
+    CompressingServletOutputStream(
+            AbstractCipherServletOutputStream target,
+            HttpServletResponse response,
+            CompressCodec codec,
+            int threshold,
+            CipherBufferPool bufferPool) {
+        this.target = target;
+        this.response = response;
+        this.codec = codec;
+        this.bufferPool = bufferPool;
+        this.head = bufferPool.acquire(threshold).limit(threshold);
+        this.output = bufferPool.acquire();
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        write(new byte[] {(byte) b}, 0, 1);
+    }
+
+    @Override
+    public void write(@NotNull byte[] b, int off, int len) throws IOException {
+        if (!decided) {
+            if (len < head.remaining()) {
+                head.put(b, off, len);
+                return;
+            }
+            decide(true);
+        }
+        Deflater current = deflater;
+        if (current == null) {
+            target.write(b, off, len);
+        } else {
+            deflate(current, b, off, len);
+        }
+    }
+
+    /**
+     * 决定是否压缩，并写出已缓冲的明文.
+     */
+    private void decide(boolean compress) throws IOException {
+        decided = true;
+        if (compress) {
+            // 尚未写出任何数据，响应未提交
+            response.setHeader(SecurityHttpHeaders.X_COMPRESS, codec.getName());
+            deflater = codec.borrowDeflater();
+            if (codec.isGzip()) {
+                target.write(GZIP_HEADER, 0, GZIP_HEADER.length);
+            }
+        }
+        if (head.position() > 0) {
+            write(head.array(), head.arrayOffset(), head.position());
+        }
+        bufferPool.release(head);
+        head = ByteBuffer.allocate(0);
+    }
+
+    private void deflate(Deflater current, byte[] b, int off, int len) throws IOException {
+        if (codec.isGzip()) {
+            crc.update(b, off, len);
+        }
+        current.setInput(b, off, len);
+        while (!current.needsInput()) {
+            writeDeflated(current, Deflater.NO_FLUSH);
+        }
+    }
+
+    /**
+     * 压缩一次并写出压缩后的数据.
+     *
+     * @return 压缩输出缓冲区是否被填满(可能还有待输出的数据)
+     */
+    private boolean writeDeflated(Deflater current, int flush) throws IOException {
+        int count = current.deflate(output.array(), output.arrayOffset(), output.capacity(), flush);
+        if (count > 0) {
+            target.write(output.array(), output.arrayOffset(), count);
+        }
+        return count == output.capacity();
+    }
+
+    /**
+     * 已压缩的数据同步刷出(SYNC_FLUSH)，客户端可以立即解压已写出的部分；未决定是否压缩时不再压缩.
+     */
+    @Override
+    public void flush() throws IOException {
+        if (!finished) {
+            if (!decided) {
+                decide(false);
+            }
+            Deflater current = deflater;
+            if (current != null) {
+                while (writeDeflated(current, Deflater.SYNC_FLUSH)) {
+                    // 输出缓冲区填满时继续刷出
+                }
+            }
+        }
+        target.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        finish();
+        target.close();
+    }
+
+    /**
+     * 写出剩余的压缩数据和gzip尾部，不完成加密.
+     */
+    void finish() throws IOException {
+        if (finished) {
+            return;
+        }
+        if (!decided) {
+            // 响应体小于阈值，不压缩
+            decide(false);
+        }
+        finished = true;
+        Deflater current = deflater;
+        if (current == null) {
+            return;
+        }
+        current.finish();
+        while (!current.finished()) {
+            writeDeflated(current, Deflater.NO_FLUSH);
+        }
+        if (codec.isGzip()) {
+            // gzip尾部: CRC32(4) | 明文长度mod 2^32(4)，小端序
+            byte[] trailer = new byte[8];
+            ByteBuffer.wrap(trailer)
+                    .order(ByteOrder.LITTLE_ENDIAN)
+                    .putInt((int) crc.getValue())
+                    .putInt((int) current.getBytesRead());
+            target.write(trailer, 0, trailer.length);
+        }
+    }
+
+    /**
+     * 请求处理完毕后归还Deflater和缓冲区.
+     */
+    void release() {
+        Deflater current = deflater;
+        if (current != null) {
+            deflater = null;
+            codec.release(current);
+        }
+        bufferPool.release(output);
+        output = ByteBuffer.allocate(0);
+    }
+
+    @Override
+    public boolean isReady() {
+        return target.isReady();
+    }
+
+    @Override
+    public void setWriteListener(WriteListener listener) {
+        target.setWriteListener(listener);
+    }
+}
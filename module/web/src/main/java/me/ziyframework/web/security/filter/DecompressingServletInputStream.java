@@ -0,0 +1,189 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import me.ziyframework.web.security.compress.CompressCodec;
+
+/**
+ * 解密后解压请求体的Servlet输入流.<br />
+ * 原始流为解密流，只解压已经解密出的数据，同样支持非阻塞读取，见{@link AbstractCipherServletInputStream}.
+ * gzip格式只支持没有可选字段(FEXTRA/FNAME/FCOMMENT/FHCRC)的头部，并校验尾部的CRC32和长度.
+ * 解压后的长度超过上限时读取失败，请求以400结束.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+final class DecompressingServletInputStream extends AbstractCipherServletInputStream {
+
+    private static final int GZIP_HEADER_LENGTH = 10;
+
+    private static final int GZIP_TRAILER_LENGTH = 8;
+
+    private static final int GZIP_FTEXT = 1;
+
+    private static final int HEADER = 0;
+
+    private static final int BODY = 1;
+
+    private static final int TRAILER = 2;
+
+    private final CompressCodec codec;
+
+    private final Inflater inflater;
+
+    /**
+     * 解压后的最大长度(字节).
+     */
+    private final long maxInflatedSize;
+
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * 从解密流读取的压缩数据.
+     */
+    private ByteBuffer input;
+
+    /**
+     * gzip头部或尾部.
+     */
+    private final byte[] wrapper = new byte[GZIP_HEADER_LENGTH];
+
+    private int wrapperRead;
+
+    private int stage;
+
+    /**
+     * 最近一次交给Inflater的数据在{@link #input}中的结束位置.
+     */
+    private int inputEnd;
+
+    DecompressingServletInputStream(
+            AbstractCipherServletInputStream originalInputStream,
+            CompressCodec codec,
+            long maxInflatedSize,
+            CipherBufferPool bufferPool) {
+        super(originalInputStream, bufferPool);
+        this.codec = codec;
+        this.maxInflatedSize = maxInflatedSize;
+        this.inflater = codec.borrowInflater();
+        this.input = bufferPool.acquire();
+        this.stage = codec.isGzip() ? HEADER : BODY;
+    }
+
+    @Override
+    protected void decrypt(boolean blocking) throws IOException {
+        while (!plain.hasRemaining() && !last) {
+            if (stage == BODY && !inflater.needsInput()) {
+                inflate();
+                continue;
+            }
+            if (!blocking && !originalInputStream.isReady()) {
+                return;
+            }
+            int count = originalInputStream.read(input.array(), input.arrayOffset(), input.capacity());
+            if (count < 0) {
+                throw new EOFException("truncated compressed body");
+            }
+            consume(input.arrayOffset(), count);
+        }
+    }
+
+    /**
+     * 按当前阶段处理从解密流读取的数据.
+     */
+    private void consume(int offset, int length) throws IOException {
+        byte[] array = input.array();
+        int off = offset;
+        int len = length;
+        if (stage == HEADER) {
+            int count = Math.min(len, GZIP_HEADER_LENGTH - wrapperRead);
+            System.arraycopy(array, off, wrapper, wrapperRead, count);
+            wrapperRead += count;
+            off += count;
+            len -= count;
+            if (wrapperRead < GZIP_HEADER_LENGTH) {
+                return;
+            }
+            checkGzipHeader();
+            wrapperRead = 0;
+            stage = BODY;
+        }
+        if (stage == BODY) {
+            inflater.setInput(array, off, len);
+            inputEnd = off + len;
+        } else if (stage == TRAILER) {
+            readTrailer(array, off, len);
+        }
+    }
+
+    private void inflate() throws IOException {
+        ByteBuffer output = clearPlain(bufferPool.getBufferSize());
+        int count;
+        try {
+            count = inflater.inflate(output.array(), output.arrayOffset(), output.capacity());
+        } catch (DataFormatException e) {
+            throw new IOException("invalid compressed body", e);
+        }
+        if (inflater.getBytesWritten() > maxInflatedSize) {
+            throw new IOException("inflated body too large");
+        }
+        if (codec.isGzip()) {
+            crc.update(output.array(), output.arrayOffset(), count);
+        }
+        output.position(count).flip();
+        if (count == 0 && inflater.needsDictionary() && !codec.setDictionary(inflater)) {
+            throw new IOException("compress dictionary required");
+        }
+        if (!inflater.finished()) {
+            return;
+        }
+        if (codec.isGzip()) {
+            // 压缩数据之后剩余的字节属于gzip尾部
+            stage = TRAILER;
+            int remaining = inflater.getRemaining();
+            readTrailer(input.array(), inputEnd - remaining, remaining);
+        } else {
+            stage = TRAILER;
+            last = true;
+        }
+    }
+
+    private void readTrailer(byte[] array, int off, int len) throws IOException {
+        int count = Math.min(len, GZIP_TRAILER_LENGTH - wrapperRead);
+        System.arraycopy(array, off, wrapper, wrapperRead, count);
+        wrapperRead += count;
+        if (wrapperRead < GZIP_TRAILER_LENGTH) {
+            return;
+        }
+        ByteBuffer trailer = ByteBuffer.wrap(wrapper, 0, GZIP_TRAILER_LENGTH).order(ByteOrder.LITTLE_ENDIAN);
+        if (trailer.getInt() != (int) crc.getValue() || trailer.getInt() != (int) inflater.getBytesWritten()) {
+            throw new IOException("corrupt gzip trailer");
+        }
+        last = true;
+    }
+
+    private void checkGzipHeader() throws IOException {
+        if (wrapper[0] != 0x1f || wrapper[1] != (byte) 0x8b || wrapper[2] != 8) {
+            throw new IOException("not in gzip format");
+        }
+        if ((wrapper[3] & ~GZIP_FTEXT) != 0) {
+            throw new IOException("unsupported gzip header flags");
+        }
+    }
+
+    @Override
+    void release() {
+        if (input.capacity() > 0) {
+            codec.release(inflater);
+            bufferPool.release(input);
+            input = ByteBuffer.allocate(0);
+        }
+        super.release();
+    }
+}
@@ -0,0 +1,133 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import me.ziyframework.web.security.cipher.HttpCipherFactory;
+
+/**
+ * 分帧解密请求体的Servlet输入流.<br />
+ * 每次读取并校验一帧，内存占用不超过一帧，被篡改或截断的请求体在读取到对应帧时即报错.格式见{@link CipherFrames}.
+ * 帧头和密文可以分多次到达，支持非阻塞读取，见{@link AbstractCipherServletInputStream}.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class FramedCipherServletInputStream extends AbstractCipherServletInputStream {
+
+    private final HttpCipherFactory httpCipherFactory;
+
+    /**
+     * 本次请求的分帧密钥.
+     */
+    private final byte[] frameKey;
+
+    /**
+     * 单帧密文的最大长度.
+     */
+    private final int maxFrameLength;
+
+    private final byte[] header = new byte[CipherFrames.HEADER_LENGTH];
+
+    /**
+     * 当前帧的密文.
+     */
+    private final ByteBuffer frame;
+
+    /**
+     * 当前帧头已读取的字节数.
+     */
+    private int headerRead;
+
+    /**
+     * 当前帧的密文长度，帧头未读完时为-1.
+     */
+    private int frameLength = -1;
+
+    /**
+     * 当前帧密文已读取的字节数.
+     */
+    private int frameRead;
+
+    private boolean finalFrame;
+
+    private long counter;
+
+    FramedCipherServletInputStream(
+            ServletInputStream originalInputStream,
+            HttpCipherFactory httpCipherFactory,
+            byte[] key,
+            byte[] nonce,
+            int maxFrameLength,
+            CipherBufferPool framePool) {
+        super(originalInputStream, framePool);
+        this.frame = framePool.acquire(maxFrameLength);
+        this.httpCipherFactory = httpCipherFactory;
+        this.frameKey = CipherFrames.frameKey(key, nonce);
+        this.maxFrameLength = maxFrameLength;
+    }
+
+    @Override
+    protected void decrypt(boolean blocking) throws IOException {
+        while (!plain.hasRemaining() && !last) {
+            if (frameLength >= 0 && frameRead == frameLength) {
+                decryptFrame();
+                continue;
+            }
+            if (!blocking && !originalInputStream.isReady()) {
+                return;
+            }
+            if (frameLength < 0) {
+                headerRead += readSome(header, headerRead, CipherFrames.HEADER_LENGTH - headerRead);
+                if (headerRead == CipherFrames.HEADER_LENGTH) {
+                    startFrame();
+                }
+            } else {
+                frameRead += readSome(frame.array(), frameRead, frameLength - frameRead);
+            }
+        }
+    }
+
+    private void startFrame() throws IOException {
+        int value = CipherFrames.readHeader(header);
+        finalFrame = (value & CipherFrames.FINAL_FLAG) != 0;
+        frameLength = value & ~CipherFrames.FINAL_FLAG;
+        if (frameLength > maxFrameLength) {
+            throw new IOException("cipher frame too large");
+        }
+        frameRead = 0;
+    }
+
+    private void decryptFrame() throws IOException {
+        Cipher cipher = httpCipherFactory.createCipher(Cipher.DECRYPT_MODE, frameKey, CipherFrames.nonce(counter++));
+        try {
+            ByteBuffer output = clearPlain(cipher.getOutputSize(frameLength));
+            cipher.updateAAD(header);
+            cipher.doFinal(frame.clear().limit(frameLength), output);
+            output.flip();
+        } catch (GeneralSecurityException e) {
+            throw new IOException("cipher frame authentication failed", e);
+        }
+        httpCipherFactory.release(cipher);
+        last = finalFrame;
+        headerRead = 0;
+        frameLength = -1;
+    }
+
+    @Override
+    void release() {
+        bufferPool.release(frame);
+        super.release();
+    }
+
+    private int readSome(byte[] buffer, int offset, int length) throws IOException {
+        int count = originalInputStream.read(buffer, offset, length);
+        if (count < 0) {
+            throw new EOFException("truncated cipher frame");
+        }
+        return count;
+    }
+}
@@ -0,0 +1,118 @@
+package me.ziyframework.web.security.filter;
+
+import jakarta.servlet.ServletOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import javax.crypto.Cipher;
+import me.ziyframework.web.security.cipher.HttpCipherFactory;
+
+/**
+ * 分帧加密响应体的Servlet输出流.<br />
+ * 缓冲满一帧即加密写出，{@link #flush()}会将已缓冲的数据作为一个较短的帧立即写出，
+ * 客户端可以逐帧解密，无需缓冲完整的响应体.格式见{@link CipherFrames}.
+ * 一次写入跨越多帧时合并为一次原始流写出，支持非阻塞写出，见{@link AbstractCipherServletOutputStream}.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@SuppressWarnings("checkstyle:ParameterName")
+public final class FramedCipherServletOutputStream extends AbstractCipherServletOutputStream {
+
+    private final HttpCipherFactory httpCipherFactory;
+
+    /**
+     * 本次请求的分帧密钥.
+     */
+    private final byte[] frameKey;
+
+    /**
+     * 待加密的明文.
+     */
+    private final ByteBuffer plain;
+
+    private final int frameSize;
+
+    private int position;
+
+    private long counter;
+
+    FramedCipherServletOutputStream(
+            ServletOutputStream originalOutputStream,
+            HttpCipherFactory httpCipherFactory,
+            byte[] key,
+            byte[] nonce,
+            int frameSize,
+            CipherBufferPool framePool) {
+        super(originalOutputStream, framePool);
+        this.httpCipherFactory = httpCipherFactory;
+        this.frameKey = CipherFrames.frameKey(key, nonce);
+        this.frameSize = frameSize;
+        this.plain = framePool.acquire(frameSize);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        if (position == frameSize) {
+            writeFrame(false);
+            drain();
+        }
+        plain.array()[position++] = (byte) b;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        while (len > 0) {
+            if (position == frameSize) {
+                writeFrame(false);
+            }
+            int count = Math.min(len, frameSize - position);
+            System.arraycopy(b, off, plain.array(), position, count);
+            position += count;
+            off += count;
+            len -= count;
+        }
+        drain();
+    }
+
+    /**
+     * 将已缓冲的数据作为一帧写出.
+     */
+    @Override
+    protected void flushCipher() throws IOException {
+        if (position > 0) {
+            writeFrame(false);
+        }
+    }
+
+    /**
+     * 写出最后一帧.
+     */
+    @Override
+    protected void finishCipher() throws IOException {
+        writeFrame(true);
+    }
+
+    private void writeFrame(boolean last) throws IOException {
+        Cipher cipher = httpCipherFactory.createCipher(Cipher.ENCRYPT_MODE, frameKey, CipherFrames.nonce(counter++));
+        try {
+            int length = cipher.getOutputSize(position);
+            ByteBuffer frame = reserve(CipherFrames.HEADER_LENGTH + length);
+            int offset = frame.arrayOffset() + frame.position();
+            CipherFrames.writeHeader(frame.array(), offset, last, length);
+            cipher.updateAAD(frame.array(), offset, CipherFrames.HEADER_LENGTH);
+            length = cipher.doFinal(plain.array(), 0, position, frame.array(), offset + CipherFrames.HEADER_LENGTH);
+            frame.position(frame.position() + CipherFrames.HEADER_LENGTH + length);
+        } catch (GeneralSecurityException e) {
+            throw new IOException(e);
+        }
+        httpCipherFactory.release(cipher);
+        position = 0;
+    }
+
+    @Override
+    void release() {
+        bufferPool.release(plain);
+        super.release();
+    }
+}
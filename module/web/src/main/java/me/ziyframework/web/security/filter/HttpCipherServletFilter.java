@@ -1,6 +1,11 @@
 package me.ziyframework.web.security.filter;
 
 import com.google.common.io.BaseEncoding;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.DispatcherType;
 import jakarta.servlet.Filter;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
@@ -9,22 +14,36 @@ import jakarta.servlet.ServletResponse;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import java.io.IOException;
+import java.util.function.Function;
 import lombok.CustomLog;
 import me.ziyframework.core.tuple.Tuple2;
 import me.ziyframework.core.tuple.Tuples;
 import me.ziyframework.web.common.WebHolder;
+import me.ziyframework.web.common.exception.BaseException;
 import me.ziyframework.web.common.exception.GlobalException;
 import me.ziyframework.web.common.result.Result;
 import me.ziyframework.web.common.result.ResultCode;
 import me.ziyframework.web.security.HttpEncrypt;
 import me.ziyframework.web.security.SecurityHttpHeaders;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
 import me.ziyframework.web.security.cipher.HttpCipherFactory;
+import me.ziyframework.web.security.cipher.HttpCipherRegistry;
+import me.ziyframework.web.security.compress.CompressCodec;
+import me.ziyframework.web.security.compress.HttpCompressRegistry;
 import me.ziyframework.web.security.exchange.SecretExchange;
+import me.ziyframework.web.security.metrics.CipherMeter;
+import me.ziyframework.web.security.metrics.CryptoMetrics;
+import me.ziyframework.web.security.metrics.NoOpCryptoMetrics;
+import me.ziyframework.web.security.replay.NonceReplayDetector;
 import org.jspecify.annotations.Nullable;
 import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerMapping;
+import org.springframework.web.util.WebUtils;
 
 /**
  * 接口响应体加密拦截器.<br />
+ * 异步请求的响应体在最后一次异步分派结束时完成加密，过滤器需要同时注册{@link DispatcherType#REQUEST}和
+ * {@link DispatcherType#ASYNC}；Cipher等资源在异步请求完成时归还.
  * created on 2025-04
  *
  * @author ziy
@@ -32,13 +51,178 @@ import org.springframework.web.method.HandlerMethod;
 @CustomLog
 public class HttpCipherServletFilter implements Filter {
 
+    /**
+     * 默认的分帧加解密单帧明文长度.
+     */
+    public static final int DEFAULT_FRAME_SIZE = 64 * 1024;
+
+    /**
+     * 默认可以缓冲的最大响应体.
+     */
+    public static final int DEFAULT_BUFFERED_RESPONSE_LIMIT = 64 * 1024;
+
+    /**
+     * 最多缓存的空闲响应体缓冲区数量，响应体缓冲区较大，少于其他缓冲区.
+     */
+    private static final int BODY_POOL_SIZE = 64;
+
+    /**
+     * 单帧明文的最大长度，帧头中的长度字段为31位.
+     */
+    private static final int MAX_FRAME_SIZE = 16 * 1024 * 1024;
+
+    /**
+     * 未匹配到接口(如404)时指标的route标签.
+     */
+    private static final String UNKNOWN_ROUTE = "UNKNOWN";
+
     private final SecretExchange secretExchange;
 
-    private final HttpCipherFactory httpCipherFactory;
+    private final HttpCipherRegistry cipherRegistry;
+
+    private final HttpEncryptRouteIndex routeIndex;
+
+    /**
+     * 会话票据有效期(毫秒)，小于等于0时不签发票据.
+     */
+    private final long sessionTicketTtlMillis;
+
+    /**
+     * 分帧加解密时单帧明文的长度.
+     */
+    private final int frameSize;
+
+    /**
+     * 不分帧时加解密流使用的缓冲区.
+     */
+    private final CipherBufferPool bufferPool;
+
+    /**
+     * 分帧时加解密流使用的缓冲区，可以容纳一个完整的帧.
+     */
+    private final CipherBufferPool framePool;
+
+    /**
+     * 缓冲完整响应体时使用的缓冲区，大小决定可以缓冲的最大响应体.
+     */
+    private final CipherBufferPool bodyPool;
+
+    /**
+     * 加密前压缩响应体、解密后解压请求体的算法，为null时不支持压缩.
+     */
+    private final @Nullable HttpCompressRegistry compressRegistry;
+
+    private CryptoMetrics metrics = NoOpCryptoMetrics.INSTANCE;
+
+    /**
+     * {@link HttpEncrypt#replayProtection()}的接口使用的重放检测.
+     */
+    private @Nullable NonceReplayDetector replayDetector;
+
+    private final Function<HttpServletRequest, @Nullable HttpEncrypt> httpEncryptResolver = this::getHttpEncrypt;
+
+    public HttpCipherServletFilter(
+            SecretExchange secretExchange, HttpCipherFactory httpCipherFactory, HttpEncryptRouteIndex routeIndex) {
+        this(secretExchange, httpCipherFactory, routeIndex, 0);
+    }
+
+    /**
+     * 创建接口加解密过滤器.
+     *
+     * @param sessionTicketTtlMillis 会话票据有效期(毫秒)，小于等于0时不签发票据(仍然接受已签发的票据)
+     */
+    public HttpCipherServletFilter(
+            SecretExchange secretExchange,
+            HttpCipherFactory httpCipherFactory,
+            HttpEncryptRouteIndex routeIndex,
+            long sessionTicketTtlMillis) {
+        this(
+                secretExchange,
+                HttpCipherRegistry.of(httpCipherFactory),
+                routeIndex,
+                sessionTicketTtlMillis,
+                DEFAULT_FRAME_SIZE,
+                new CipherBufferPool(),
+                DEFAULT_BUFFERED_RESPONSE_LIMIT);
+    }
+
+    /**
+     * 创建接口加解密过滤器.
+     *
+     * @param cipherRegistry 允许客户端选择的对称加解密算法
+     * @param sessionTicketTtlMillis 会话票据有效期(毫秒)，小于等于0时不签发票据(仍然接受已签发的票据)
+     * @param frameSize 客户端请求分帧加解密时单帧明文的长度
+     * @param bufferPool 不分帧时加解密流使用的缓冲区池
+     * @param bufferedResponseLimit {@link HttpEncrypt#buffered()}时可以缓冲的最大响应体(字节)
+     */
+    public HttpCipherServletFilter(
+            SecretExchange secretExchange,
+            HttpCipherRegistry cipherRegistry,
+            HttpEncryptRouteIndex routeIndex,
+            long sessionTicketTtlMillis,
+            int frameSize,
+            CipherBufferPool bufferPool,
+            int bufferedResponseLimit) {
+        this(
+                secretExchange,
+                cipherRegistry,
+                routeIndex,
+                sessionTicketTtlMillis,
+                frameSize,
+                bufferPool,
+                bufferedResponseLimit,
+                null);
+    }
 
-    public HttpCipherServletFilter(SecretExchange secretExchange, HttpCipherFactory httpCipherFactory) {
+    /**
+     * 创建接口加解密过滤器.
+     *
+     * @param cipherRegistry 允许客户端选择的对称加解密算法
+     * @param sessionTicketTtlMillis 会话票据有效期(毫秒)，小于等于0时不签发票据(仍然接受已签发的票据)
+     * @param frameSize 客户端请求分帧加解密时单帧明文的长度
+     * @param bufferPool 不分帧时加解密流使用的缓冲区池
+     * @param bufferedResponseLimit {@link HttpEncrypt#buffered()}时可以缓冲的最大响应体(字节)
+     * @param compressRegistry 允许客户端选择的压缩算法，为null时不支持压缩
+     */
+    public HttpCipherServletFilter(
+            SecretExchange secretExchange,
+            HttpCipherRegistry cipherRegistry,
+            HttpEncryptRouteIndex routeIndex,
+            long sessionTicketTtlMillis,
+            int frameSize,
+            CipherBufferPool bufferPool,
+            int bufferedResponseLimit,
+            @Nullable HttpCompressRegistry compressRegistry) {
+        Preconditions.checkArgument(
+                frameSize > 0 && frameSize <= MAX_FRAME_SIZE,
+                "frameSize out of range",
+                SafeArg.of("frameSize", frameSize));
         this.secretExchange = secretExchange;
-        this.httpCipherFactory = httpCipherFactory;
+        this.cipherRegistry = cipherRegistry;
+        this.routeIndex = routeIndex;
+        this.sessionTicketTtlMillis = sessionTicketTtlMillis;
+        this.frameSize = frameSize;
+        this.bufferPool = bufferPool;
+        this.framePool = new CipherBufferPool(
+                CipherFrames.HEADER_LENGTH + frameSize + AeadCipherFactory.TAG_LENGTH,
+                CipherBufferPool.DEFAULT_POOL_SIZE);
+        this.bodyPool = new CipherBufferPool(
+                bufferedResponseLimit + BufferedCipherServletOutputStream.MAX_CIPHER_OVERHEAD, BODY_POOL_SIZE);
+        this.compressRegistry = compressRegistry;
+    }
+
+    /**
+     * 按接口和算法采集加解密的字节数和失败次数，需要在过滤器注册前设置.
+     */
+    public void setCryptoMetrics(CryptoMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    /**
+     * 设置重放检测，需要在过滤器注册前设置.
+     */
+    public void setReplayDetector(NonceReplayDetector replayDetector) {
+        this.replayDetector = replayDetector;
     }
 
     /**
@@ -47,63 +231,232 @@ public class HttpCipherServletFilter implements Filter {
     @Override
     public void doFilter(ServletRequest request, ServletResponse response, FilterChain chain)
             throws IOException, ServletException {
-
-        Tuple2<HttpServletRequest, HttpServletResponse> tuple;
+        if (request.getDispatcherType() == DispatcherType.ASYNC) {
+            doAsyncDispatch(request, response, chain);
+            return;
+        }
+        Tuple2<HttpServletRequest, HttpServletResponse> tuple = null;
         try {
-            tuple = delegateRequestAndResponse((HttpServletRequest) request, (HttpServletResponse) response);
+            HttpServletRequest httpRequest = (HttpServletRequest) request;
+            // 优先通过启动时构建的路由索引判断，未声明加解密的接口直接放行
+            HttpEncrypt httpEncrypt = routeIndex.getHttpEncrypt(httpRequest, httpEncryptResolver);
+            if (httpEncrypt != null) {
+                tuple = delegateRequestAndResponse(httpRequest, (HttpServletResponse) response, httpEncrypt);
+            }
+        } catch (BaseException ex) {
+            if (ResultCode.BAD_REQUEST.equals(ex.getCode())) {
+                // 重放、过期、nonce过短、缺少请求头等由客户端导致，不打印异常栈
+                log.warn("Http接口加解密请求被拒绝, reason:<{}>", SafeArg.of("reason", ex.getMessage()));
+            } else {
+                log.error("Http接口加解密出现异常", ex);
+            }
+            WebHolder.resetResponse(Result.of(ResultCode.BAD_REQUEST));
+            return;
         } catch (Exception ex) {
             log.error("Http接口加解密出现异常", ex);
             WebHolder.resetResponse(Result.of(ResultCode.BAD_REQUEST));
             return;
         }
-        chain.doFilter(tuple.v1(), tuple.v2());
+        if (tuple == null) {
+            chain.doFilter(request, response);
+            return;
+        }
+        HttpServletRequest req = tuple.v1();
+        HttpServletResponse resp = tuple.v2();
+        HttpDecryptServletRequest decryptRequest =
+                req instanceof HttpDecryptServletRequest decrypt ? decrypt : null;
+        HttpEncryptServletResponse encryptResponse =
+                resp instanceof HttpEncryptServletResponse encrypt ? encrypt : null;
+        try {
+            chain.doFilter(req, resp);
+        } finally {
+            if (req.isAsyncStarted()) {
+                // 由最后一次异步分派完成加密，请求完成时归还资源
+                req.getAsyncContext().addListener(new ReleaseListener(decryptRequest, encryptResponse));
+            } else {
+                try {
+                    finish(req, decryptRequest, encryptResponse);
+                } finally {
+                    release(decryptRequest, encryptResponse);
+                }
+            }
+        }
+    }
+
+    /**
+     * 异步分派，请求和响应已在首次分派时包装，最后一次分派(没有再次开始异步处理)结束时完成加密.
+     */
+    private void doAsyncDispatch(ServletRequest request, ServletResponse response, FilterChain chain)
+            throws IOException, ServletException {
+        HttpDecryptServletRequest decryptRequest =
+                WebUtils.getNativeRequest(request, HttpDecryptServletRequest.class);
+        HttpEncryptServletResponse encryptResponse =
+                WebUtils.getNativeResponse(response, HttpEncryptServletResponse.class);
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            if (!request.isAsyncStarted()) {
+                finish(request, decryptRequest, encryptResponse);
+            }
+        }
+    }
+
+    /**
+     * 完成响应体加密并记录加解密指标.
+     */
+    private void finish(
+            ServletRequest request,
+            @Nullable HttpDecryptServletRequest decryptRequest,
+            @Nullable HttpEncryptServletResponse encryptResponse)
+            throws IOException {
+        String route = route(request);
+        try {
+            if (encryptResponse != null) {
+                CipherMeter meter = metrics.cipherMeter(route, encryptResponse.getCipherAlgorithm());
+                try {
+                    encryptResponse.finish();
+                } catch (IOException | RuntimeException e) {
+                    meter.recordEncryptFailure();
+                    throw e;
+                }
+                meter.recordEncrypted(encryptResponse.getEncryptedBytes());
+            }
+        } finally {
+            if (decryptRequest != null) {
+                CipherMeter meter = metrics.cipherMeter(route, decryptRequest.getCipherAlgorithm());
+                if (decryptRequest.isDecryptFailed()) {
+                    meter.recordDecryptFailure();
+                }
+                meter.recordDecrypted(decryptRequest.getDecryptedBytes());
+            }
+        }
     }
 
     /**
-     * 推断当前接口是否声明了加密或解密，并返回对应的Request和Response.
+     * 将Cipher和缓冲区归还复用.
+     */
+    private static void release(
+            @Nullable HttpDecryptServletRequest decryptRequest, @Nullable HttpEncryptServletResponse encryptResponse) {
+        try {
+            if (encryptResponse != null) {
+                encryptResponse.release();
+            }
+        } finally {
+            if (decryptRequest != null) {
+                decryptRequest.release();
+            }
+        }
+    }
+
+    /**
+     * 指标的route标签，使用接口匹配时记录的路径模板(请求结束时已完成匹配).
+     */
+    private static String route(ServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern != null ? pattern.toString() : UNKNOWN_ROUTE;
+    }
+
+    /**
+     * 根据当前接口声明的加密或解密，返回对应的Request和Response.
      */
     private Tuple2<HttpServletRequest, HttpServletResponse> delegateRequestAndResponse(
-            HttpServletRequest request, HttpServletResponse response) {
+            HttpServletRequest request, HttpServletResponse response, HttpEncrypt httpEncrypt) {
         HttpServletRequest req = request;
         HttpServletResponse resp = response;
-        // 获取处理实际请求的方法包装对象HandlerMethod,并根据注解进行推断
-        HttpEncrypt httpEncrypt = getHttpEncrypt(request);
-        if (httpEncrypt == null) {
-            return Tuples.of(request, response);
+        Tuple2<byte[], byte[]> keyInfo = getKeyInfo(request, response);
+        if (httpEncrypt.replayProtection()) {
+            NonceReplayDetector detector = replayDetector;
+            if (detector == null) {
+                throw new GlobalException("replay detector is not configured");
+            }
+            detector.check(keyInfo.v2(), keyInfo.v1());
         }
-        Tuple2<byte[], byte[]> keyInfo = getKeyInfo();
+        // 按客户端指定的算法加解密，并在响应头中返回实际使用的算法
+        HttpCipherFactory httpCipherFactory = cipherRegistry.resolve(request.getHeader(SecurityHttpHeaders.X_CIPHER));
+        response.setHeader(SecurityHttpHeaders.X_CIPHER, httpCipherFactory.getAlgorithm());
+        int frame = 0;
+        if (request.getHeader(SecurityHttpHeaders.X_CIPHER_FRAME) != null) {
+            // 分帧依赖每帧的认证标签发现截断和篡改，只支持AEAD算法
+            if (!(httpCipherFactory instanceof AeadCipherFactory)) {
+                throw new GlobalException(ResultCode.BAD_REQUEST, false, "分帧加解密需要使用AEAD算法");
+            }
+            frame = frameSize;
+            response.setHeader(SecurityHttpHeaders.X_CIPHER_FRAME, Integer.toString(frameSize));
+        }
+        CipherBufferPool pool = frame > 0 ? framePool : bufferPool;
 
         if (httpEncrypt.decrypt()) {
-            // 解密请求体
-            req = new HttpDecryptServletRequest(request, httpCipherFactory, keyInfo.v1(), keyInfo.v2());
+            // 解密请求体，客户端声明了压缩算法时解密后解压
+            String compress = request.getHeader(SecurityHttpHeaders.X_COMPRESS);
+            CompressCodec requestCodec = null;
+            if (compress != null && !compress.isEmpty()) {
+                if (compressRegistry == null) {
+                    throw new GlobalException(ResultCode.BAD_REQUEST, false, "不支持的压缩算法");
+                }
+                requestCodec = compressRegistry.resolve(compress);
+            }
+            req = new HttpDecryptServletRequest(
+                    request,
+                    httpCipherFactory,
+                    keyInfo.v1(),
+                    keyInfo.v2(),
+                    frame,
+                    pool,
+                    requestCodec,
+                    compressRegistry == null ? 0 : compressRegistry.getMaxInflatedSize());
         }
         if (httpEncrypt.encrypt()) {
             // 加密响应
-            resp = new HttpEncryptServletResponse(response, httpCipherFactory, keyInfo.v1(), keyInfo.v2());
+            resp = new HttpEncryptServletResponse(
+                    response,
+                    httpCipherFactory,
+                    keyInfo.v1(),
+                    keyInfo.v2(),
+                    frame,
+                    pool,
+                    httpEncrypt.buffered() ? bodyPool : null,
+                    compressRegistry == null
+                            ? null
+                            : compressRegistry.negotiate(request.getHeader(SecurityHttpHeaders.X_ACCEPT_COMPRESS)),
+                    compressRegistry == null ? 0 : compressRegistry.getThreshold());
         }
         return Tuples.of(req, resp);
     }
 
     /**
-     * 解析请求头中的密钥信息.
+     * 解析请求头中的密钥信息.<br />
+     * 携带会话票据时直接从票据中恢复共享密钥，否则通过客户端公钥协商，并在开启会话恢复时签发票据.
      *
      * @return _1: 共享密钥, _2: 加密向量
      */
-    private Tuple2<byte[], byte[]> getKeyInfo() {
-        final String clientPublicKey = WebHolder.getRequestHeader(SecurityHttpHeaders.X_KEY);
-        final String iv = WebHolder.getRequestHeader(SecurityHttpHeaders.X_NONCE);
-        final String serverKeyId = WebHolder.getRequestHeader(SecurityHttpHeaders.X_KEY_ID);
+    private Tuple2<byte[], byte[]> getKeyInfo(HttpServletRequest request, HttpServletResponse response) {
+        final String iv = request.getHeader(SecurityHttpHeaders.X_NONCE);
+        if (iv == null) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "请求头中缺少iv");
+        }
+        byte[] ivBytes = BaseEncoding.base64Url().decode(iv);
 
-        if (clientPublicKey == null || iv == null || serverKeyId == null) {
-            throw new GlobalException(ResultCode.BAD_REQUEST, false, "请求头中缺少客户端公钥/iv/serverKeyId");
+        final String ticket = request.getHeader(SecurityHttpHeaders.X_SESSION_TICKET);
+        if (ticket != null && !ticket.isEmpty()) {
+            return Tuples.of(secretExchange.resumeSessionTicket(ticket), ivBytes);
+        }
+        final String clientPublicKey = request.getHeader(SecurityHttpHeaders.X_KEY);
+        final String serverKeyId = request.getHeader(SecurityHttpHeaders.X_KEY_ID);
+        if (clientPublicKey == null || serverKeyId == null) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "请求头中缺少客户端公钥/serverKeyId");
         }
         byte[] secretBytes = secretExchange.getSharedSecret(clientPublicKey, serverKeyId);
-        byte[] ivBytes = BaseEncoding.base64Url().decode(iv);
+        if (sessionTicketTtlMillis > 0) {
+            response.setHeader(
+                    SecurityHttpHeaders.X_SESSION_TICKET,
+                    secretExchange.issueSessionTicket(serverKeyId, secretBytes, sessionTicketTtlMillis));
+        }
         return Tuples.of(secretBytes, ivBytes);
     }
 
     /**
-     * 获取当前接口的加解密注解,尝试从方法和类上获取.
+     * 获取当前接口的加解密注解,尝试从方法和类上获取.<br />
+     * 需要完整的接口匹配，仅在路由索引无法确定时调用.
      */
     private @Nullable HttpEncrypt getHttpEncrypt(HttpServletRequest request) {
         HandlerMethod handlerMethod = WebHolder.getHandlerMethod(request);
@@ -113,4 +466,34 @@ public class HttpCipherServletFilter implements Filter {
         }
         return httpEncrypt;
     }
+
+    /**
+     * 异步请求完成(包括超时和出错后完成)时归还Cipher和缓冲区，此时响应已提交，不再写出.
+     */
+    private record ReleaseListener(
+            @Nullable HttpDecryptServletRequest decryptRequest, @Nullable HttpEncryptServletResponse encryptResponse)
+            implements AsyncListener {
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            release(decryptRequest, encryptResponse);
+        }
+
+        /**
+         * 超时由Spring MVC异步分派处理(最后一次分派完成加密)，之后总会触发onComplete.
+         */
+        @Override
+        public void onTimeout(AsyncEvent event) {}
+
+        /**
+         * 出错后同样会触发onComplete，在那里统一归还.
+         */
+        @Override
+        public void onError(AsyncEvent event) {}
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+    }
 }
@@ -8,7 +8,9 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import javax.crypto.Cipher;
 import lombok.Getter;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
 import me.ziyframework.web.security.cipher.HttpCipherFactory;
+import me.ziyframework.web.security.compress.CompressCodec;
 import org.jspecify.annotations.Nullable;
 
 /**
@@ -30,25 +32,121 @@ public final class HttpDecryptServletRequest extends HttpServletRequestWrapper {
 
     private final HttpCipherFactory httpCipherFactory;
 
-    private @Nullable CipherServletInputStream servletInputStream;
+    /**
+     * 分帧解密时单帧明文的最大长度，为0时不分帧.
+     */
+    private final int frameSize;
+
+    private final CipherBufferPool bufferPool;
+
+    /**
+     * 请求体明文的压缩算法，为null时不解压.
+     */
+    private final @Nullable CompressCodec compressCodec;
+
+    /**
+     * 请求体解压后的最大长度(字节).
+     */
+    private final long maxInflatedSize;
+
+    private @Nullable ServletInputStream servletInputStream;
+
+    private @Nullable AbstractCipherServletInputStream cipherInputStream;
+
+    private @Nullable Cipher cipher;
 
     HttpDecryptServletRequest(
             HttpServletRequest request, HttpCipherFactory httpCipherFactory, byte[] secretBytes, byte[] iv) {
+        this(request, httpCipherFactory, secretBytes, iv, 0, new CipherBufferPool(), null, 0);
+    }
+
+    HttpDecryptServletRequest(
+            HttpServletRequest request,
+            HttpCipherFactory httpCipherFactory,
+            byte[] secretBytes,
+            byte[] iv,
+            int frameSize,
+            CipherBufferPool bufferPool,
+            @Nullable CompressCodec compressCodec,
+            long maxInflatedSize) {
         super(request);
         this.httpCipherFactory = httpCipherFactory;
         this.secretBytes = secretBytes;
         this.iv = iv;
+        this.frameSize = frameSize;
+        this.bufferPool = bufferPool;
+        this.compressCodec = compressCodec;
+        this.maxInflatedSize = maxInflatedSize;
     }
 
     @Override
     public ServletInputStream getInputStream() throws IOException {
         if (servletInputStream == null) {
-            Cipher cipher = httpCipherFactory.createCipher(Cipher.DECRYPT_MODE, secretBytes, iv);
-            servletInputStream = new CipherServletInputStream(super.getInputStream(), cipher);
+            AbstractCipherServletInputStream stream;
+            if (frameSize > 0) {
+                // 逐帧解密，每帧借出并归还Cipher
+                stream = new FramedCipherServletInputStream(
+                        super.getInputStream(),
+                        httpCipherFactory,
+                        secretBytes,
+                        iv,
+                        frameSize + AeadCipherFactory.TAG_LENGTH,
+                        bufferPool);
+            } else {
+                cipher = httpCipherFactory.createCipher(Cipher.DECRYPT_MODE, secretBytes, iv);
+                stream = new CipherServletInputStream(super.getInputStream(), cipher, bufferPool);
+            }
+            cipherInputStream = stream;
+            // 先解密再解压
+            servletInputStream = compressCodec == null
+                    ? stream
+                    : new DecompressingServletInputStream(stream, compressCodec, maxInflatedSize, bufferPool);
         }
         return servletInputStream;
     }
 
+    /**
+     * 使用的对称加解密算法.
+     */
+    String getCipherAlgorithm() {
+        return httpCipherFactory.getAlgorithm();
+    }
+
+    /**
+     * 已解密的请求体字节数(明文).
+     */
+    long getDecryptedBytes() {
+        AbstractCipherServletInputStream stream = cipherInputStream;
+        return stream == null ? 0 : stream.getReadBytes();
+    }
+
+    /**
+     * 请求体解密或解压是否失败.
+     */
+    boolean isDecryptFailed() {
+        AbstractCipherServletInputStream stream = cipherInputStream;
+        return (stream != null && stream.isFailed())
+                || (servletInputStream instanceof DecompressingServletInputStream decompress && decompress.isFailed());
+    }
+
+    /**
+     * 请求处理完毕后归还Cipher、Inflater和缓冲区.
+     */
+    void release() {
+        if (servletInputStream instanceof DecompressingServletInputStream stream) {
+            stream.release();
+        }
+        AbstractCipherServletInputStream stream = cipherInputStream;
+        if (stream != null) {
+            stream.release();
+        }
+        Cipher current = cipher;
+        if (current != null) {
+            cipher = null;
+            httpCipherFactory.release(current);
+        }
+    }
+
     @Override
     public BufferedReader getReader() throws IOException {
         ServletInputStream inputStream = this.getInputStream();
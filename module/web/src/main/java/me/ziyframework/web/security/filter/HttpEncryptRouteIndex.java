@@ -0,0 +1,234 @@
+package me.ziyframework.web.security.filter;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import jakarta.servlet.http.HttpServletMapping;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.MappingMatch;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import me.ziyframework.web.common.mapping.RequestMappingInfoConsumer;
+import me.ziyframework.web.security.HttpEncrypt;
+import org.jspecify.annotations.Nullable;
+import org.springframework.core.annotation.AnnotatedElementUtils;
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.ClassUtils;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * 接口加解密的路由索引.<br />
+ * 启动时通过{@link RequestMappingInfoConsumer}收集所有接口的{@link HttpEncrypt}声明并构建不可变索引,
+ * 过滤器据此判断请求是否需要加解密，未声明加解密的请求无需再进行一次完整的接口匹配.
+ * <ul>
+ *     <li>无通配符的路径：以路径为key直接命中，无论是否声明了{@link HttpEncrypt}</li>
+ *     <li>含通配符的路径：仅记录声明了{@link HttpEncrypt}的接口，匹配到时交由完整的接口匹配确认</li>
+ * </ul>
+ * 索引只比较路径和请求方法，命中的无通配符接口还带有params/headers/consumes/produces等条件时，
+ * 请求可能不满足条件而由其他接口处理，交由完整的接口匹配.
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class HttpEncryptRouteIndex implements RequestMappingInfoConsumer {
+
+    private final Map<String, List<Route>> literalRoutes = new HashMap<>();
+
+    private final List<Route> patternRoutes = new ArrayList<>();
+
+    /**
+     * 所有接口注册完成后发布的索引，未发布前所有请求都回退到完整的接口匹配.
+     */
+    private volatile @Nullable Snapshot snapshot;
+
+    /**
+     * 收集接口的加解密声明.
+     */
+    @Override
+    public synchronized void accept(RequestMappingInfo mappingInfo, Method method, Class<?> handlerType) {
+        HttpEncrypt httpEncrypt = AnnotatedElementUtils.findMergedAnnotation(method, HttpEncrypt.class);
+        if (httpEncrypt == null) {
+            httpEncrypt = ClassUtils.getUserClass(handlerType).getAnnotation(HttpEncrypt.class);
+        }
+        Set<RequestMethod> methods = mappingInfo.getMethodsCondition().getMethods();
+        Set<String> patternValues = mappingInfo.getPatternValues();
+        if (patternValues.isEmpty()) {
+            patternValues = Set.of("");
+        }
+        for (String patternValue : patternValues) {
+            PathPattern pattern = PathPatternParser.defaultInstance.parse(patternValue);
+            Route route = new Route(pattern, ImmutableSet.copyOf(methods), isConditional(mappingInfo), httpEncrypt);
+            if (!pattern.hasPatternSyntax()) {
+                literalRoutes
+                        .computeIfAbsent(patternValue, key -> new ArrayList<>())
+                        .add(route);
+            } else if (httpEncrypt != null) {
+                patternRoutes.add(route);
+            }
+        }
+    }
+
+    /**
+     * 所有接口注册完成后发布不可变索引.
+     */
+    @Override
+    public synchronized void after() {
+        ImmutableMap.Builder<String, Route[]> builder = ImmutableMap.builderWithExpectedSize(literalRoutes.size());
+        literalRoutes.forEach((path, routes) -> builder.put(path, routes.toArray(Route[]::new)));
+        snapshot = new Snapshot(builder.buildOrThrow(), ImmutableList.copyOf(patternRoutes));
+    }
+
+    /**
+     * 获取当前请求的加解密声明.
+     *
+     * @param request 请求
+     * @param resolver 索引无法确定时的回退方式(完整的接口匹配)
+     * @return 加解密声明，未声明时返回null
+     */
+    public @Nullable HttpEncrypt getHttpEncrypt(
+            HttpServletRequest request, Function<HttpServletRequest, @Nullable HttpEncrypt> resolver) {
+        Snapshot current = snapshot;
+        String path = lookupPath(request);
+        if (current == null || path == null) {
+            return resolver.apply(request);
+        }
+        Route[] routes = current.literalRoutes().get(path);
+        if (routes != null) {
+            Route matched = null;
+            String method = request.getMethod();
+            for (Route route : routes) {
+                if (!route.matches(method)) {
+                    continue;
+                }
+                if (route.conditional()) {
+                    // 请求不满足条件时由其他接口(可能是声明了加解密的通配符路径)处理，交由完整匹配
+                    return resolver.apply(request);
+                }
+                if (matched != null && matched.httpEncrypt() != route.httpEncrypt()) {
+                    return resolver.apply(request);
+                }
+                matched = route;
+            }
+            if (matched != null && matched.httpEncrypt() != null) {
+                return matched.httpEncrypt();
+            }
+        }
+        // 未声明加解密的无通配符接口同样需要确认没有声明了加解密的通配符路径也能匹配
+        if (matchesPatternRoute(current, path)) {
+            return resolver.apply(request);
+        }
+        return null;
+    }
+
+    private static boolean matchesPatternRoute(Snapshot snapshot, String path) {
+        if (snapshot.patternRoutes().isEmpty()) {
+            return false;
+        }
+        PathContainer pathContainer = PathContainer.parsePath(path);
+        for (Route route : snapshot.patternRoutes()) {
+            if (route.pattern().matches(pathContainer)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 接口除路径和请求方法外是否还有其他匹配条件.
+     */
+    private static boolean isConditional(RequestMappingInfo mappingInfo) {
+        return !mappingInfo.getParamsCondition().isEmpty()
+                || !mappingInfo.getHeadersCondition().isEmpty()
+                || !mappingInfo.getConsumesCondition().isEmpty()
+                || !mappingInfo.getProducesCondition().isEmpty()
+                || mappingInfo.getCustomCondition() != null;
+    }
+
+    /**
+     * 获取接口匹配使用的请求路径，即不含上下文路径和前缀匹配的servlet路径(如{@code spring.mvc.servlet.path})的部分.<br />
+     * 与{@link org.springframework.web.util.ServletRequestPathUtils}相同，只有servlet以前缀({@code /api/*})匹配时
+     * 去除servlet路径，默认servlet({@code /})的servlet路径就是完整路径；后缀匹配({@code *.do})交由完整的接口匹配.
+     * {@link HttpServletRequest#getRequestURI()}是未解码、未规范化的原始路径，而接口匹配使用解码并规范化后的路径，
+     * 含路径参数(;)、编码字符(%)、反斜杠、重复或末尾的分隔符、{@code .}/{@code ..}段的路径与索引中的路径不可比较，
+     * 返回null交由完整的接口匹配，避免这类路径绕过加解密.
+     */
+    private static @Nullable String lookupPath(HttpServletRequest request) {
+        String uri = request.getRequestURI();
+        String prefix = request.getContextPath();
+        HttpServletMapping mapping = request.getHttpServletMapping();
+        MappingMatch mappingMatch = mapping == null ? null : mapping.getMappingMatch();
+        if (mappingMatch == MappingMatch.PATH) {
+            String servletPath = request.getServletPath();
+            prefix = servletPath.endsWith("/")
+                    ? prefix + servletPath.substring(0, servletPath.length() - 1)
+                    : prefix + servletPath;
+        } else if (mappingMatch == MappingMatch.EXTENSION) {
+            return null;
+        }
+        if (!uri.startsWith(prefix)) {
+            return null;
+        }
+        String path = uri.substring(prefix.length());
+        return isNormalized(path) ? path : null;
+    }
+
+    private static boolean isNormalized(String path) {
+        for (int i = 0; i < path.length(); i++) {
+            char c = path.charAt(i);
+            if (c == ';' || c == '%' || c == '\\') {
+                return false;
+            }
+            // 根路径"/"之外的空段、"."和".."段
+            if (c == '/' && path.length() > 1 && isDotSegmentOrEmpty(path, i + 1)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 从{@code start}开始的路径段是否为空、{@code .}或{@code ..}.
+     */
+    private static boolean isDotSegmentOrEmpty(String path, int start) {
+        int end = path.indexOf('/', start);
+        if (end < 0) {
+            end = path.length();
+        }
+        int length = end - start;
+        return length == 0
+                || (length == 1 && path.charAt(start) == '.')
+                || (length == 2 && path.charAt(start) == '.' && path.charAt(start + 1) == '.');
+    }
+
+    /**
+     * 单个接口路径的加解密声明.
+     */
+    private record Route(
+            PathPattern pattern, Set<RequestMethod> methods, boolean conditional, @Nullable HttpEncrypt httpEncrypt) {
+
+        boolean matches(String method) {
+            if (methods.isEmpty()) {
+                return true;
+            }
+            RequestMethod requestMethod = RequestMethod.resolve(method);
+            if (requestMethod == null) {
+                return false;
+            }
+            return methods.contains(requestMethod)
+                    || (requestMethod == RequestMethod.HEAD && methods.contains(RequestMethod.GET));
+        }
+    }
+
+    /**
+     * 不可变的索引快照.
+     */
+    private record Snapshot(Map<String, Route[]> literalRoutes, List<Route> patternRoutes) {}
+}
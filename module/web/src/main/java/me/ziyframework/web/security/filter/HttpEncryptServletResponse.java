@@ -1,5 +1,6 @@
 package me.ziyframework.web.security.filter;
 
+import com.google.common.io.BaseEncoding;
 import jakarta.servlet.ServletOutputStream;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpServletResponseWrapper;
@@ -7,8 +8,11 @@ import java.io.IOException;
 import java.io.OutputStreamWriter;
 import java.io.PrintWriter;
 import javax.crypto.Cipher;
+import me.ziyframework.web.security.SecurityHttpHeaders;
 import me.ziyframework.web.security.cipher.HttpCipherFactory;
+import me.ziyframework.web.security.compress.CompressCodec;
 import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
 
 /**
  * 支持加密的响应体的ServletRequest.<br />
@@ -17,29 +21,107 @@ import org.jspecify.annotations.Nullable;
  */
 public final class HttpEncryptServletResponse extends HttpServletResponseWrapper {
 
+    /**
+     * 响应密钥，由共享密钥、客户端nonce和服务端盐派生.
+     */
     private final byte[] secretBytes;
 
     private final byte[] iv;
 
     private final HttpCipherFactory httpCipherFactory;
 
+    /**
+     * 分帧加密时单帧明文的长度，为0时不分帧.
+     */
+    private final int frameSize;
+
+    private final CipherBufferPool bufferPool;
+
+    /**
+     * 缓冲完整响应体时使用的缓冲区池，为null时流式加密.
+     */
+    private final @Nullable CipherBufferPool bodyPool;
+
+    /**
+     * 响应体明文的压缩算法，为null时不压缩.
+     */
+    private final @Nullable CompressCodec compressCodec;
+
+    /**
+     * 响应体小于该长度时不压缩.
+     */
+    private final int compressThreshold;
+
     private @Nullable ServletOutputStream servletOutputStream;
 
+    private @Nullable AbstractCipherServletOutputStream cipherOutputStream;
+
+    private @Nullable Cipher cipher;
+
     private @Nullable PrintWriter writer;
 
     public HttpEncryptServletResponse(
             HttpServletResponse response, HttpCipherFactory httpCipherFactory, byte[] secretBytes, byte[] iv) {
+        this(response, httpCipherFactory, secretBytes, iv, 0, new CipherBufferPool(), null, null, 0);
+    }
+
+    /**
+     * 创建加密响应.<br />
+     * 每个响应生成新的服务端盐并写入{@link SecurityHttpHeaders#X_RESPONSE_SALT}，响应体使用派生的响应密钥加密.
+     *
+     * @param secretBytes 共享密钥
+     * @param iv 客户端nonce
+     * @param frameSize 分帧加密时单帧明文的长度，为0时不分帧
+     * @param bufferPool 加密流使用的缓冲区池
+     * @param bodyPool 缓冲完整响应体时使用的缓冲区池，响应体不超过缓冲区时以准确的Content-Length写出，为null时流式加密
+     * @param compressCodec 加密前压缩响应体的算法，为null时不压缩
+     * @param compressThreshold 响应体小于该长度(字节)时不压缩
+     */
+    public HttpEncryptServletResponse(
+            HttpServletResponse response,
+            HttpCipherFactory httpCipherFactory,
+            byte[] secretBytes,
+            byte[] iv,
+            int frameSize,
+            CipherBufferPool bufferPool,
+            @Nullable CipherBufferPool bodyPool,
+            @Nullable CompressCodec compressCodec,
+            int compressThreshold) {
         super(response);
         this.httpCipherFactory = httpCipherFactory;
-        this.secretBytes = secretBytes;
+        byte[] salt = CipherKeys.newSalt();
+        response.setHeader(SecurityHttpHeaders.X_RESPONSE_SALT, BaseEncoding.base64Url().encode(salt));
+        this.secretBytes = CipherKeys.responseKey(secretBytes, iv, salt);
         this.iv = iv;
+        this.frameSize = frameSize;
+        this.bufferPool = bufferPool;
+        this.bodyPool = bodyPool;
+        this.compressCodec = compressCodec;
+        this.compressThreshold = compressThreshold;
     }
 
     @Override
     public ServletOutputStream getOutputStream() throws IOException {
         if (servletOutputStream == null) {
-            Cipher cipher = httpCipherFactory.createCipher(Cipher.ENCRYPT_MODE, secretBytes, iv);
-            servletOutputStream = new CipherServletOutputStream(super.getOutputStream(), cipher);
+            AbstractCipherServletOutputStream stream;
+            if (frameSize > 0) {
+                // 逐帧加密，每帧借出并归还Cipher
+                stream = new FramedCipherServletOutputStream(
+                        super.getOutputStream(), httpCipherFactory, secretBytes, iv, frameSize, bufferPool);
+            } else if (bodyPool != null) {
+                cipher = httpCipherFactory.createCipher(Cipher.ENCRYPT_MODE, secretBytes, iv);
+                stream = new BufferedCipherServletOutputStream(
+                        super.getOutputStream(), getResponse(), cipher, bufferPool, bodyPool);
+            } else {
+                cipher = httpCipherFactory.createCipher(Cipher.ENCRYPT_MODE, secretBytes, iv);
+                stream = new CipherServletOutputStream(super.getOutputStream(), cipher, bufferPool);
+            }
+            cipherOutputStream = stream;
+            // 先压缩再加密
+            servletOutputStream = compressCodec == null
+                    ? stream
+                    : new CompressingServletOutputStream(
+                            stream, (HttpServletResponse) getResponse(), compressCodec, compressThreshold, bufferPool);
         }
         return servletOutputStream;
     }
@@ -51,4 +133,90 @@ public final class HttpEncryptServletResponse extends HttpServletResponseWrapper
         }
         return writer;
     }
+
+    /**
+     * 明文长度不是密文长度，忽略接口设置的Content-Length.
+     */
+    @Override
+    public void setContentLength(int len) {}
+
+    @Override
+    public void setContentLengthLong(long len) {}
+
+    @Override
+    public void setHeader(String name, @Nullable String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.setHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addHeader(String name, @Nullable String value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.addHeader(name, value);
+        }
+    }
+
+    @Override
+    public void setIntHeader(String name, int value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.setIntHeader(name, value);
+        }
+    }
+
+    @Override
+    public void addIntHeader(String name, int value) {
+        if (!HttpHeaders.CONTENT_LENGTH.equalsIgnoreCase(name)) {
+            super.addIntHeader(name, value);
+        }
+    }
+
+    /**
+     * 使用的对称加解密算法.
+     */
+    String getCipherAlgorithm() {
+        return httpCipherFactory.getAlgorithm();
+    }
+
+    /**
+     * 已写出的响应体字节数(密文).
+     */
+    long getEncryptedBytes() {
+        AbstractCipherServletOutputStream stream = cipherOutputStream;
+        return stream == null ? 0 : stream.getWrittenBytes();
+    }
+
+    /**
+     * 请求处理完毕后写出最后的压缩数据和密文块，需要在响应提交完成前调用.
+     */
+    void finish() throws IOException {
+        if (writer != null) {
+            writer.flush();
+        }
+        if (servletOutputStream instanceof CompressingServletOutputStream stream) {
+            stream.finish();
+        }
+        AbstractCipherServletOutputStream stream = cipherOutputStream;
+        if (stream != null) {
+            stream.finish();
+        }
+    }
+
+    /**
+     * 归还Cipher、Deflater和缓冲区，可以重复调用.
+     */
+    void release() {
+        if (servletOutputStream instanceof CompressingServletOutputStream stream) {
+            stream.release();
+        }
+        AbstractCipherServletOutputStream stream = cipherOutputStream;
+        if (stream != null) {
+            stream.release();
+        }
+        Cipher current = cipher;
+        if (current != null) {
+            cipher = null;
+            httpCipherFactory.release(current);
+        }
+    }
 }
@@ -0,0 +1,30 @@
+package me.ziyframework.web.security.metrics;
+
+/**
+ * 单个接口和算法的加解密指标.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public interface CipherMeter {
+
+    /**
+     * 记录请求加密的响应体字节数(密文).
+     */
+    void recordEncrypted(long bytes);
+
+    /**
+     * 记录请求解密的请求体字节数(明文).
+     */
+    void recordDecrypted(long bytes);
+
+    /**
+     * 记录一次加密失败.
+     */
+    void recordEncryptFailure();
+
+    /**
+     * 记录一次解密失败(包括认证失败、被截断或解压失败的请求体).
+     */
+    void recordDecryptFailure();
+}
@@ -0,0 +1,47 @@
+package me.ziyframework.web.security.metrics;
+
+import java.util.function.Supplier;
+import me.ziyframework.web.security.exchange.SharedSecretCacheStats;
+import me.ziyframework.web.security.replay.NonceReplayDetector;
+
+/**
+ * 接口加解密的指标采集.<br />
+ * 热点路径上的方法不得分配对象：指标按标签在首次使用时创建并缓存，之后只做查找和累加.
+ * 字节数等按请求累计的指标在请求结束时记录一次.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public interface CryptoMetrics {
+
+    /**
+     * 记录一次密钥协商(ECDH)的耗时.
+     *
+     * @param keyAlgorithm 密钥协商算法
+     * @param nanos 耗时(纳秒)
+     */
+    void recordKeyAgreement(String keyAlgorithm, long nanos);
+
+    /**
+     * 记录一次由当前节点完成的服务端密钥对更换.
+     */
+    void recordKeyRotation(String keyAlgorithm);
+
+    /**
+     * 注册共享密钥缓存的数量和命中率，仅在采集时读取统计信息.
+     */
+    void bindSharedSecretCache(String keyAlgorithm, Supplier<SharedSecretCacheStats> stats);
+
+    /**
+     * 注册重放检测的估计误判率和拒绝次数，仅在采集时读取.
+     */
+    void bindReplayDetector(NonceReplayDetector detector);
+
+    /**
+     * 获取接口和算法对应的加解密指标.
+     *
+     * @param route 接口路径模板，不能使用原始请求路径，避免标签数量无限增长
+     * @param algorithm 对称加解密算法
+     */
+    CipherMeter cipherMeter(String route, String algorithm);
+}
@@ -0,0 +1,163 @@
+package me.ziyframework.web.security.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import me.ziyframework.web.security.exchange.SharedSecretCacheStats;
+import me.ziyframework.web.security.replay.NonceReplayDetector;
+
+/**
+ * 基于Micrometer的接口加解密指标.
+ * <ul>
+ *     <li>{@value #KEY_AGREEMENT}：密钥协商耗时，标签algorithm</li>
+ *     <li>{@value #KEY_ROTATIONS}：服务端密钥对更换次数，标签algorithm</li>
+ *     <li>{@value #CACHE_SIZE}、{@value #CACHE_HIT_RATIO}：共享密钥缓存数量和命中率，标签algorithm</li>
+ *     <li>{@value #CIPHER_BYTES}：加解密的字节数，标签route、algorithm、direction(encrypt/decrypt)</li>
+ *     <li>{@value #CIPHER_FAILURES}：加解密失败次数，标签同上</li>
+ *     <li>{@value #REPLAY_FALSE_POSITIVE_RATE}、{@value #REPLAY_REJECTED}：重放检测的估计误判率和拒绝次数</li>
+ * </ul>
+ * 指标在首次使用时注册并缓存，之后先通过{@link Map#get}查找，不创建lambda和标签对象.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class MicrometerCryptoMetrics implements CryptoMetrics {
+
+    public static final String KEY_AGREEMENT = "ziy.web.encrypt.key.agreement";
+
+    public static final String KEY_ROTATIONS = "ziy.web.encrypt.key.rotations";
+
+    public static final String CACHE_SIZE = "ziy.web.encrypt.secret.cache.size";
+
+    public static final String CACHE_HIT_RATIO = "ziy.web.encrypt.secret.cache.hit.ratio";
+
+    public static final String CIPHER_BYTES = "ziy.web.encrypt.cipher.bytes";
+
+    public static final String CIPHER_FAILURES = "ziy.web.encrypt.cipher.failures";
+
+    public static final String REPLAY_FALSE_POSITIVE_RATE = "ziy.web.encrypt.replay.false.positive.rate";
+
+    public static final String REPLAY_REJECTED = "ziy.web.encrypt.replay.rejected";
+
+    private final MeterRegistry registry;
+
+    private final Map<String, Timer> keyAgreementTimers = new ConcurrentHashMap<>();
+
+    private final Map<String, Counter> rotationCounters = new ConcurrentHashMap<>();
+
+    /**
+     * route -> algorithm -> 指标，两级查找避免拼接key.
+     */
+    private final Map<String, Map<String, CipherMeter>> cipherMeters = new ConcurrentHashMap<>();
+
+    public MicrometerCryptoMetrics(MeterRegistry registry) {
+        this.registry = registry;
+    }
+
+    @Override
+    public void recordKeyAgreement(String keyAlgorithm, long nanos) {
+        Timer timer = keyAgreementTimers.get(keyAlgorithm);
+        if (timer == null) {
+            timer = keyAgreementTimers.computeIfAbsent(keyAlgorithm, algorithm -> Timer.builder(KEY_AGREEMENT)
+                    .tag("algorithm", algorithm)
+                    .register(registry));
+        }
+        timer.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void recordKeyRotation(String keyAlgorithm) {
+        Counter counter = rotationCounters.get(keyAlgorithm);
+        if (counter == null) {
+            counter = rotationCounters.computeIfAbsent(
+                    keyAlgorithm, algorithm -> Counter.builder(KEY_ROTATIONS)
+                            .tag("algorithm", algorithm)
+                            .register(registry));
+        }
+        counter.increment();
+    }
+
+    @Override
+    public void bindSharedSecretCache(String keyAlgorithm, Supplier<SharedSecretCacheStats> stats) {
+        Gauge.builder(CACHE_SIZE, stats, supplier -> supplier.get().size())
+                .tag("algorithm", keyAlgorithm)
+                .register(registry);
+        Gauge.builder(CACHE_HIT_RATIO, stats, supplier -> supplier.get().hitRate())
+                .tag("algorithm", keyAlgorithm)
+                .register(registry);
+    }
+
+    @Override
+    public void bindReplayDetector(NonceReplayDetector detector) {
+        Gauge.builder(REPLAY_FALSE_POSITIVE_RATE, detector, NonceReplayDetector::getFalsePositiveRate)
+                .register(registry);
+        FunctionCounter.builder(REPLAY_REJECTED, detector, NonceReplayDetector::getRejectedCount)
+                .register(registry);
+    }
+
+    @Override
+    public CipherMeter cipherMeter(String route, String algorithm) {
+        Map<String, CipherMeter> meters = cipherMeters.get(route);
+        if (meters == null) {
+            meters = cipherMeters.computeIfAbsent(route, key -> new ConcurrentHashMap<>());
+        }
+        CipherMeter meter = meters.get(algorithm);
+        if (meter == null) {
+            meter = meters.computeIfAbsent(algorithm, key -> new MicrometerCipherMeter(registry, route, key));
+        }
+        return meter;
+    }
+
+    private static final class MicrometerCipherMeter implements CipherMeter {
+
+        private final Counter encryptedBytes;
+
+        private final Counter decryptedBytes;
+
+        private final Counter encryptFailures;
+
+        private final Counter decryptFailures;
+
+        MicrometerCipherMeter(MeterRegistry registry, String route, String algorithm) {
+            this.encryptedBytes = counter(registry, CIPHER_BYTES, route, algorithm, "encrypt");
+            this.decryptedBytes = counter(registry, CIPHER_BYTES, route, algorithm, "decrypt");
+            this.encryptFailures = counter(registry, CIPHER_FAILURES, route, algorithm, "encrypt");
+            this.decryptFailures = counter(registry, CIPHER_FAILURES, route, algorithm, "decrypt");
+        }
+
+        private static Counter counter(
+                MeterRegistry registry, String name, String route, String algorithm, String direction) {
+            return Counter.builder(name)
+                    .tag("route", route)
+                    .tag("algorithm", algorithm)
+                    .tag("direction", direction)
+                    .register(registry);
+        }
+
+        @Override
+        public void recordEncrypted(long bytes) {
+            encryptedBytes.increment(bytes);
+        }
+
+        @Override
+        public void recordDecrypted(long bytes) {
+            decryptedBytes.increment(bytes);
+        }
+
+        @Override
+        public void recordEncryptFailure() {
+            encryptFailures.increment();
+        }
+
+        @Override
+        public void recordDecryptFailure() {
+            decryptFailures.increment();
+        }
+    }
+}
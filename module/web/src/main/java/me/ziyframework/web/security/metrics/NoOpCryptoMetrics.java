@@ -0,0 +1,44 @@
+package me.ziyframework.web.security.metrics;
+
+import java.util.function.Supplier;
+import me.ziyframework.web.security.exchange.SharedSecretCacheStats;
+import me.ziyframework.web.security.replay.NonceReplayDetector;
+
+/**
+ * 不采集任何指标，未引入Micrometer时使用.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public enum NoOpCryptoMetrics implements CryptoMetrics, CipherMeter {
+    INSTANCE;
+
+    @Override
+    public void recordKeyAgreement(String keyAlgorithm, long nanos) {}
+
+    @Override
+    public void recordKeyRotation(String keyAlgorithm) {}
+
+    @Override
+    public void bindSharedSecretCache(String keyAlgorithm, Supplier<SharedSecretCacheStats> stats) {}
+
+    @Override
+    public void bindReplayDetector(NonceReplayDetector detector) {}
+
+    @Override
+    public CipherMeter cipherMeter(String route, String algorithm) {
+        return this;
+    }
+
+    @Override
+    public void recordEncrypted(long bytes) {}
+
+    @Override
+    public void recordDecrypted(long bytes) {}
+
+    @Override
+    public void recordEncryptFailure() {}
+
+    @Override
+    public void recordDecryptFailure() {}
+}
@@ -0,0 +1,10 @@
+/**
+ * 接口加解密的指标采集，存在Micrometer时基于Micrometer实现，否则不采集.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@NullMarked
+package me.ziyframework.web.security.metrics;
+
+import org.jspecify.annotations.NullMarked;
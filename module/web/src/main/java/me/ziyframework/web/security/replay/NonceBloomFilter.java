@@ -0,0 +1,84 @@
+package me.ziyframework.web.security.replay;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一个时间片内出现过的nonce，固定大小的无锁布隆过滤器.<br />
+ * 置位使用{@link VarHandle#getAndBitwiseOr}，多个线程可以同时写入.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+final class NonceBloomFilter {
+
+    private static final VarHandle WORDS = MethodHandles.arrayElementVarHandle(long[].class);
+
+    /**
+     * 所属时间片.
+     */
+    private final long bucket;
+
+    private final long[] words;
+
+    private final long bitSize;
+
+    /**
+     * 已置位的比特数，用于估计误判率.
+     */
+    private final LongAdder bitCount = new LongAdder();
+
+    NonceBloomFilter(long bucket, int wordCount) {
+        this.bucket = bucket;
+        this.words = new long[wordCount];
+        this.bitSize = (long) wordCount * Long.SIZE;
+    }
+
+    long getBucket() {
+        return bucket;
+    }
+
+    /**
+     * 是否可能包含(所有比特均已置位).
+     */
+    boolean mightContain(long hash1, long hash2, int hashFunctions) {
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            if ((((long) WORDS.getVolatile(words, (int) (index >>> 6))) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += hash2;
+        }
+        return true;
+    }
+
+    /**
+     * 写入.
+     *
+     * @return 是否有比特由本次写入置位，为false时说明已经存在(或误判)
+     */
+    boolean put(long hash1, long hash2, int hashFunctions) {
+        boolean changed = false;
+        long combined = hash1;
+        for (int i = 0; i < hashFunctions; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitSize;
+            long mask = 1L << index;
+            long previous = (long) WORDS.getAndBitwiseOr(words, (int) (index >>> 6), mask);
+            if ((previous & mask) == 0) {
+                changed = true;
+                bitCount.increment();
+            }
+            combined += hash2;
+        }
+        return changed;
+    }
+
+    /**
+     * 估计的误判率: (已置位比例)^k.
+     */
+    double falsePositiveRate(int hashFunctions) {
+        return Math.pow((double) bitCount.sum() / bitSize, hashFunctions);
+    }
+}
@@ -0,0 +1,161 @@
+package me.ziyframework.web.security.replay;
+
+import com.google.common.hash.HashCode;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hashing;
+import com.google.common.primitives.Longs;
+import com.palantir.logsafe.Preconditions;
+import com.palantir.logsafe.SafeArg;
+import java.security.SecureRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.common.result.ResultCode;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 基于时间片轮转布隆过滤器的{@code X-Nonce}重放检测.<br />
+ * 开启重放保护的接口要求nonce的前8字节为客户端生成nonce时的时间戳(毫秒，大端序)，其余字节随机：
+ * <ol>
+ *     <li>时间戳与服务端时间相差超过窗口的请求直接拒绝，过期的请求无需记录</li>
+ *     <li>窗口内的nonce(与共享密钥一起)写入当前时间片的布隆过滤器，已存在时拒绝</li>
+ * </ol>
+ * 时间片长度等于窗口，保留{@value #GENERATIONS}个时间片：被接受的nonce时间戳最晚为接受时间+窗口，
+ * 因此至少需要记录2个窗口，之后由时间戳检查拒绝.内存固定为{@value #GENERATIONS}个过滤器，过期的时间片整体丢弃.<br />
+ * 布隆过滤器存在误判：新的nonce可能被误判为重放(客户端重试即可)，误判率通过指标上报，据此调整过滤器大小.
+ * 查找和写入均无锁，完全相同的请求并发到达时可能同时通过.<br />
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+public final class NonceReplayDetector {
+
+    /**
+     * nonce中时间戳的长度.
+     */
+    public static final int TIMESTAMP_LENGTH = Long.BYTES;
+
+    private static final int GENERATIONS = 3;
+
+    private final long windowMillis;
+
+    private final int wordCount;
+
+    private final int hashFunctions;
+
+    /**
+     * 随机种子，避免攻击者构造碰撞的nonce.
+     */
+    private final HashFunction hashFunction = Hashing.murmur3_128(new SecureRandom().nextInt());
+
+    /**
+     * 按时间片取模存放的过滤器，首次使用时创建.
+     */
+    private final AtomicReferenceArray<@Nullable NonceBloomFilter> filters =
+            new AtomicReferenceArray<>(GENERATIONS);
+
+    private final LongAdder rejected = new LongAdder();
+
+    /**
+     * 创建重放检测.
+     *
+     * @param windowMillis 允许的客户端时间偏差(毫秒)
+     * @param filterBits 单个时间片过滤器的比特数，总内存约为{@value #GENERATIONS} * filterBits / 8字节
+     * @param hashFunctions 哈希函数个数
+     */
+    public NonceReplayDetector(long windowMillis, long filterBits, int hashFunctions) {
+        Preconditions.checkArgument(windowMillis > 0, "window must be positive");
+        Preconditions.checkArgument(
+                filterBits >= Long.SIZE && filterBits / Long.SIZE <= Integer.MAX_VALUE,
+                "filterBits out of range",
+                SafeArg.of("filterBits", filterBits));
+        Preconditions.checkArgument(hashFunctions > 0, "hashFunctions must be positive");
+        this.windowMillis = windowMillis;
+        this.wordCount = (int) (filterBits / Long.SIZE);
+        this.hashFunctions = hashFunctions;
+    }
+
+    /**
+     * 检查nonce，重放或超出时间窗口时拒绝请求.
+     *
+     * @param nonce 请求的nonce，前{@value #TIMESTAMP_LENGTH}字节为时间戳
+     * @param secret 此次请求的共享密钥，不同会话的相同nonce互不影响
+     */
+    public void check(byte[] nonce, byte[] secret) {
+        check(nonce, secret, System.currentTimeMillis());
+    }
+
+    void check(byte[] nonce, byte[] secret, long now) {
+        if (nonce.length < TIMESTAMP_LENGTH * 2) {
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "nonce长度不足");
+        }
+        long timestamp = Longs.fromByteArray(nonce);
+        if (Math.abs(now - timestamp) > windowMillis) {
+            rejected.increment();
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "请求已过期");
+        }
+        HashCode hashCode = hashFunction.newHasher()
+                .putBytes(secret)
+                .putBytes(nonce)
+                .hash();
+        byte[] hash = hashCode.asBytes();
+        long hash1 = Longs.fromBytes(hash[0], hash[1], hash[2], hash[3], hash[4], hash[5], hash[6], hash[7]);
+        long hash2 = Longs.fromBytes(hash[8], hash[9], hash[10], hash[11], hash[12], hash[13], hash[14], hash[15]);
+
+        long bucket = now / windowMillis;
+        NonceBloomFilter current = current(bucket);
+        for (int i = 0; i < GENERATIONS; i++) {
+            NonceBloomFilter filter = filters.get(i);
+            if (filter != null
+                    && filter != current
+                    && bucket - filter.getBucket() < GENERATIONS
+                    && filter.mightContain(hash1, hash2, hashFunctions)) {
+                rejected.increment();
+                throw new GlobalException(ResultCode.BAD_REQUEST, false, "重复的请求");
+            }
+        }
+        if (!current.put(hash1, hash2, hashFunctions)) {
+            rejected.increment();
+            throw new GlobalException(ResultCode.BAD_REQUEST, false, "重复的请求");
+        }
+    }
+
+    /**
+     * 获取当前时间片的过滤器，时间片推进时以新过滤器替换最旧的过滤器.
+     */
+    private NonceBloomFilter current(long bucket) {
+        int slot = (int) (bucket % GENERATIONS);
+        while (true) {
+            NonceBloomFilter filter = filters.get(slot);
+            if (filter != null && filter.getBucket() >= bucket) {
+                return filter;
+            }
+            NonceBloomFilter created = new NonceBloomFilter(bucket, wordCount);
+            if (filters.compareAndSet(slot, filter, created)) {
+                return created;
+            }
+        }
+    }
+
+    /**
+     * 当前有效的过滤器中最大的估计误判率.
+     */
+    public double getFalsePositiveRate() {
+        long bucket = System.currentTimeMillis() / windowMillis;
+        double rate = 0;
+        for (int i = 0; i < GENERATIONS; i++) {
+            NonceBloomFilter filter = filters.get(i);
+            if (filter != null && bucket - filter.getBucket() < GENERATIONS) {
+                rate = Math.max(rate, filter.falsePositiveRate(hashFunctions));
+            }
+        }
+        return rate;
+    }
+
+    /**
+     * 因过期或重放被拒绝的请求数.
+     */
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
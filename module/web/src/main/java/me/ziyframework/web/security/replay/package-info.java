@@ -0,0 +1,10 @@
+/**
+ * 加密接口的请求重放检测.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@NullMarked
+package me.ziyframework.web.security.replay;
+
+import org.jspecify.annotations.NullMarked;
@@ -0,0 +1,213 @@
+package me.ziyframework.web.sse;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import org.jspecify.annotations.Nullable;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
+
+/**
+ * SSE客户端，同一个客户端ID的多个连接(多个标签页或设备)共享主题订阅，发送时写给所有连接.
+ * 连接保存在写时复制的数组中，通过CAS增删，发送时直接遍历数组，不加锁也不分配对象.
+ * 最后一个连接移除后客户端关闭，之后的连接注册到新的客户端.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public final class SseClient {
+
+    private static final SseEmitterWrapper[] EMPTY = new SseEmitterWrapper[0];
+
+    /**
+     * 客户端已关闭，不能再添加连接.
+     */
+    private static final SseEmitterWrapper[] CLOSED = new SseEmitterWrapper[0];
+
+    private static final VarHandle CONNECTIONS;
+
+    static {
+        try {
+            CONNECTIONS = MethodHandles.lookup()
+                    .findVarHandle(SseClient.class, "connections", SseEmitterWrapper[].class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final String clientId;
+
+    private volatile SseEmitterWrapper[] connections = EMPTY;
+
+    /**
+     * 订阅的主题.
+     */
+    private final Set<String> topics = ConcurrentHashMap.newKeySet();
+
+    SseClient(String clientId) {
+        this.clientId = clientId;
+    }
+
+    public String getClientId() {
+        return clientId;
+    }
+
+    /**
+     * 当前的连接.
+     */
+    public List<SseEmitterWrapper> getConnections() {
+        return List.of(connections);
+    }
+
+    public int getConnectionCount() {
+        return connections.length;
+    }
+
+    /**
+     * 订阅的主题.
+     */
+    public Set<String> getTopics() {
+        return Set.copyOf(topics);
+    }
+
+    /**
+     * 发送数据给所有连接.
+     */
+    public void send(Object data) {
+        send(SseEmitter.event().data(data));
+    }
+
+    /**
+     * 发送事件给所有连接.
+     */
+    public void send(SseEventBuilder eventBuilder) {
+        offer(eventBuilder.build());
+    }
+
+    /**
+     * 发送预先编码的事件帧给所有连接.
+     */
+    public void send(SseFrame frame) {
+        offer(frame.items());
+    }
+
+    /**
+     * 结束所有连接.
+     */
+    public void complete() {
+        for (SseEmitterWrapper connection : connections) {
+            connection.complete();
+        }
+    }
+
+    void offer(Set<DataWithMediaType> items) {
+        offer(items, null);
+    }
+
+    /**
+     * 事件进入所有连接的待发送队列.
+     *
+     * @param key 合并键，为null时不合并
+     */
+    void offer(Set<DataWithMediaType> items, @Nullable String key) {
+        for (SseEmitterWrapper connection : connections) {
+            connection.offer(items, key);
+        }
+    }
+
+    /**
+     * 添加连接.
+     *
+     * @return 客户端已关闭时返回false
+     */
+    boolean add(SseEmitterWrapper connection) {
+        while (true) {
+            SseEmitterWrapper[] current = connections;
+            if (current == CLOSED) {
+                return false;
+            }
+            SseEmitterWrapper[] next = Arrays.copyOf(current, current.length + 1);
+            next[current.length] = connection;
+            if (CONNECTIONS.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 移除连接，移除最后一个连接后客户端关闭.
+     *
+     * @return 连接是否被移除
+     */
+    boolean remove(SseEmitterWrapper connection) {
+        while (true) {
+            SseEmitterWrapper[] current = connections;
+            int index = indexOf(current, connection);
+            if (index < 0) {
+                return false;
+            }
+            SseEmitterWrapper[] next;
+            if (current.length == 1) {
+                next = CLOSED;
+            } else {
+                next = new SseEmitterWrapper[current.length - 1];
+                System.arraycopy(current, 0, next, 0, index);
+                System.arraycopy(current, index + 1, next, index, current.length - index - 1);
+            }
+            if (CONNECTIONS.compareAndSet(this, current, next)) {
+                return true;
+            }
+        }
+    }
+
+    /**
+     * 移除超过上限的最早的连接.
+     *
+     * @return 被移除的连接
+     */
+    List<SseEmitterWrapper> trim(int maxConnections) {
+        SseEmitterWrapper[] current = connections;
+        if (maxConnections <= 0 || current.length <= maxConnections) {
+            return List.of();
+        }
+        List<SseEmitterWrapper> removed = List.of(current).subList(0, current.length - maxConnections);
+        removed.forEach(this::remove);
+        return removed;
+    }
+
+    boolean isClosed() {
+        return connections == CLOSED;
+    }
+
+    boolean addTopic(String topic) {
+        return topics.add(topic);
+    }
+
+    boolean removeTopic(String topic) {
+        return topics.remove(topic);
+    }
+
+    /**
+     * 清空订阅的主题.
+     *
+     * @return 清空前订阅的主题
+     */
+    List<String> clearTopics() {
+        List<String> removed = List.copyOf(topics);
+        topics.removeAll(removed);
+        return removed;
+    }
+
+    private static int indexOf(SseEmitterWrapper[] connections, SseEmitterWrapper connection) {
+        for (int i = 0; i < connections.length; i++) {
+            if (connections[i] == connection) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,101 @@
+package me.ziyframework.web.sse;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+import org.springframework.util.Assert;
+
+/**
+ * 会话异步写出的配置和统计，同一个{@link SseManager}的会话共享.
+ * 每个会话的待发送队列非空时由一个虚拟线程逐个写出，队列为空后线程结束.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+final class SseDelivery {
+
+    static final int DEFAULT_QUEUE_CAPACITY = 256;
+
+    static final Duration DEFAULT_SLOW_CONSUMER_TIMEOUT = Duration.ofSeconds(30);
+
+    private static final Executor WRITER =
+            Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("sse-writer-", 0).factory());
+
+    private static final Consumer<SseEmitterWrapper> NO_OP = session -> {};
+
+    static final SseDelivery DEFAULT = new SseDelivery(
+            DEFAULT_QUEUE_CAPACITY, SseOverflowPolicy.DROP_OLDEST, DEFAULT_SLOW_CONSUMER_TIMEOUT, NO_OP);
+
+    private final int queueCapacity;
+
+    private final SseOverflowPolicy overflowPolicy;
+
+    private final long slowConsumerNanos;
+
+    /**
+     * 会话被断开(写出失败、队列溢出或写出过慢)时的回调.
+     */
+    private final Consumer<SseEmitterWrapper> evictionListener;
+
+    private final LongAdder droppedEvents = new LongAdder();
+
+    private final LongAdder evictedSessions = new LongAdder();
+
+    private final LongAdder conflatedEvents = new LongAdder();
+
+    SseDelivery(
+            int queueCapacity,
+            SseOverflowPolicy overflowPolicy,
+            Duration slowConsumerTimeout,
+            Consumer<SseEmitterWrapper> evictionListener) {
+        Assert.isTrue(queueCapacity > 0, "queueCapacity must be positive");
+        Assert.isTrue(slowConsumerTimeout.isPositive(), "slowConsumerTimeout must be positive");
+        this.queueCapacity = queueCapacity;
+        this.overflowPolicy = overflowPolicy;
+        this.slowConsumerNanos = slowConsumerTimeout.toNanos();
+        this.evictionListener = evictionListener;
+    }
+
+    int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    SseOverflowPolicy getOverflowPolicy() {
+        return overflowPolicy;
+    }
+
+    long getSlowConsumerNanos() {
+        return slowConsumerNanos;
+    }
+
+    void execute(Runnable task) {
+        WRITER.execute(task);
+    }
+
+    void dropped() {
+        droppedEvents.increment();
+    }
+
+    void evicted(SseEmitterWrapper session) {
+        evictedSessions.increment();
+        evictionListener.accept(session);
+    }
+
+    void conflated() {
+        conflatedEvents.increment();
+    }
+
+    long getDroppedEvents() {
+        return droppedEvents.sum();
+    }
+
+    long getEvictedSessions() {
+        return evictedSessions.sum();
+    }
+
+    long getConflatedEvents() {
+        return conflatedEvents.sum();
+    }
+}
@@ -2,9 +2,16 @@ package me.ziyframework.web.sse;
 
 import com.palantir.logsafe.SafeArg;
 import java.io.IOException;
+import java.util.AbstractSet;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.locks.ReentrantLock;
 import lombok.CustomLog;
-import me.ziyframework.web.common.exception.GlobalException;
+import org.jspecify.annotations.Nullable;
 import org.springframework.util.Assert;
 import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
@@ -12,6 +19,9 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEvent
 
 /**
  * 对SseEmitter包装类.
+ * 发送的事件进入有界的待发送队列后立即返回，由虚拟线程按顺序写出，客户端写出缓慢不会阻塞调用方和其他会话.
+ * 写出失败、队列溢出(策略为{@link SseOverflowPolicy#DISCONNECT})或单次写出超过慢消费者超时时间时断开会话.
+ * 带有合并键的事件在队列中已有同一个键的事件等待写出时原位替换，写出缓慢的会话只收到每个键最新的事件.
  * created in 2025-07
  *
  * @author ziy
@@ -24,13 +34,68 @@ public class SseEmitterWrapper {
 
     private final String clientId;
 
+    /**
+     * 连接id，同一个客户端的多个连接通过连接id区分.
+     */
+    private final long connectionId;
+
     private final SseEmitter sseEmitter;
 
+    private final SseDelivery delivery;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    /**
+     * 待发送的事件，由lock保护.
+     */
+    private final ArrayDeque<Set<DataWithMediaType>> queue = new ArrayDeque<>();
+
+    /**
+     * 队列中等待写出的可合并事件，按合并键索引，由lock保护.
+     */
+    private final Map<String, Conflated> pendingByKey = new HashMap<>();
+
+    /**
+     * 是否有虚拟线程正在写出队列，由lock保护.
+     */
+    private boolean writing;
+
+    /**
+     * 不再接收新的事件，由lock保护.
+     */
+    private boolean closed;
+
+    /**
+     * 已被断开，由lock保护.
+     */
+    private boolean evicted;
+
+    /**
+     * 当前写出开始的时间(纳秒)，没有正在进行的写出时为0.
+     */
+    private volatile long writeStartedAt;
+
+    /**
+     * 最近一次写出完成的时间(纳秒).
+     */
+    private volatile long lastWriteAt = System.nanoTime();
+
+    /**
+     * 在心跳时间轮中的槽位，未加入时为-1.
+     */
+    private volatile int heartbeatSlot = -1;
+
     public SseEmitterWrapper(String clientId, SseEmitter sseEmitter) {
+        this(clientId, 0, sseEmitter, SseDelivery.DEFAULT);
+    }
+
+    SseEmitterWrapper(String clientId, long connectionId, SseEmitter sseEmitter, SseDelivery delivery) {
         Assert.hasText(clientId, "clientId can not be null");
         Assert.notNull(sseEmitter, "sseEmitter can not be null");
         this.clientId = clientId;
+        this.connectionId = connectionId;
         this.sseEmitter = sseEmitter;
+        this.delivery = delivery;
     }
 
     /**
@@ -42,6 +107,14 @@ public class SseEmitterWrapper {
         return sseEmitter;
     }
 
+    public String getClientId() {
+        return clientId;
+    }
+
+    public long getConnectionId() {
+        return connectionId;
+    }
+
     /**
      * 发送数据.
      */
@@ -53,30 +126,346 @@ public class SseEmitterWrapper {
      * 发送事件.
      */
     public void send(SseEventBuilder eventBuilder) {
-        try {
-            sseEmitter.send(eventBuilder);
-        } catch (IOException ex) {
-            log.error("send message failed, clientId:<{}>", SafeArg.of("clientId", clientId), ex);
-            throw GlobalException.wrap(ex);
-        }
+        offer(eventBuilder.build());
+    }
+
+    /**
+     * 发送预先编码的事件帧，直接写出帧的字节.
+     */
+    public void send(SseFrame frame) {
+        offer(frame.items());
     }
 
     /**
      * 发送ping事件.
      */
     public void ping() {
+        offer(PING_EVENT);
+    }
+
+    /**
+     * 完成，已进入队列的事件写出后结束会话.
+     */
+    public void complete() {
+        boolean completeNow;
+        lock.lock();
         try {
-            sseEmitter.send(PING_EVENT);
-        } catch (IOException e) {
-            log.error("send ping failed, clientId:<{}>", SafeArg.of("clientId", clientId), e);
-            throw GlobalException.wrap(e);
+            closed = true;
+            completeNow = !writing;
+        } finally {
+            lock.unlock();
+        }
+        if (completeNow) {
+            sseEmitter.complete();
         }
     }
 
     /**
-     * 完成.
+     * 等待写出的事件数.
      */
-    public void complete() {
-        sseEmitter.complete();
+    public int getQueueDepth() {
+        lock.lock();
+        try {
+            return queue.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 会话是否已结束或正在结束.
+     */
+    public boolean isClosed() {
+        lock.lock();
+        try {
+            return closed;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 容器已结束会话(客户端断开、超时或完成)，丢弃未写出的事件.
+     */
+    void onCompleted() {
+        lock.lock();
+        try {
+            closed = true;
+            clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 心跳，最近一段时间内有写出时不需要ping.
+     *
+     * @param idleNanos 超过该时间没有写出时发送ping
+     * @return 会话是否仍然可用
+     */
+    boolean heartbeat(long idleNanos) {
+        if (System.nanoTime() - lastWriteAt < idleNanos) {
+            return true;
+        }
+        // 队列已满时ping可能被溢出策略丢弃，队列中仍有待写出的事件，会话依然可用
+        offer(PING_EVENT);
+        return !isClosed();
+    }
+
+    int getHeartbeatSlot() {
+        return heartbeatSlot;
+    }
+
+    void setHeartbeatSlot(int heartbeatSlot) {
+        this.heartbeatSlot = heartbeatSlot;
+    }
+
+    /**
+     * 事件进入待发送队列，队列已满时按溢出策略处理.
+     *
+     * @return 事件是否进入了队列
+     */
+    boolean offer(Set<DataWithMediaType> items) {
+        return offer(items, null);
+    }
+
+    /**
+     * 事件进入待发送队列，队列已满时按溢出策略处理.
+     * 队列中已有同一个合并键的事件等待写出时替换为新的事件，不占用队列长度.
+     *
+     * @param key 合并键，为null时不合并
+     * @return 事件是否进入了队列或替换了等待写出的事件
+     */
+    boolean offer(Set<DataWithMediaType> items, @Nullable String key) {
+        boolean accepted = true;
+        boolean conflated = false;
+        boolean dropped = false;
+        boolean overflow = false;
+        boolean startWriter = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return false;
+            }
+            Conflated pending = key == null ? null : pendingByKey.get(key);
+            if (pending != null) {
+                // 替换等待写出的事件，写出线程已在运行
+                pending.items = items;
+                conflated = true;
+            } else {
+                Set<DataWithMediaType> entry = items;
+                if (key != null) {
+                    Conflated created = new Conflated(key, items);
+                    pendingByKey.put(key, created);
+                    entry = created;
+                }
+                if (queue.size() < delivery.getQueueCapacity()) {
+                    queue.addLast(entry);
+                } else {
+                    switch (delivery.getOverflowPolicy()) {
+                        case DROP_OLDEST -> {
+                            poll();
+                            queue.addLast(entry);
+                            dropped = true;
+                        }
+                        case DROP_NEWEST -> {
+                            forget(entry);
+                            accepted = false;
+                            dropped = true;
+                        }
+                        case DISCONNECT -> overflow = true;
+                    }
+                }
+            }
+            if (!overflow && !writing) {
+                writing = true;
+                startWriter = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (overflow || isSlow()) {
+            evict(null);
+            return false;
+        }
+        if (dropped) {
+            delivery.dropped();
+        }
+        if (conflated) {
+            delivery.conflated();
+        }
+        if (startWriter) {
+            delivery.execute(this::drain);
+        }
+        return accepted;
+    }
+
+    /**
+     * 重放错过的事件，插入到待发送队列的最前面，已在队列中的事件不重复发送.
+     */
+    void replay(List<Set<DataWithMediaType>> events) {
+        boolean startWriter = false;
+        lock.lock();
+        try {
+            if (closed) {
+                return;
+            }
+            for (int i = events.size() - 1; i >= 0; i--) {
+                Set<DataWithMediaType> items = events.get(i);
+                if (!queued(items)) {
+                    queue.addFirst(items);
+                }
+            }
+            if (!writing && !queue.isEmpty()) {
+                writing = true;
+                startWriter = true;
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (startWriter) {
+            delivery.execute(this::drain);
+        }
+    }
+
+    /**
+     * 取出队列头部的事件，可合并的事件取出后不再合并.
+     */
+    private @Nullable Set<DataWithMediaType> poll() {
+        Set<DataWithMediaType> items = queue.pollFirst();
+        if (items instanceof Conflated entry) {
+            forget(entry);
+            return entry.items;
+        }
+        return items;
+    }
+
+    private void forget(Set<DataWithMediaType> entry) {
+        if (entry instanceof Conflated conflated) {
+            pendingByKey.remove(conflated.key, conflated);
+        }
+    }
+
+    private void clear() {
+        queue.clear();
+        pendingByKey.clear();
+    }
+
+    /**
+     * 事件是否已在队列中，同一个事件发送给所有会话的是同一个对象.
+     */
+    private boolean queued(Set<DataWithMediaType> items) {
+        for (Set<DataWithMediaType> queued : queue) {
+            if (queued == items || (queued instanceof Conflated entry && entry.items == items)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 断开会话，丢弃未写出的事件.<br />
+     * 调用方可能是发布事件的线程或心跳线程，在锁内标记后立即返回；
+     * 结束SseEmitter需要等待其写锁(慢速客户端的写出可能一直阻塞)，交给写出线程执行.
+     */
+    void evict(@Nullable Throwable cause) {
+        lock.lock();
+        try {
+            if (evicted) {
+                return;
+            }
+            evicted = true;
+            closed = true;
+            clear();
+        } finally {
+            lock.unlock();
+        }
+        log.debug(
+                "sse session evicted, clientId:<{}>, connectionId:<{}>, cause:<{}>",
+                SafeArg.of("clientId", clientId),
+                SafeArg.of("connectionId", connectionId),
+                SafeArg.of("cause", cause == null ? "slow consumer" : cause.toString()));
+        delivery.evicted(this);
+        delivery.execute(() -> {
+            if (cause == null) {
+                sseEmitter.complete();
+            } else {
+                sseEmitter.completeWithError(cause);
+            }
+        });
+    }
+
+    private boolean isSlow() {
+        long startedAt = writeStartedAt;
+        return startedAt != 0 && System.nanoTime() - startedAt > delivery.getSlowConsumerNanos();
+    }
+
+    /**
+     * 写出队列中的事件直到队列为空，在虚拟线程中运行.
+     */
+    private void drain() {
+        while (true) {
+            Set<DataWithMediaType> items;
+            boolean completeNow = false;
+            lock.lock();
+            try {
+                items = poll();
+                if (items == null) {
+                    writing = false;
+                    completeNow = closed && !evicted;
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (items == null) {
+                if (completeNow) {
+                    sseEmitter.complete();
+                }
+                return;
+            }
+            writeStartedAt = System.nanoTime();
+            try {
+                sseEmitter.send(items);
+                lastWriteAt = System.nanoTime();
+            } catch (IOException | RuntimeException ex) {
+                // 写出失败只影响当前会话
+                lock.lock();
+                try {
+                    writing = false;
+                } finally {
+                    lock.unlock();
+                }
+                evict(ex);
+                return;
+            } finally {
+                writeStartedAt = 0;
+            }
+        }
+    }
+
+    /**
+     * 队列中等待写出的可合并事件，写出前可以被同一个键的新事件替换，由lock保护.
+     * 作为队列元素保存，使普通事件的入队和写出不需要额外的包装对象.
+     */
+    private static final class Conflated extends AbstractSet<DataWithMediaType> {
+
+        private final String key;
+
+        private Set<DataWithMediaType> items;
+
+        Conflated(String key, Set<DataWithMediaType> items) {
+            this.key = key;
+            this.items = items;
+        }
+
+        @Override
+        public Iterator<DataWithMediaType> iterator() {
+            return items.iterator();
+        }
+
+        @Override
+        public int size() {
+            return items.size();
+        }
     }
 }
@@ -0,0 +1,200 @@
+package me.ziyframework.web.sse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Set;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.utils.JsonUtil;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.MediaType;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+/**
+ * 预先编码的SSE事件帧(不可变).
+ * {@code id:}、{@code event:}、{@code data:}按SSE格式一次编码为字节，广播时所有会话写出同一份字节，
+ * 不再为每个会话重复序列化和逐个部分查找消息转换器(字节数组由ByteArrayHttpMessageConverter直接写出).
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public final class SseFrame {
+
+    private static final byte[] ID = "id:".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+
+    private static final byte[] DATA = "data:".getBytes(StandardCharsets.UTF_8);
+
+    private final @Nullable String id;
+
+    private final @Nullable String event;
+
+    private final byte[] bytes;
+
+    /**
+     * 写出时直接交给SseEmitter的数据，所有会话共享.
+     */
+    private final Set<DataWithMediaType> items;
+
+    private SseFrame(@Nullable String id, @Nullable String event, byte[] bytes) {
+        this.id = id;
+        this.event = event;
+        this.bytes = bytes;
+        this.items = Set.of(new DataWithMediaType(bytes, MediaType.TEXT_EVENT_STREAM));
+    }
+
+    /**
+     * 编码文本数据，多行数据按行拆分为多个{@code data:}.
+     *
+     * @param id 事件id，为null时不发送
+     * @param event 事件名，为null时不发送(客户端作为message事件处理)
+     * @param data 数据
+     */
+    public static SseFrame of(@Nullable String id, @Nullable String event, String data) {
+        checkField(id);
+        checkField(event);
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length() + 32);
+        if (id != null) {
+            writeLine(out, ID, id);
+        }
+        if (event != null) {
+            writeLine(out, EVENT, event);
+        }
+        int start = 0;
+        int end;
+        while ((end = data.indexOf('\n', start)) >= 0) {
+            writeLine(out, DATA, data.substring(start, end));
+            start = end + 1;
+        }
+        writeLine(out, DATA, data.substring(start));
+        out.write('\n');
+        return new SseFrame(id, event, out.toByteArray());
+    }
+
+    /**
+     * 数据序列化为JSON后编码.
+     */
+    public static SseFrame json(ObjectMapper objectMapper, @Nullable String id, @Nullable String event, Object data) {
+        try {
+            return of(id, event, objectMapper.writeValueAsString(data));
+        } catch (JsonProcessingException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 将事件构建器构建的事件编码为字节，不解析其中的id和event.
+     * 字符串(包括SSE字段)和字节数组直接写出，其他对象数据使用Spring的ObjectMapper序列化为JSON，
+     * 与SseEmitter写出对象数据时默认使用的消息转换器一致.
+     */
+    static SseFrame encode(Set<DataWithMediaType> items) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        for (DataWithMediaType item : items) {
+            Object data = item.getData();
+            if (data instanceof CharSequence text) {
+                out.writeBytes(text.toString().getBytes(StandardCharsets.UTF_8));
+            } else if (data instanceof byte[] bytes) {
+                out.writeBytes(bytes);
+            } else {
+                out.writeBytes(JsonUtil.toJsonBytesSpring(data));
+            }
+        }
+        return new SseFrame(null, null, out.toByteArray());
+    }
+
+    /**
+     * 以新的事件id重新编码该帧.
+     */
+    public SseFrame withId(String newId) {
+        checkField(newId);
+        int skip = 0;
+        if (id != null) {
+            skip = ID.length + id.getBytes(StandardCharsets.UTF_8).length + 1;
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length + newId.length() + ID.length + 1);
+        writeLine(out, ID, newId);
+        out.write(bytes, skip, bytes.length - skip);
+        return new SseFrame(newId, event, out.toByteArray());
+    }
+
+    public @Nullable String getId() {
+        return id;
+    }
+
+    public @Nullable String getEvent() {
+        return event;
+    }
+
+    /**
+     * 编码后的字节数.
+     */
+    public int size() {
+        return bytes.length;
+    }
+
+    /**
+     * 编码后的字节(只读).
+     */
+    public ByteBuffer asByteBuffer() {
+        return ByteBuffer.wrap(bytes).asReadOnlyBuffer();
+    }
+
+    Set<DataWithMediaType> items() {
+        return items;
+    }
+
+    /**
+     * 编码后的字节，调用方不能修改.
+     */
+    byte[] bytes() {
+        return bytes;
+    }
+
+    /**
+     * 从编码后的字节还原帧(例如其他节点发布的帧)，读取开头的{@code id:}和{@code event:}.
+     */
+    static SseFrame parse(byte[] bytes) {
+        int length = bytes.length;
+        Assert.isTrue(
+                length >= 2 && bytes[length - 1] == '\n' && bytes[length - 2] == '\n', "incomplete sse frame");
+        @Nullable String id = null;
+        @Nullable String event = null;
+        int start = 0;
+        while (start < length) {
+            int end = start;
+            while (bytes[end] != '\n') {
+                end++;
+            }
+            if (id == null && startsWith(bytes, start, ID)) {
+                id = new String(bytes, start + ID.length, end - start - ID.length, StandardCharsets.UTF_8);
+            } else if (event == null && startsWith(bytes, start, EVENT)) {
+                event = new String(bytes, start + EVENT.length, end - start - EVENT.length, StandardCharsets.UTF_8);
+            } else {
+                break;
+            }
+            start = end + 1;
+        }
+        return new SseFrame(id, event, bytes);
+    }
+
+    private static boolean startsWith(byte[] bytes, int offset, byte[] prefix) {
+        return Arrays.equals(bytes, offset, Math.min(offset + prefix.length, bytes.length), prefix, 0, prefix.length);
+    }
+
+    private static void writeLine(ByteArrayOutputStream out, byte[] field, String value) {
+        out.writeBytes(field);
+        out.writeBytes(value.getBytes(StandardCharsets.UTF_8));
+        out.write('\n');
+    }
+
+    private static void checkField(@Nullable String value) {
+        Assert.isTrue(
+                value == null || (value.indexOf('\n') < 0 && value.indexOf('\r') < 0),
+                "sse field can not contain line breaks");
+    }
+}
@@ -0,0 +1,116 @@
+package me.ziyframework.web.sse;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import lombok.CustomLog;
+import org.springframework.util.Assert;
+
+/**
+ * SSE心跳，使用单个时间轮定时器.
+ * 时间轮的一圈等于心跳间隔，会话注册时随机分配到一个槽，每个刻度只ping该槽中的会话，
+ * 大量会话的心跳分散在整个间隔内，不会在同一时刻集中写出.
+ * 心跳只是进入会话的待发送队列，写出失败的会话由写出线程立即断开并从时间轮移除.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@CustomLog
+final class SseHeartbeat implements AutoCloseable {
+
+    /**
+     * 刻度的最小间隔.
+     */
+    private static final long MIN_TICK_NANOS = Duration.ofMillis(100).toNanos();
+
+    /**
+     * 时间轮最多的槽数.
+     */
+    private static final int MAX_SLOTS = 1024;
+
+    private final Set<SseEmitterWrapper>[] wheel;
+
+    private final long tickNanos;
+
+    /**
+     * 最近一段时间内有写出的会话不需要ping.
+     */
+    private final long idleNanos;
+
+    private final Thread worker;
+
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    SseHeartbeat(Duration interval) {
+        Assert.isTrue(interval.isPositive(), "heartbeat interval must be positive");
+        long intervalNanos = interval.toNanos();
+        int slots = Math.clamp(intervalNanos / MIN_TICK_NANOS, 1, MAX_SLOTS);
+        this.wheel = new Set[slots];
+        for (int i = 0; i < slots; i++) {
+            wheel[i] = ConcurrentHashMap.newKeySet();
+        }
+        this.tickNanos = intervalNanos / slots;
+        this.idleNanos = intervalNanos / 2;
+        this.worker = Thread.ofPlatform().daemon().name("sse-heartbeat").unstarted(this::run);
+    }
+
+    void start() {
+        worker.start();
+    }
+
+    /**
+     * 会话加入时间轮，随机分配槽位.
+     */
+    void add(SseEmitterWrapper session) {
+        if (session.getHeartbeatSlot() >= 0) {
+            return;
+        }
+        int slot = ThreadLocalRandom.current().nextInt(wheel.length);
+        session.setHeartbeatSlot(slot);
+        wheel[slot].add(session);
+    }
+
+    void remove(SseEmitterWrapper session) {
+        int slot = session.getHeartbeatSlot();
+        if (slot >= 0) {
+            wheel[slot].remove(session);
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(worker);
+    }
+
+    private void run() {
+        long deadline = System.nanoTime();
+        int cursor = 0;
+        while (running) {
+            deadline += tickNanos;
+            long wait;
+            while (running && (wait = deadline - System.nanoTime()) > 0) {
+                LockSupport.parkNanos(this, wait);
+            }
+            if (!running) {
+                return;
+            }
+            Set<SseEmitterWrapper> bucket = wheel[cursor];
+            cursor = cursor + 1 == wheel.length ? 0 : cursor + 1;
+            for (SseEmitterWrapper session : bucket) {
+                try {
+                    if (!session.heartbeat(idleNanos)) {
+                        // 会话已结束
+                        bucket.remove(session);
+                    }
+                } catch (RuntimeException ex) {
+                    log.warn("sse heartbeat failed", ex);
+                    bucket.remove(session);
+                }
+            }
+        }
+    }
+}
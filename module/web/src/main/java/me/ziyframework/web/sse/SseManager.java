@@ -2,16 +2,30 @@ package me.ziyframework.web.sse;
 
 import com.github.benmanes.caffeine.cache.Cache;
 import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
 import com.palantir.logsafe.SafeArg;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
 import lombok.CustomLog;
+import me.ziyframework.web.sse.broker.SseBroker;
+import org.jspecify.annotations.Nullable;
 import org.springframework.util.Assert;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEventBuilder;
 
 /**
  * SSE会话管理器.
+ * 同一个客户端ID可以有多个连接(多个标签页或设备)，发送给客户端的事件写给它的所有连接，单个连接结束不影响其他连接.
+ * 发送方法只将事件放入各连接的有界队列，由每个连接的虚拟线程异步写出，单个连接写出失败或缓慢不影响其他连接.
+ * 设置{@link SseBroker}后，{@link SseFrame}的广播、主题发布和发送给指定客户端同时分发到其他节点.
+ * 带有合并键的发送方法用于高频更新同一个数据(例如价格、进度)：连接的队列中已有同一个键的事件等待写出时原位替换，
+ * 写出缓慢的连接只收到每个键最新的事件而不会积压.
  * created in 2025-07
  *
  * @author ziy
@@ -19,17 +33,95 @@ import org.springframework.web.servlet.mvc.method.annotation.SseEmitter.SseEvent
 @CustomLog
 public class SseManager {
 
+    /**
+     * 每个客户端默认最多的连接数.
+     */
+    public static final int DEFAULT_MAX_CONNECTIONS = 8;
+
+    /**
+     * 客户端重连时携带的最后收到的事件id的请求头.
+     */
+    public static final String LAST_EVENT_ID = "Last-Event-ID";
+
+    /**
+     * 无法重放错过的事件时发送的事件名，客户端收到后需要全量同步数据.
+     */
+    public static final String RESYNC_EVENT = "resync";
+
+    private static final SseFrame RESYNC = SseFrame.of(null, RESYNC_EVENT, RESYNC_EVENT);
+
     /**
      * SSE会话池.
      */
-    private final Cache<String, SseEmitterWrapper> ssePool;
+    private final Cache<String, SseClient> ssePool;
+
+    private final SseDelivery delivery;
+
+    /**
+     * 每个客户端最多的连接数，超过时断开最早的连接.
+     */
+    private final int maxConnections;
+
+    private final AtomicLong connectionIds = new AtomicLong();
+
+    /**
+     * 主题到订阅会话的倒排索引.
+     */
+    private final SseTopicIndex topicIndex = new SseTopicIndex();
+
+    private volatile @Nullable SseHeartbeat heartbeat;
+
+    private volatile @Nullable SseReplay replay;
+
+    private volatile @Nullable SseBroker broker;
 
     public SseManager() {
-        this.ssePool = Caffeine.newBuilder().build();
+        this(0);
     }
 
     public SseManager(int maxSession) {
-        this.ssePool = Caffeine.newBuilder().maximumSize(maxSession).build();
+        this(
+                maxSession,
+                SseDelivery.DEFAULT_QUEUE_CAPACITY,
+                SseOverflowPolicy.DROP_OLDEST,
+                SseDelivery.DEFAULT_SLOW_CONSUMER_TIMEOUT);
+    }
+
+    /**
+     * 创建SSE会话管理器.
+     *
+     * @param maxSession 最大会话数，小于等于0时不限制
+     * @param queueCapacity 每个会话最多等待写出的事件数
+     * @param overflowPolicy 会话的待发送队列已满时的处理策略
+     * @param slowConsumerTimeout 单次写出超过该时间的会话视为慢消费者，在下次发送时断开
+     */
+    public SseManager(
+            int maxSession, int queueCapacity, SseOverflowPolicy overflowPolicy, Duration slowConsumerTimeout) {
+        this(maxSession, DEFAULT_MAX_CONNECTIONS, queueCapacity, overflowPolicy, slowConsumerTimeout);
+    }
+
+    /**
+     * 创建SSE会话管理器.
+     *
+     * @param maxSession 最大客户端数，小于等于0时不限制
+     * @param maxConnections 每个客户端最多的连接数，超过时断开最早的连接，小于等于0时不限制
+     * @param queueCapacity 每个连接最多等待写出的事件数
+     * @param overflowPolicy 连接的待发送队列已满时的处理策略
+     * @param slowConsumerTimeout 单次写出超过该时间的连接视为慢消费者，在下次发送时断开
+     */
+    public SseManager(
+            int maxSession,
+            int maxConnections,
+            int queueCapacity,
+            SseOverflowPolicy overflowPolicy,
+            Duration slowConsumerTimeout) {
+        Caffeine<String, SseClient> builder = Caffeine.newBuilder().removalListener(this::onRemoval);
+        if (maxSession > 0) {
+            builder.maximumSize(maxSession);
+        }
+        this.ssePool = builder.build();
+        this.maxConnections = maxConnections;
+        this.delivery = new SseDelivery(queueCapacity, overflowPolicy, slowConsumerTimeout, this::remove);
     }
 
     /**
@@ -39,9 +131,7 @@ public class SseManager {
      * @param data 数据
      */
     public void send(Collection<String> clientIds, Object data) {
-        clientIds.stream().distinct().forEach(clientId -> {
-            getIfPresent(clientId).ifPresent(sseEmitter -> sseEmitter.send(data));
-        });
+        send(clientIds, SseEmitter.event().data(data));
     }
 
     /**
@@ -51,8 +141,78 @@ public class SseManager {
      * @param eventBuilder 数据
      */
     public void send(Collection<String> clientIds, SseEventBuilder eventBuilder) {
+        send(clientIds, null, eventBuilder);
+    }
+
+    /**
+     * 发送可合并的事件给指定客户端，连接中同一个合并键等待写出的事件被替换.
+     *
+     * @param clientIds 客户端ID
+     * @param key 合并键，为null时不合并
+     * @param eventBuilder 事件
+     */
+    public void send(Collection<String> clientIds, @Nullable String key, SseEventBuilder eventBuilder) {
+        SseReplay current = replay;
+        if (current == null) {
+            send(clientIds, null, 0, eventBuilder.build(), 0, key);
+            return;
+        }
+        long id = current.nextId();
+        SseFrame frame = SseFrame.encode(eventBuilder.id(current.format(id)).build());
+        send(clientIds, current, id, frame.items(), frame.size(), key);
+    }
+
+    /**
+     * 发送预先编码的事件帧给指定客户端.
+     *
+     * @param clientIds 客户端ID
+     * @param frame 事件帧
+     */
+    public void send(Collection<String> clientIds, SseFrame frame) {
+        send(clientIds, null, frame);
+    }
+
+    /**
+     * 发送可合并的事件帧给指定客户端，连接中同一个合并键等待写出的事件被替换.
+     * 设置了{@link SseBroker}时同时发送给连接在其他节点上的同一客户端.
+     *
+     * @param clientIds 客户端ID
+     * @param key 合并键，为null时不合并
+     * @param frame 事件帧
+     */
+    public void send(Collection<String> clientIds, @Nullable String key, SseFrame frame) {
+        sendLocal(clientIds, key, frame);
+        SseBroker current = broker;
+        if (current != null) {
+            clientIds.stream()
+                    .distinct()
+                    .forEach(clientId -> current.publish(SseBroker.CLIENT_TOPIC_PREFIX + clientId, key, frame.bytes()));
+        }
+    }
+
+    private void sendLocal(Collection<String> clientIds, @Nullable String key, SseFrame frame) {
+        SseReplay current = replay;
+        if (current == null) {
+            send(clientIds, null, 0, frame.items(), 0, key);
+            return;
+        }
+        long id = current.nextId();
+        SseFrame framed = frame.withId(current.format(id));
+        send(clientIds, current, id, framed.items(), framed.size(), key);
+    }
+
+    private void send(
+            Collection<String> clientIds,
+            @Nullable SseReplay current,
+            long id,
+            Set<DataWithMediaType> items,
+            int size,
+            @Nullable String key) {
         clientIds.stream().distinct().forEach(clientId -> {
-            getIfPresent(clientId).ifPresent(sseEmitter -> sseEmitter.send(eventBuilder));
+            if (current != null) {
+                current.record(SseReplay.clientStream(clientId), id, items, size);
+            }
+            getIfPresent(clientId).ifPresent(client -> client.offer(items, key));
         });
     }
 
@@ -62,7 +222,7 @@ public class SseManager {
      * @param data 数据
      */
     public void sendAll(Object data) {
-        ssePool.asMap().values().forEach(sseEmitter -> sseEmitter.send(data));
+        sendAll(SseEmitter.event().data(data));
     }
 
     /**
@@ -71,72 +231,462 @@ public class SseManager {
      * @param eventBuilder 数据
      */
     public void sendAll(SseEventBuilder eventBuilder) {
-        ssePool.asMap().values().forEach(sseEmitter -> sseEmitter.send(eventBuilder));
+        sendAll(null, eventBuilder);
+    }
+
+    /**
+     * 发送可合并的事件给所有客户端，连接中同一个合并键等待写出的事件被替换.
+     *
+     * @param key 合并键，为null时不合并
+     * @param eventBuilder 事件
+     */
+    public void sendAll(@Nullable String key, SseEventBuilder eventBuilder) {
+        // 事件只构建一次，所有会话共享
+        Set<DataWithMediaType> items = encode(SseReplay.BROADCAST_STREAM, eventBuilder);
+        ssePool.asMap().values().forEach(client -> client.offer(items, key));
+    }
+
+    /**
+     * 广播预先编码的事件帧给所有客户端.
+     * 数据只序列化一次，所有会话写出同一份字节，适合大量会话的广播.设置了{@link SseBroker}时同时广播到其他节点.
+     *
+     * @param frame 事件帧
+     */
+    public void sendAll(SseFrame frame) {
+        sendAll(null, frame);
+    }
+
+    /**
+     * 广播可合并的事件帧给所有客户端，连接中同一个合并键等待写出的事件被替换.
+     *
+     * @param key 合并键，为null时不合并
+     * @param frame 事件帧
+     */
+    public void sendAll(@Nullable String key, SseFrame frame) {
+        broadcast(frame, key);
+        SseBroker current = broker;
+        if (current != null) {
+            current.publish(SseBroker.BROADCAST_TOPIC, key, frame.bytes());
+        }
+    }
+
+    private void broadcast(SseFrame frame, @Nullable String key) {
+        Set<DataWithMediaType> items = encode(SseReplay.BROADCAST_STREAM, frame);
+        ssePool.asMap().values().forEach(client -> client.offer(items, key));
+    }
+
+    /**
+     * 客户端订阅主题，订阅对客户端的所有连接(包括之后建立的连接)生效.
+     * 主题以{@code .}分隔层级，{@code *}匹配一个层级，{@code #}作为最后一级匹配剩余的任意层级，例如{@code order.#}.
+     * 客户端的所有连接结束时自动取消所有订阅.
+     *
+     * @param clientId 客户端ID
+     * @param topic 主题
+     */
+    public void subscribe(String clientId, String topic) {
+        getIfPresent(clientId).ifPresent(client -> topicIndex.subscribe(client, topic));
+    }
+
+    /**
+     * 客户端取消订阅主题.
+     *
+     * @param clientId 客户端ID
+     * @param topic 订阅时的主题
+     */
+    public void unsubscribe(String clientId, String topic) {
+        getIfPresent(clientId).ifPresent(client -> topicIndex.unsubscribe(client, topic));
+    }
+
+    /**
+     * 发布数据给订阅了主题的会话.
+     *
+     * @param topic 主题，不能包含通配符
+     * @param data 数据
+     */
+    public void publish(String topic, Object data) {
+        publish(topic, SseEmitter.event().data(data));
+    }
+
+    /**
+     * 发布事件给订阅了主题的会话.
+     *
+     * @param topic 主题，不能包含通配符
+     * @param eventBuilder 事件
+     */
+    public void publish(String topic, SseEventBuilder eventBuilder) {
+        publish(topic, null, eventBuilder);
+    }
+
+    /**
+     * 发布可合并的事件给订阅了主题的会话，连接中同一个合并键等待写出的事件被替换.
+     *
+     * @param topic 主题，不能包含通配符
+     * @param key 合并键，为null时不合并
+     * @param eventBuilder 事件
+     */
+    public void publish(String topic, @Nullable String key, SseEventBuilder eventBuilder) {
+        publish(topic, encode(SseReplay.topicStream(topic), eventBuilder), key);
+    }
+
+    /**
+     * 发布预先编码的事件帧给订阅了主题的会话.设置了{@link SseBroker}时同时发布到其他节点.
+     *
+     * @param topic 主题，不能包含通配符
+     * @param frame 事件帧
+     */
+    public void publish(String topic, SseFrame frame) {
+        publish(topic, null, frame);
+    }
+
+    /**
+     * 发布可合并的事件帧给订阅了主题的会话，连接中同一个合并键等待写出的事件被替换.
+     * 设置了{@link SseBroker}时同时发布到其他节点，其他节点同样按合并键合并.
+     *
+     * @param topic 主题，不能包含通配符
+     * @param key 合并键，为null时不合并
+     * @param frame 事件帧
+     */
+    public void publish(String topic, @Nullable String key, SseFrame frame) {
+        publish(topic, encode(SseReplay.topicStream(topic), frame), key);
+        SseBroker current = broker;
+        if (current != null) {
+            current.publish(topic, key, frame.bytes());
+        }
+    }
+
+    private void publish(String topic, Set<DataWithMediaType> items, @Nullable String key) {
+        topicIndex.forEachSubscriber(topic, client -> client.offer(items, key));
+    }
+
+    /**
+     * 启用事件重放时为事件分配id并保存到流的缓冲区.
+     * 事件编码为字节后保存，重放时写出与实时发送相同的字节，缓冲区不持有对象数据，字节数计入上限.
+     */
+    private Set<DataWithMediaType> encode(String stream, SseEventBuilder eventBuilder) {
+        SseReplay current = replay;
+        if (current == null) {
+            return eventBuilder.build();
+        }
+        long id = current.nextId();
+        SseFrame frame = SseFrame.encode(eventBuilder.id(current.format(id)).build());
+        current.record(stream, id, frame.items(), frame.size());
+        return frame.items();
+    }
+
+    private Set<DataWithMediaType> encode(String stream, SseFrame frame) {
+        SseReplay current = replay;
+        if (current == null) {
+            return frame.items();
+        }
+        long id = current.nextId();
+        SseFrame framed = frame.withId(current.format(id));
+        current.record(stream, id, framed.items(), framed.size());
+        return framed.items();
+    }
+
+    /**
+     * 启用断线重连的事件重放.
+     * 之后发送给客户端、主题和所有客户端的事件带有单调递增的id，并保存在每个流(客户端、主题、广播)的环形缓冲区中，
+     * 事件自带的id会被替换.事件构建器的对象数据在发送时即使用Spring的ObjectMapper序列化，不再经过会话的消息转换器.
+     *
+     * @param capacity 每个流最多保存的事件数
+     * @param maxBytes 每个流最多保存的已编码事件的字节数
+     * @param maxStreams 最多保存的流数量
+     * @param retention 流超过该时间没有新事件也没有重放时丢弃
+     */
+    public synchronized void enableReplay(int capacity, long maxBytes, int maxStreams, Duration retention) {
+        Assert.state(replay == null, "sse replay already enabled");
+        replay = new SseReplay(capacity, maxBytes, maxStreams, retention);
+    }
+
+    /**
+     * 设置跨节点的消息分发.
+     * 之后{@link SseFrame}的广播、主题发布和发送给指定客户端同时分发到其他节点，其他节点发布的事件投递给本节点的会话；
+     * 事件构建器和对象数据只发送给本节点的会话.启用事件重放时每个节点为收到的事件分配自己的id.
+     *
+     * @param broker 消息分发
+     */
+    public synchronized void setBroker(SseBroker broker) {
+        Assert.notNull(broker, "broker can not be null");
+        Assert.state(this.broker == null, "sse broker already set");
+        this.broker = broker;
+        broker.subscribe(this::onBrokerMessage);
+    }
+
+    /**
+     * 其他节点发布的事件，本节点没有订阅者时不解析事件帧.
+     * 发送给指定客户端的事件只投递给本节点的该客户端；启用事件重放时与本节点的发送一样总是保存，
+     * 客户端重连到本节点时可以重放断开期间其他节点发送的事件.
+     */
+    private void onBrokerMessage(String topic, @Nullable String key, byte[] frame) {
+        if (SseBroker.BROADCAST_TOPIC.equals(topic)) {
+            broadcast(SseFrame.parse(frame), key);
+        } else if (topic.startsWith(SseBroker.CLIENT_TOPIC_PREFIX)) {
+            String clientId = topic.substring(SseBroker.CLIENT_TOPIC_PREFIX.length());
+            if (replay != null || ssePool.getIfPresent(clientId) != null) {
+                sendLocal(List.of(clientId), key, SseFrame.parse(frame));
+            }
+        } else if (topicIndex.hasSubscribers(topic)) {
+            publish(topic, encode(SseReplay.topicStream(topic), SseFrame.parse(frame)), key);
+        }
     }
 
     /**
-     * 获取指定客户端的SSE会话.
+     * 客户端重连后重放错过的事件，应在恢复主题订阅之后调用.
+     * 重放客户端、订阅的主题和广播中{@code lastEventId}之后的事件；错过的事件已被淘汰、事件id来自重启前的服务
+     * 或错过的事件超过连接的队列长度时，发送{@value #RESYNC_EVENT}事件通知客户端全量同步.
+     *
+     * @param connection 新建立的连接
+     * @param lastEventId {@value #LAST_EVENT_ID}请求头，为空时不需要重放
+     */
+    public void resume(SseEmitterWrapper connection, @Nullable String lastEventId) {
+        SseReplay current = replay;
+        if (current == null || lastEventId == null || lastEventId.isEmpty()) {
+            return;
+        }
+        String clientId = connection.getClientId();
+        List<String> streams = new ArrayList<>();
+        streams.add(SseReplay.clientStream(clientId));
+        streams.add(SseReplay.BROADCAST_STREAM);
+        SseClient client = ssePool.getIfPresent(clientId);
+        if (client != null) {
+            for (String topic : client.getTopics()) {
+                if (SseTopicIndex.isPattern(topic)) {
+                    streams.addAll(current.topicStreams(candidate -> SseTopicIndex.matches(topic, candidate)));
+                } else {
+                    streams.add(SseReplay.topicStream(topic));
+                }
+            }
+        }
+        List<Set<DataWithMediaType>> events = current.collect(streams, lastEventId);
+        if (events == null || events.size() > delivery.getQueueCapacity()) {
+            log.debug(
+                    "sse replay missed, clientId:<{}>, connectionId:<{}>",
+                    SafeArg.of("clientId", clientId),
+                    SafeArg.of("connectionId", connection.getConnectionId()));
+            connection.send(RESYNC);
+            return;
+        }
+        connection.replay(events);
+    }
+
+    /**
+     * 启动心跳，按固定间隔向没有其他写出的连接发送ping事件.
+     * 所有连接共享一个时间轮定时器，心跳分散在整个间隔内发送，ping写出失败的连接立即被移除.
+     *
+     * @param interval 心跳间隔
+     */
+    public synchronized void startHeartbeat(Duration interval) {
+        Assert.state(heartbeat == null, "sse heartbeat already started");
+        SseHeartbeat created = new SseHeartbeat(interval);
+        heartbeat = created;
+        ssePool.asMap().values().forEach(client -> client.getConnections().forEach(created::add));
+        created.start();
+    }
+
+    /**
+     * 停止心跳.
+     */
+    public synchronized void close() {
+        SseHeartbeat current = heartbeat;
+        if (current != null) {
+            heartbeat = null;
+            current.close();
+        }
+    }
+
+    /**
+     * 当前客户端数.
+     */
+    public long getClientCount() {
+        return ssePool.estimatedSize();
+    }
+
+    /**
+     * 当前连接数.
+     */
+    public long getConnectionCount() {
+        long count = 0;
+        for (SseClient client : ssePool.asMap().values()) {
+            count += client.getConnectionCount();
+        }
+        return count;
+    }
+
+    /**
+     * 所有连接等待写出的事件总数.
+     */
+    public long getQueuedEvents() {
+        long queued = 0;
+        for (SseClient client : ssePool.asMap().values()) {
+            for (SseEmitterWrapper connection : client.getConnections()) {
+                queued += connection.getQueueDepth();
+            }
+        }
+        return queued;
+    }
+
+    /**
+     * 等待写出的事件最多的连接的队列长度.
+     */
+    public int getMaxQueueDepth() {
+        int max = 0;
+        for (SseClient client : ssePool.asMap().values()) {
+            for (SseEmitterWrapper connection : client.getConnections()) {
+                max = Math.max(max, connection.getQueueDepth());
+            }
+        }
+        return max;
+    }
+
+    /**
+     * 因队列已满被丢弃的事件数.
+     */
+    public long getDroppedEvents() {
+        return delivery.getDroppedEvents();
+    }
+
+    /**
+     * 被同一个合并键的新事件替换、没有写出的事件数.
+     */
+    public long getConflatedEvents() {
+        return delivery.getConflatedEvents();
+    }
+
+    /**
+     * 因写出失败、队列溢出或写出缓慢被断开的连接数.
+     */
+    public long getEvictedSessions() {
+        return delivery.getEvictedSessions();
+    }
+
+    /**
+     * 获取指定客户端.
      *
      * @param clientId 客户端id
-     * @return SSE会话
+     * @return 客户端，没有连接时为空
      */
-    public Optional<SseEmitterWrapper> getIfPresent(String clientId) {
+    public Optional<SseClient> getIfPresent(String clientId) {
         return Optional.ofNullable(ssePool.getIfPresent(clientId));
     }
 
     /**
-     * 删除SSE会话.
+     * 删除客户端，结束它的所有连接.
      *
      * @param clientId 客户端ID
      */
     public void unRegister(String clientId) {
         Assert.hasText(clientId, "clientId can not be null");
-        SseEmitterWrapper sseEmitter = ssePool.getIfPresent(clientId);
-        if (sseEmitter != null) {
+        SseClient client = ssePool.getIfPresent(clientId);
+        if (client != null) {
             try {
-                sseEmitter.complete();
+                client.complete();
             } finally {
-                ssePool.invalidate(clientId);
+                ssePool.asMap().remove(clientId, client);
             }
         }
     }
 
     /**
-     * 获取SSE会话,采用默认超时时间.
+     * 为客户端建立新的连接,采用默认超时时间.
      *
      * @param clientId 客户端ID
-     * @return SSE会话
+     * @return 新的连接
      */
     public SseEmitterWrapper register(String clientId) {
         Assert.hasText(clientId, "clientId can not be null");
-        return ssePool.get(clientId, cid -> wrap(new SseEmitter(), clientId));
+        return connect(clientId, new SseEmitter());
     }
 
     /**
-     * 获取SSE会话.
+     * 为客户端建立新的连接.
      *
      * @param clientId 客户端ID
      * @param timeout sse超时时间(单位：毫秒). 默认采用服务端配置.
-     * @return SSE会话
+     * @return 新的连接
      */
     public SseEmitterWrapper register(String clientId, long timeout) {
         Assert.hasText(clientId, "clientId can not be null");
-        return ssePool.get(clientId, cid -> wrap(new SseEmitter(timeout), clientId));
+        return connect(clientId, new SseEmitter(timeout));
+    }
+
+    private SseEmitterWrapper connect(String clientId, SseEmitter sseEmitter) {
+        SseEmitterWrapper connection = wrap(sseEmitter, clientId);
+        while (true) {
+            SseClient client = ssePool.get(clientId, SseClient::new);
+            if (client.add(connection)) {
+                // 超过连接数上限时断开最早的连接
+                client.trim(maxConnections).forEach(this::disconnect);
+                break;
+            }
+            // 客户端的最后一个连接刚刚移除
+            ssePool.asMap().remove(clientId, client);
+        }
+        SseHeartbeat current = heartbeat;
+        if (current != null) {
+            current.add(connection);
+        }
+        return connection;
     }
 
     private SseEmitterWrapper wrap(SseEmitter sseEmitter, String clientId) {
+        SseEmitterWrapper wrapper =
+                new SseEmitterWrapper(clientId, connectionIds.incrementAndGet(), sseEmitter, delivery);
+        SafeArg<Long> connectionId = SafeArg.of("connectionId", wrapper.getConnectionId());
         sseEmitter.onError(throwable -> {
-            log.error("sse session error, clientId:<{}>", SafeArg.of("clientId", clientId));
+            log.error(
+                    "sse session error, clientId:<{}>, connectionId:<{}>",
+                    SafeArg.of("clientId", clientId),
+                    connectionId);
         });
         sseEmitter.onCompletion(() -> {
-            log.debug("sse session completion, clientId:<{}>", SafeArg.of("clientId", clientId));
+            log.debug(
+                    "sse session completion, clientId:<{}>, connectionId:<{}>",
+                    SafeArg.of("clientId", clientId),
+                    connectionId);
             // sse不再可用
-            ssePool.invalidate(clientId);
+            wrapper.onCompleted();
+            remove(wrapper);
         });
         sseEmitter.onTimeout(() -> {
-            log.debug("sse session timeout, clientId:<{}>", SafeArg.of("clientId", clientId));
+            log.debug(
+                    "sse session timeout, clientId:<{}>, connectionId:<{}>",
+                    SafeArg.of("clientId", clientId),
+                    connectionId);
             sseEmitter.complete();
         });
-        return new SseEmitterWrapper(clientId, sseEmitter);
+        return wrapper;
+    }
+
+    /**
+     * 客户端移除后取消订阅，超过最大客户端数被淘汰的客户端需要结束所有连接.
+     */
+    private void onRemoval(@Nullable String clientId, @Nullable SseClient client, RemovalCause cause) {
+        if (client == null) {
+            return;
+        }
+        topicIndex.unsubscribeAll(client);
+        if (cause.wasEvicted()) {
+            client.complete();
+        }
+    }
+
+    private void disconnect(SseEmitterWrapper connection) {
+        remove(connection);
+        connection.complete();
+    }
+
+    /**
+     * 移除连接，客户端的最后一个连接移除后移除客户端.
+     */
+    private void remove(SseEmitterWrapper connection) {
+        SseHeartbeat current = heartbeat;
+        if (current != null) {
+            current.remove(connection);
+        }
+        SseClient client = ssePool.getIfPresent(connection.getClientId());
+        if (client != null && client.remove(connection) && client.isClosed()) {
+            ssePool.asMap().remove(connection.getClientId(), client);
+        }
     }
 }
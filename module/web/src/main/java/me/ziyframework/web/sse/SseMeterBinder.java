@@ -0,0 +1,54 @@
+package me.ziyframework.web.sse;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+/**
+ * 基于Micrometer的SSE指标.
+ * <ul>
+ *     <li>{@value #CLIENTS}、{@value #CONNECTIONS}：当前客户端数和连接数</li>
+ *     <li>{@value #QUEUE_DEPTH}、{@value #QUEUE_DEPTH_MAX}：所有连接等待写出的事件总数和单个连接的最大队列长度</li>
+ *     <li>{@value #DROPPED}：因队列已满被丢弃的事件数</li>
+ *     <li>{@value #CONFLATED}：被同一个合并键的新事件替换、没有写出的事件数</li>
+ *     <li>{@value #EVICTED}：因写出失败、队列溢出或写出缓慢被断开的连接数</li>
+ * </ul>
+ * 连接数和队列长度在采集时遍历连接计算，发送事件时不更新指标.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public final class SseMeterBinder implements MeterBinder {
+
+    public static final String CLIENTS = "ziy.web.sse.clients";
+
+    public static final String CONNECTIONS = "ziy.web.sse.connections";
+
+    public static final String QUEUE_DEPTH = "ziy.web.sse.queue.depth";
+
+    public static final String QUEUE_DEPTH_MAX = "ziy.web.sse.queue.depth.max";
+
+    public static final String DROPPED = "ziy.web.sse.dropped";
+
+    public static final String CONFLATED = "ziy.web.sse.conflated";
+
+    public static final String EVICTED = "ziy.web.sse.evicted";
+
+    private final SseManager sseManager;
+
+    public SseMeterBinder(SseManager sseManager) {
+        this.sseManager = sseManager;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder(CLIENTS, sseManager, SseManager::getClientCount).register(registry);
+        Gauge.builder(CONNECTIONS, sseManager, SseManager::getConnectionCount).register(registry);
+        Gauge.builder(QUEUE_DEPTH, sseManager, SseManager::getQueuedEvents).register(registry);
+        Gauge.builder(QUEUE_DEPTH_MAX, sseManager, SseManager::getMaxQueueDepth).register(registry);
+        FunctionCounter.builder(DROPPED, sseManager, SseManager::getDroppedEvents).register(registry);
+        FunctionCounter.builder(CONFLATED, sseManager, SseManager::getConflatedEvents).register(registry);
+        FunctionCounter.builder(EVICTED, sseManager, SseManager::getEvictedSessions).register(registry);
+    }
+}
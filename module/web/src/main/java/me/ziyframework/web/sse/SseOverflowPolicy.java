@@ -0,0 +1,25 @@
+package me.ziyframework.web.sse;
+
+/**
+ * 会话的待发送队列已满时的处理策略.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public enum SseOverflowPolicy {
+
+    /**
+     * 丢弃队列中最早的事件，保留最新的事件.
+     */
+    DROP_OLDEST,
+
+    /**
+     * 丢弃新的事件.
+     */
+    DROP_NEWEST,
+
+    /**
+     * 断开会话，客户端重连后重新获取数据.
+     */
+    DISCONNECT
+}
@@ -0,0 +1,319 @@
+package me.ziyframework.web.sse;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import com.github.benmanes.caffeine.cache.Ticker;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+/**
+ * 断线重连的事件重放.
+ * 启用后发送的事件带有单调递增的id({@code <实例标识>-<序号>})，已编码的事件按流(主题、客户端、广播)保存在有界的环形缓冲区中.
+ * 客户端重连时携带{@code Last-Event-ID}，只重放之后的事件；缓冲区已淘汰了客户端错过的事件、id来自其他实例(服务重启)时
+ * 无法重放，由调用方通知客户端全量同步.
+ * 内存上限为 流数量上限 × 单个流的字节上限，事件构建器构建的事件同样编码为字节后保存.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+final class SseReplay {
+
+    static final String BROADCAST_STREAM = "broadcast";
+
+    private static final String TOPIC_PREFIX = "topic:";
+
+    private static final String CLIENT_PREFIX = "client:";
+
+    /**
+     * 实例标识，服务重启后之前的事件id全部失效.
+     */
+    private final String epoch = Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, 36);
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private final int capacity;
+
+    private final long maxBytes;
+
+    private final Cache<String, Buffer> buffers;
+
+    /**
+     * 整个缓冲区被淘汰或过期时其中最大的事件id，更早的事件无法判断是否丢失.
+     * 流被淘汰后可能重新创建，新的缓冲区只保存之后的事件，同样需要据此判断.
+     */
+    private final AtomicLong horizon = new AtomicLong();
+
+    /**
+     * 创建事件重放.
+     *
+     * @param capacity 每个流最多保存的事件数
+     * @param maxBytes 每个流最多保存的已编码事件的字节数
+     * @param maxStreams 最多保存的流数量
+     * @param retention 流超过该时间没有新事件也没有重放时丢弃
+     */
+    SseReplay(int capacity, long maxBytes, int maxStreams, Duration retention) {
+        this(capacity, maxBytes, maxStreams, retention, Ticker.systemTicker());
+    }
+
+    SseReplay(int capacity, long maxBytes, int maxStreams, Duration retention, Ticker ticker) {
+        Assert.isTrue(capacity > 0, "replay capacity must be positive");
+        Assert.isTrue(maxBytes > 0, "replay maxBytes must be positive");
+        this.capacity = capacity;
+        this.maxBytes = maxBytes;
+        this.buffers = Caffeine.newBuilder()
+                .maximumSize(maxStreams)
+                .expireAfterAccess(retention)
+                .ticker(ticker)
+                // 在淘汰的线程上更新horizon，重新创建的流和之后的重放都能看到
+                .executor(Runnable::run)
+                .removalListener(this::onRemoval)
+                .build();
+    }
+
+    static String topicStream(String topic) {
+        return TOPIC_PREFIX + topic;
+    }
+
+    static String clientStream(String clientId) {
+        return CLIENT_PREFIX + clientId;
+    }
+
+    /**
+     * 分配下一个事件id.
+     */
+    long nextId() {
+        return sequence.incrementAndGet();
+    }
+
+    /**
+     * 事件id的文本形式，作为SSE事件的id发送.
+     */
+    String format(long id) {
+        return epoch + '-' + id;
+    }
+
+    int getCapacity() {
+        return capacity;
+    }
+
+    /**
+     * 保存已编码的事件.
+     *
+     * @param size 已编码的字节数
+     */
+    void record(String stream, long id, Set<DataWithMediaType> items, int size) {
+        buffers.get(stream, key -> new Buffer(capacity, maxBytes)).add(id, items, size);
+    }
+
+    /**
+     * 当前保存的主题.
+     */
+    List<String> topics() {
+        List<String> topics = new ArrayList<>();
+        for (String stream : buffers.asMap().keySet()) {
+            if (stream.startsWith(TOPIC_PREFIX)) {
+                topics.add(stream.substring(TOPIC_PREFIX.length()));
+            }
+        }
+        return topics;
+    }
+
+    /**
+     * 按id顺序收集多个流中{@code lastEventId}之后的事件.
+     *
+     * @param lastEventId 客户端最后收到的事件id，为空时不需要重放
+     * @return 需要重放的事件，无法确定客户端错过了哪些事件时返回null
+     */
+    @Nullable List<Set<DataWithMediaType>> collect(Collection<String> streams, @Nullable String lastEventId) {
+        if (lastEventId == null || lastEventId.isEmpty()) {
+            return List.of();
+        }
+        long lastId = parse(lastEventId);
+        long upTo = sequence.get();
+        if (lastId < 0 || lastId > upTo) {
+            return null;
+        }
+        // 先移除过期的流，使horizon包含它们的事件
+        buffers.cleanUp();
+        List<Event> events = new ArrayList<>();
+        for (String stream : streams) {
+            Buffer buffer = buffers.getIfPresent(stream);
+            if (buffer == null) {
+                if (lastId < horizon.get()) {
+                    return null;
+                }
+            } else if (!buffer.collect(lastId, upTo, horizon.get(), events)) {
+                return null;
+            }
+        }
+        events.sort(Comparator.comparingLong(Event::id));
+        List<Set<DataWithMediaType>> result = new ArrayList<>(events.size());
+        long previous = lastId;
+        for (Event event : events) {
+            // 同一个事件可能同时保存在多个流中
+            if (event.id() != previous) {
+                result.add(event.items());
+                previous = event.id();
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 匹配通配符订阅的主题流.
+     */
+    List<String> topicStreams(Predicate<String> topicFilter) {
+        List<String> streams = new ArrayList<>();
+        for (String topic : topics()) {
+            if (topicFilter.test(topic)) {
+                streams.add(topicStream(topic));
+            }
+        }
+        return streams;
+    }
+
+    /**
+     * 解析事件id中的序号，不是当前实例的id时返回-1.
+     */
+    private long parse(String lastEventId) {
+        int separator = lastEventId.lastIndexOf('-');
+        if (separator != epoch.length() || !lastEventId.startsWith(epoch)) {
+            return -1;
+        }
+        try {
+            return Long.parseLong(lastEventId, separator + 1, lastEventId.length(), 10);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private void onRemoval(@Nullable String stream, @Nullable Buffer buffer, RemovalCause cause) {
+        if (buffer != null && cause != RemovalCause.REPLACED) {
+            horizon.accumulateAndGet(buffer.getLastId(), Math::max);
+        }
+    }
+
+    private record Event(long id, Set<DataWithMediaType> items) {}
+
+    /**
+     * 单个流的环形缓冲区.
+     */
+    private static final class Buffer {
+
+        private final ReentrantLock lock = new ReentrantLock();
+
+        private final long[] ids;
+
+        private final @Nullable Set<DataWithMediaType>[] events;
+
+        private final int[] sizes;
+
+        private final long maxBytes;
+
+        private int head;
+
+        private int count;
+
+        private long bytes;
+
+        /**
+         * 已被淘汰的最大事件id.
+         */
+        private long evictedId;
+
+        /**
+         * 缓冲区保存的第一个事件id，之前的事件可能保存在已被淘汰的同名缓冲区中.
+         */
+        private long firstId;
+
+        private long lastId;
+
+        @SuppressWarnings("unchecked")
+        Buffer(int capacity, long maxBytes) {
+            this.ids = new long[capacity];
+            this.events = new Set[capacity];
+            this.sizes = new int[capacity];
+            this.maxBytes = maxBytes;
+        }
+
+        void add(long id, Set<DataWithMediaType> items, int size) {
+            lock.lock();
+            try {
+                while (count > 0 && (count == ids.length || bytes + size > maxBytes)) {
+                    evictOldest();
+                }
+                int tail = (head + count) % ids.length;
+                ids[tail] = id;
+                events[tail] = items;
+                sizes[tail] = size;
+                count++;
+                bytes += size;
+                if (firstId == 0) {
+                    firstId = id;
+                }
+                lastId = Math.max(lastId, id);
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * 收集{@code (afterId, upToId]}范围内的事件.
+         *
+         * @param horizon 被淘汰的缓冲区中最大的事件id
+         * @return 范围内的事件已被淘汰时返回false
+         */
+        boolean collect(long afterId, long upToId, long horizon, List<Event> out) {
+            lock.lock();
+            try {
+                if (afterId < evictedId) {
+                    return false;
+                }
+                // 客户端错过了缓冲区创建之前的事件，而之后又有缓冲区被淘汰，错过的事件可能保存在已被淘汰的同名缓冲区中
+                if (afterId + 1 < firstId && afterId < horizon) {
+                    return false;
+                }
+                for (int i = 0; i < count; i++) {
+                    int index = (head + i) % ids.length;
+                    long id = ids[index];
+                    Set<DataWithMediaType> items = events[index];
+                    if (items != null && id > afterId && id <= upToId) {
+                        out.add(new Event(id, items));
+                    }
+                }
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        long getLastId() {
+            lock.lock();
+            try {
+                return lastId;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private void evictOldest() {
+            evictedId = Math.max(evictedId, ids[head]);
+            bytes -= sizes[head];
+            events[head] = null;
+            head = (head + 1) % ids.length;
+            count--;
+        }
+    }
+}
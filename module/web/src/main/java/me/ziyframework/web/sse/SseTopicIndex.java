@@ -0,0 +1,255 @@
+package me.ziyframework.web.sse;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import org.springframework.util.Assert;
+
+/**
+ * 主题到订阅会话的倒排索引.
+ * 主题以{@code .}分隔层级，订阅时可以使用通配符：{@code *}匹配一个层级，
+ * {@code #}只能作为最后一级，匹配剩余的零个或多个层级(前缀订阅).
+ * 精确主题保存在哈希表中，发布时只遍历该主题的订阅者；通配符订阅保存在按层级组织的前缀树中，
+ * 没有通配符订阅时发布不会拆分主题.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+final class SseTopicIndex {
+
+    static final String SINGLE_LEVEL = "*";
+
+    static final String MULTI_LEVEL = "#";
+
+    private final Map<String, Set<SseClient>> exact = new ConcurrentHashMap<>();
+
+    private final Node root = new Node();
+
+    /**
+     * 通配符订阅的修改(包括前缀树剪枝)串行执行，发布时无锁遍历.
+     */
+    private final ReentrantLock patternLock = new ReentrantLock();
+
+    /**
+     * 通配符订阅的数量，由patternLock保护写入.
+     */
+    private volatile int patternCount;
+
+    void subscribe(SseClient client, String topic) {
+        List<String> segments = parse(topic);
+        if (!client.addTopic(topic)) {
+            return;
+        }
+        if (!isPattern(segments)) {
+            exact.compute(topic, (key, clients) -> {
+                Set<SseClient> result = clients == null ? ConcurrentHashMap.newKeySet() : clients;
+                result.add(client);
+                return result;
+            });
+            afterSubscribe(client, topic);
+            return;
+        }
+        patternLock.lock();
+        try {
+            Node node = root;
+            for (String segment : segments) {
+                node = node.children.computeIfAbsent(segment, key -> new Node());
+            }
+            if (node.clients.add(client)) {
+                patternCount++;
+            }
+        } finally {
+            patternLock.unlock();
+        }
+        afterSubscribe(client, topic);
+    }
+
+    void unsubscribe(SseClient client, String topic) {
+        if (client.removeTopic(topic)) {
+            remove(client, topic);
+        }
+    }
+
+    /**
+     * 取消会话的所有订阅，会话结束时调用.
+     */
+    void unsubscribeAll(SseClient client) {
+        for (String topic : client.clearTopics()) {
+            remove(client, topic);
+        }
+    }
+
+    /**
+     * 遍历主题的订阅者，同时匹配精确订阅和通配符订阅的会话只处理一次.
+     */
+    void forEachSubscriber(String topic, Consumer<SseClient> action) {
+        Set<SseClient> direct = exact.get(topic);
+        if (patternCount == 0) {
+            if (direct != null) {
+                direct.forEach(action);
+            }
+            return;
+        }
+        Set<SseClient> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        if (direct != null) {
+            matched.addAll(direct);
+        }
+        match(root, parse(topic), 0, matched);
+        matched.forEach(action);
+    }
+
+    /**
+     * 主题是否有订阅者.
+     */
+    boolean hasSubscribers(String topic) {
+        if (exact.containsKey(topic)) {
+            return true;
+        }
+        if (patternCount == 0) {
+            return false;
+        }
+        Set<SseClient> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        match(root, parse(topic), 0, matched);
+        return !matched.isEmpty();
+    }
+
+    private void remove(SseClient client, String topic) {
+        List<String> segments = parse(topic);
+        if (!isPattern(segments)) {
+            exact.computeIfPresent(topic, (key, clients) -> {
+                clients.remove(client);
+                return clients.isEmpty() ? null : clients;
+            });
+            return;
+        }
+        patternLock.lock();
+        try {
+            if (prune(root, segments, 0, client)) {
+                patternCount--;
+            }
+        } finally {
+            patternLock.unlock();
+        }
+    }
+
+    /**
+     * 订阅的同时会话结束时，会话的订阅可能已被清理，需要再次移除.
+     */
+    private void afterSubscribe(SseClient client, String topic) {
+        if (client.isClosed()) {
+            unsubscribe(client, topic);
+        }
+    }
+
+    /**
+     * 从前缀树中移除会话，并删除不再有订阅者的节点.
+     *
+     * @return 会话是否被移除
+     */
+    private static boolean prune(Node node, List<String> segments, int index, SseClient client) {
+        if (index == segments.size()) {
+            return node.clients.remove(client);
+        }
+        String segment = segments.get(index);
+        Node child = node.children.get(segment);
+        if (child == null) {
+            return false;
+        }
+        boolean removed = prune(child, segments, index + 1, client);
+        if (child.clients.isEmpty() && child.children.isEmpty()) {
+            node.children.remove(segment, child);
+        }
+        return removed;
+    }
+
+    private static void match(Node node, List<String> segments, int index, Set<SseClient> matched) {
+        Node multi = node.children.get(MULTI_LEVEL);
+        if (multi != null) {
+            matched.addAll(multi.clients);
+        }
+        if (index == segments.size()) {
+            matched.addAll(node.clients);
+            return;
+        }
+        Node child = node.children.get(segments.get(index));
+        if (child != null) {
+            match(child, segments, index + 1, matched);
+        }
+        Node single = node.children.get(SINGLE_LEVEL);
+        if (single != null) {
+            match(single, segments, index + 1, matched);
+        }
+    }
+
+    /**
+     * 主题是否包含通配符.
+     */
+    static boolean isPattern(String topic) {
+        return isPattern(parse(topic));
+    }
+
+    /**
+     * 具体的主题是否匹配订阅的主题(可以包含通配符).
+     */
+    static boolean matches(String pattern, String topic) {
+        List<String> patternSegments = parse(pattern);
+        List<String> topicSegments = parse(topic);
+        for (int i = 0; i < patternSegments.size(); i++) {
+            String segment = patternSegments.get(i);
+            if (MULTI_LEVEL.equals(segment)) {
+                return true;
+            }
+            if (i == topicSegments.size()
+                    || (!SINGLE_LEVEL.equals(segment) && !segment.equals(topicSegments.get(i)))) {
+                return false;
+            }
+        }
+        return patternSegments.size() == topicSegments.size();
+    }
+
+    private static boolean isPattern(List<String> segments) {
+        for (String segment : segments) {
+            if (SINGLE_LEVEL.equals(segment) || MULTI_LEVEL.equals(segment)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 按{@code .}拆分主题并校验通配符的位置.
+     */
+    static List<String> parse(String topic) {
+        Assert.hasText(topic, "topic can not be empty");
+        List<String> segments = new ArrayList<>();
+        int start = 0;
+        int end;
+        while ((end = topic.indexOf('.', start)) >= 0) {
+            segments.add(segment(topic, start, end));
+            start = end + 1;
+        }
+        segments.add(segment(topic, start, topic.length()));
+        for (int i = 0; i < segments.size() - 1; i++) {
+            Assert.isTrue(!MULTI_LEVEL.equals(segments.get(i)), "'#' must be the last segment of a topic");
+        }
+        return segments;
+    }
+
+    private static String segment(String topic, int start, int end) {
+        Assert.isTrue(end > start, "topic segment can not be empty");
+        return topic.substring(start, end);
+    }
+
+    private static final class Node {
+
+        private final Map<String, Node> children = new ConcurrentHashMap<>();
+
+        private final Set<SseClient> clients = ConcurrentHashMap.newKeySet();
+    }
+}
@@ -0,0 +1,66 @@
+package me.ziyframework.web.sse.broker;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 进程内的SSE消息分发，同一组的节点在发布线程上直接投递，不编码.
+ * 单个节点没有其他节点可以投递，用于在一个进程内运行多个{@link me.ziyframework.web.sse.SseManager}(例如测试).
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public final class InJvmSseBroker implements SseBroker {
+
+    /**
+     * 同一组的节点.
+     */
+    private final List<InJvmSseBroker> nodes;
+
+    private volatile @Nullable Listener listener;
+
+    public InJvmSseBroker() {
+        this(new CopyOnWriteArrayList<>());
+    }
+
+    private InJvmSseBroker(List<InJvmSseBroker> nodes) {
+        this.nodes = nodes;
+        nodes.add(this);
+    }
+
+    /**
+     * 创建同一组的另一个节点.
+     */
+    public InJvmSseBroker newNode() {
+        return new InJvmSseBroker(nodes);
+    }
+
+    @Override
+    public void publish(String topic, @Nullable String key, byte[] frame) {
+        for (InJvmSseBroker node : nodes) {
+            if (node != this) {
+                node.deliver(topic, key, frame);
+            }
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 离开所在的组.
+     */
+    public void close() {
+        nodes.remove(this);
+    }
+
+    private void deliver(String topic, @Nullable String key, byte[] frame) {
+        Listener current = listener;
+        if (current != null) {
+            current.onMessage(topic, key, frame);
+        }
+    }
+}
@@ -0,0 +1,247 @@
+package me.ziyframework.web.sse.broker;
+
+import com.palantir.logsafe.SafeArg;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.NetworkInterface;
+import java.net.SocketException;
+import java.net.StandardProtocolFamily;
+import java.net.StandardSocketOptions;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.DatagramChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.LongAdder;
+import javax.crypto.Mac;
+import lombok.CustomLog;
+import me.ziyframework.web.common.exception.GlobalException;
+import org.jspecify.annotations.Nullable;
+import org.springframework.util.Assert;
+
+/**
+ * 基于UDP组播的SSE消息分发，同一组播地址和端口的节点互相投递，可以在一台机器上运行多个节点.
+ * 发布只进入发送队列，由发送线程把队列中已有的消息合并为一个数据报发送：负载低时逐条发送，负载高时自动批量发送.
+ * UDP不保证送达，丢失的事件由客户端重连时的事件重放或全量同步补齐.单条消息超过数据报上限时丢弃.
+ * 每个数据报带有节点间共享密钥的HMAC，未签名或签名不符的数据报被丢弃；默认只使用回环网卡，跨主机分发需要显式配置网卡.
+ * 数据报带有批次序号和发送时间，重复的数据报被丢弃，跨主机时节点的时钟偏差不能超过
+ * {@link SseBrokerReplayGuard#DEFAULT_MAX_CLOCK_SKEW}.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@CustomLog
+public final class MulticastSseBroker implements SseBroker, AutoCloseable {
+
+    public static final int DEFAULT_MAX_DATAGRAM_SIZE = 8192;
+
+    public static final int DEFAULT_QUEUE_CAPACITY = 10_000;
+
+    /**
+     * 共享密钥的最小长度(字节).
+     */
+    public static final int MIN_SECRET_LENGTH = 32;
+
+    /**
+     * UDP数据报的最大长度.
+     */
+    private static final int MAX_UDP_PAYLOAD = 65_507;
+
+    /**
+     * 节点标识，忽略自己发布的数据报.
+     */
+    private final long nodeId = ThreadLocalRandom.current().nextLong();
+
+    private final InetSocketAddress group;
+
+    private final DatagramChannel channel;
+
+    private final int maxDatagramSize;
+
+    private final byte[] secret;
+
+    private final BlockingQueue<Message> outbound;
+
+    private final Thread sender;
+
+    private final Thread receiver;
+
+    private final LongAdder droppedMessages = new LongAdder();
+
+    private final LongAdder rejectedDatagrams = new LongAdder();
+
+    private volatile @Nullable Listener listener;
+
+    private volatile boolean running = true;
+
+    public MulticastSseBroker(String groupAddress, int port, byte[] secret) {
+        this(groupAddress, port, secret, null, DEFAULT_MAX_DATAGRAM_SIZE, DEFAULT_QUEUE_CAPACITY);
+    }
+
+    /**
+     * 创建组播消息分发并加入组播组.
+     *
+     * @param groupAddress 组播地址，例如239.255.27.1
+     * @param port 组播端口
+     * @param secret 节点间共享的HMAC密钥，至少{@value #MIN_SECRET_LENGTH}字节
+     * @param networkInterface 网卡名称，为null时使用回环网卡，只在本机的节点间分发
+     * @param maxDatagramSize 单个数据报的最大长度，跨主机时建议不超过网络MTU
+     * @param queueCapacity 发送队列的长度，队列已满时丢弃新的消息
+     */
+    public MulticastSseBroker(
+            String groupAddress,
+            int port,
+            byte[] secret,
+            @Nullable String networkInterface,
+            int maxDatagramSize,
+            int queueCapacity) {
+        Assert.isTrue(
+                maxDatagramSize > SseBrokerCodec.HEADER_SIZE + SseBrokerCodec.MAC_SIZE
+                        && maxDatagramSize <= MAX_UDP_PAYLOAD,
+                "maxDatagramSize out of range");
+        Assert.isTrue(secret.length >= MIN_SECRET_LENGTH, "sse broker secret is too short");
+        this.maxDatagramSize = maxDatagramSize;
+        this.secret = secret.clone();
+        this.outbound = new LinkedBlockingQueue<>(queueCapacity);
+        try {
+            InetAddress address = InetAddress.getByName(groupAddress);
+            Assert.isTrue(address.isMulticastAddress(), "not a multicast address: " + groupAddress);
+            NetworkInterface nic = resolveInterface(networkInterface);
+            this.group = new InetSocketAddress(address, port);
+            this.channel = DatagramChannel.open(StandardProtocolFamily.INET)
+                    .setOption(StandardSocketOptions.SO_REUSEADDR, true)
+                    .bind(new InetSocketAddress(port))
+                    .setOption(StandardSocketOptions.IP_MULTICAST_IF, nic)
+                    .setOption(StandardSocketOptions.IP_MULTICAST_LOOP, true);
+            channel.join(address, nic);
+        } catch (IOException e) {
+            throw GlobalException.wrap(e);
+        }
+        this.sender = Thread.ofPlatform().daemon().name("sse-broker-sender").start(this::sendLoop);
+        this.receiver = Thread.ofPlatform().daemon().name("sse-broker-receiver").start(this::receiveLoop);
+    }
+
+    @Override
+    public void publish(String topic, @Nullable String key, byte[] frame) {
+        byte[] topicBytes = topic.getBytes(StandardCharsets.UTF_8);
+        byte[] keyBytes = key == null ? null : key.getBytes(StandardCharsets.UTF_8);
+        int size = SseBrokerCodec.HEADER_SIZE
+                + SseBrokerCodec.sizeOf(topicBytes, keyBytes, frame)
+                + SseBrokerCodec.MAC_SIZE;
+        if (size > maxDatagramSize) {
+            log.warn(
+                    "sse broker message too large, topic:<{}>, size:<{}>",
+                    SafeArg.of("topic", topic),
+                    SafeArg.of("size", frame.length));
+            droppedMessages.increment();
+            return;
+        }
+        if (!outbound.offer(new Message(topicBytes, keyBytes, frame))) {
+            droppedMessages.increment();
+        }
+    }
+
+    @Override
+    public void subscribe(Listener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 因过大或发送队列已满被丢弃的消息数.
+     */
+    public long getDroppedMessages() {
+        return droppedMessages.sum();
+    }
+
+    /**
+     * 因HMAC校验失败、过期或重复被丢弃的数据报数.
+     */
+    public long getRejectedDatagrams() {
+        return rejectedDatagrams.sum();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        sender.interrupt();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            log.warn("close sse broker channel failed", e);
+        }
+    }
+
+    private void sendLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(maxDatagramSize);
+        Mac mac = SseBrokerCodec.newMac(secret);
+        long sequence = 0;
+        while (running) {
+            try {
+                Message message = outbound.take();
+                SseBrokerCodec.start(buffer, nodeId, ++sequence, System.currentTimeMillis());
+                int count = 0;
+                // 合并队列中已有的消息，单个数据报最多65535条
+                while (true) {
+                    SseBrokerCodec.put(buffer, message.topic(), message.key(), message.frame());
+                    count++;
+                    Message next = outbound.peek();
+                    if (next == null
+                            || count == 0xFFFF
+                            || buffer.remaining() < SseBrokerCodec.sizeOf(next.topic(), next.key(), next.frame())) {
+                        break;
+                    }
+                    message = outbound.remove();
+                }
+                SseBrokerCodec.finish(buffer, count, mac);
+                channel.send(buffer, group);
+            } catch (InterruptedException | ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("send sse broker datagram failed", e);
+            }
+        }
+    }
+
+    private void receiveLoop() {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(MAX_UDP_PAYLOAD);
+        Mac mac = SseBrokerCodec.newMac(secret);
+        SseBrokerReplayGuard guard = new SseBrokerReplayGuard(SseBrokerReplayGuard.DEFAULT_MAX_CLOCK_SKEW);
+        while (running) {
+            try {
+                buffer.clear();
+                InetSocketAddress source = (InetSocketAddress) channel.receive(buffer);
+                buffer.flip();
+                Listener current = listener;
+                if (current != null && SseBrokerCodec.decode(buffer, nodeId, mac, guard, current) < 0) {
+                    rejectedDatagrams.increment();
+                    log.debug(
+                            "reject unsigned or replayed sse broker datagram, source:<{}>",
+                            SafeArg.of("source", source));
+                }
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException | BufferUnderflowException e) {
+                log.warn("receive sse broker datagram failed", e);
+            } catch (RuntimeException e) {
+                log.warn("deliver sse broker message failed", e);
+            }
+        }
+    }
+
+    /**
+     * 未配置网卡时使用回环网卡，避免在未经确认的网络上收发事件.
+     */
+    private static NetworkInterface resolveInterface(@Nullable String name) throws SocketException {
+        NetworkInterface nic = name == null
+                ? NetworkInterface.getByInetAddress(InetAddress.getLoopbackAddress())
+                : NetworkInterface.getByName(name);
+        Assert.notNull(nic, "network interface not found: " + (name == null ? "loopback" : name));
+        return nic;
+    }
+
+    private record Message(byte[] topic, byte @Nullable [] key, byte[] frame) {}
+}
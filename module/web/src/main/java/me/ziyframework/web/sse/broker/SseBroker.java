@@ -0,0 +1,48 @@
+package me.ziyframework.web.sse.broker;
+
+import org.jspecify.annotations.Nullable;
+
+/**
+ * SSE跨节点消息分发SPI.
+ * 每个节点持有一个实例，{@link me.ziyframework.web.sse.SseManager}发布的事件帧通过broker发送给其他节点，
+ * 其他节点收到后只投递给本地订阅了该主题的会话，发送给指定客户端的事件帧使用{@link #CLIENT_TOPIC_PREFIX}开头的主题，
+ * 只投递给本地的该客户端.发布节点自己的会话由{@code SseManager}直接投递，broker不回送给发布者.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+public interface SseBroker {
+
+    /**
+     * 广播给所有客户端时使用的主题.
+     */
+    String BROADCAST_TOPIC = "";
+
+    /**
+     * 发送给指定客户端时使用的主题前缀，之后为客户端ID.发布的主题不能包含通配符，以{@code #}开头不会与之冲突.
+     */
+    String CLIENT_TOPIC_PREFIX = "#client:";
+
+    /**
+     * 发布事件帧给其他节点.
+     *
+     * @param topic 主题，{@link #BROADCAST_TOPIC}表示所有客户端，{@link #CLIENT_TOPIC_PREFIX}开头表示指定客户端
+     * @param key 合并键，为null时不合并
+     * @param frame 编码后的SSE事件帧，调用方和实现都不能修改
+     */
+    void publish(String topic, @Nullable String key, byte[] frame);
+
+    /**
+     * 接收其他节点发布的事件帧.
+     */
+    void subscribe(Listener listener);
+
+    /**
+     * 其他节点发布的事件帧的接收者.
+     */
+    @FunctionalInterface
+    interface Listener {
+
+        void onMessage(String topic, @Nullable String key, byte[] frame);
+    }
+}
@@ -0,0 +1,142 @@
+package me.ziyframework.web.sse.broker;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import me.ziyframework.web.common.exception.GlobalException;
+import org.jspecify.annotations.Nullable;
+
+/**
+ * 节点间批量消息的二进制编码.
+ * <pre>
+ * 批次: magic(2) version(1) nodeId(8) sequence(8) timestamp(8) count(2) 消息... mac(32)
+ * 消息: topicLength(2) topic(UTF-8) keyLength(2) key(UTF-8) frameLength(4) frame
+ * 没有合并键时keyLength为0xFFFF
+ * </pre>
+ * mac为节点间共享密钥对之前所有字节的HMAC-SHA256，校验失败的批次整体丢弃，避免任意主机向会话注入事件.
+ * sequence为发送节点单调递增的批次序号，timestamp为发送时间(毫秒)，由{@link SseBrokerReplayGuard}拒绝重放的批次.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+final class SseBrokerCodec {
+
+    static final int HEADER_SIZE = 29;
+
+    /**
+     * 批次尾部HMAC的长度.
+     */
+    static final int MAC_SIZE = 32;
+
+    private static final String MAC_ALGORITHM = "HmacSHA256";
+
+    private static final short MAGIC = 0x5353;
+
+    private static final byte VERSION = 3;
+
+    private static final int COUNT_OFFSET = 27;
+
+    private static final int NO_KEY = 0xFFFF;
+
+    private SseBrokerCodec() {}
+
+    /**
+     * 创建批次的HMAC，Mac不是线程安全的，发送和接收线程各持有一个.
+     */
+    static Mac newMac(byte[] secret) {
+        try {
+            Mac mac = Mac.getInstance(MAC_ALGORITHM);
+            mac.init(new SecretKeySpec(secret, MAC_ALGORITHM));
+            return mac;
+        } catch (GeneralSecurityException e) {
+            throw GlobalException.wrap(e);
+        }
+    }
+
+    /**
+     * 单条消息编码后的长度.
+     */
+    static int sizeOf(byte[] topic, byte @Nullable [] key, byte[] frame) {
+        return Short.BYTES + topic.length + Short.BYTES + (key == null ? 0 : key.length) + Integer.BYTES + frame.length;
+    }
+
+    /**
+     * 写入批次头，消息数量在{@link #finish}时写入，缓冲区末尾为HMAC预留{@value #MAC_SIZE}字节.
+     */
+    static void start(ByteBuffer buffer, long nodeId, long sequence, long timestamp) {
+        buffer.clear().limit(buffer.capacity() - MAC_SIZE);
+        buffer.putShort(MAGIC).put(VERSION).putLong(nodeId).putLong(sequence).putLong(timestamp).putShort((short) 0);
+    }
+
+    static void put(ByteBuffer buffer, byte[] topic, byte @Nullable [] key, byte[] frame) {
+        buffer.putShort((short) topic.length).put(topic);
+        if (key == null) {
+            buffer.putShort((short) NO_KEY);
+        } else {
+            buffer.putShort((short) key.length).put(key);
+        }
+        buffer.putInt(frame.length).put(frame);
+    }
+
+    /**
+     * 写入消息数量和HMAC.
+     */
+    static void finish(ByteBuffer buffer, int count, Mac mac) {
+        buffer.putShort(COUNT_OFFSET, (short) count);
+        mac.update(buffer.duplicate().flip());
+        buffer.limit(buffer.capacity()).put(mac.doFinal());
+        buffer.flip();
+    }
+
+    /**
+     * 解码批次，忽略本节点发布的批次和无法识别的数据.
+     *
+     * @return 解码的消息数量，HMAC校验失败或重放的批次返回-1
+     */
+    static int decode(
+            ByteBuffer buffer, long selfNodeId, Mac mac, SseBrokerReplayGuard guard, SseBroker.Listener listener) {
+        if (buffer.remaining() < HEADER_SIZE + MAC_SIZE || buffer.getShort() != MAGIC || buffer.get() != VERSION) {
+            return 0;
+        }
+        long nodeId = buffer.getLong();
+        if (nodeId == selfNodeId) {
+            return 0;
+        }
+        int end = buffer.limit() - MAC_SIZE;
+        mac.update(buffer.duplicate().position(0).limit(end));
+        byte[] expected = mac.doFinal();
+        byte[] actual = new byte[MAC_SIZE];
+        buffer.get(end, actual);
+        if (!MessageDigest.isEqual(expected, actual)) {
+            return -1;
+        }
+        buffer.limit(end);
+        if (!guard.accept(nodeId, buffer.getLong(), buffer.getLong())) {
+            return -1;
+        }
+        int count = Short.toUnsignedInt(buffer.getShort());
+        for (int i = 0; i < count; i++) {
+            int topicLength = Short.toUnsignedInt(buffer.getShort());
+            byte[] topic = new byte[topicLength];
+            buffer.get(topic);
+            String key = readKey(buffer);
+            byte[] frame = new byte[buffer.getInt()];
+            buffer.get(frame);
+            listener.onMessage(new String(topic, StandardCharsets.UTF_8), key, frame);
+        }
+        return count;
+    }
+
+    private static @Nullable String readKey(ByteBuffer buffer) {
+        int keyLength = Short.toUnsignedInt(buffer.getShort());
+        if (keyLength == NO_KEY) {
+            return null;
+        }
+        byte[] key = new byte[keyLength];
+        buffer.get(key);
+        return new String(key, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package me.ziyframework.web.sse.broker;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 节点间批次的重放保护.
+ * 每个节点为发送的批次分配单调递增的序号并带上发送时的时间戳，二者都在HMAC之内.
+ * 时间戳与本机时间的偏差超过上限的批次被拒绝；每个节点保留最近{@value #WINDOW_SIZE}个序号的滑动窗口，
+ * 拒绝重复的序号和早于窗口的序号，UDP可能乱序，窗口内未收到过的较早序号依然接受.
+ * 节点超过两倍偏差上限没有新批次时丢弃它的窗口，之后重放的批次已因时间戳过期被拒绝.
+ * 只由接收线程使用，不是线程安全的.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+final class SseBrokerReplayGuard {
+
+    /**
+     * 默认允许的节点间时钟偏差.
+     */
+    static final Duration DEFAULT_MAX_CLOCK_SKEW = Duration.ofSeconds(30);
+
+    static final int WINDOW_SIZE = Long.SIZE;
+
+    private final long maxSkewMillis;
+
+    private final Map<Long, Window> windows = new HashMap<>();
+
+    private long lastPurgeAt;
+
+    SseBrokerReplayGuard(Duration maxClockSkew) {
+        this.maxSkewMillis = maxClockSkew.toMillis();
+    }
+
+    /**
+     * 检查批次是否可以接受.
+     *
+     * @param nodeId 发送节点
+     * @param sequence 批次序号
+     * @param timestamp 发送时间(毫秒)
+     * @return 过期或重复的批次返回false
+     */
+    boolean accept(long nodeId, long sequence, long timestamp) {
+        return accept(nodeId, sequence, timestamp, System.currentTimeMillis());
+    }
+
+    boolean accept(long nodeId, long sequence, long timestamp, long now) {
+        if (Math.abs(now - timestamp) > maxSkewMillis) {
+            return false;
+        }
+        purge(now);
+        return windows.computeIfAbsent(nodeId, key -> new Window()).accept(sequence, now);
+    }
+
+    /**
+     * 当前保留窗口的节点数.
+     */
+    int size() {
+        return windows.size();
+    }
+
+    private void purge(long now) {
+        if (now - lastPurgeAt < maxSkewMillis) {
+            return;
+        }
+        lastPurgeAt = now;
+        long expireBefore = now - 2 * maxSkewMillis;
+        windows.values().removeIf(window -> window.lastSeenAt < expireBefore);
+    }
+
+    /**
+     * 单个节点的序号窗口，bitmap的第i位表示序号{@code highest - i}已收到.
+     */
+    private static final class Window {
+
+        private long highest;
+
+        private long bitmap;
+
+        private long lastSeenAt;
+
+        boolean accept(long sequence, long now) {
+            if (sequence > highest) {
+                long shift = sequence - highest;
+                bitmap = shift >= WINDOW_SIZE ? 1 : (bitmap << shift) | 1;
+                highest = sequence;
+                lastSeenAt = now;
+                return true;
+            }
+            long offset = highest - sequence;
+            if (offset >= WINDOW_SIZE) {
+                return false;
+            }
+            long bit = 1L << offset;
+            if ((bitmap & bit) != 0) {
+                return false;
+            }
+            bitmap |= bit;
+            lastSeenAt = now;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,10 @@
+/**
+ * SSE跨节点消息分发.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@NullMarked
+package me.ziyframework.web.sse.broker;
+
+import org.jspecify.annotations.NullMarked;
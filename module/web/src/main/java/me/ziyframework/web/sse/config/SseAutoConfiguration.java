@@ -0,0 +1,95 @@
+package me.ziyframework.web.sse.config;
+
+import io.micrometer.core.instrument.binder.MeterBinder;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import lombok.RequiredArgsConstructor;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.sse.SseManager;
+import me.ziyframework.web.sse.SseMeterBinder;
+import me.ziyframework.web.sse.broker.MulticastSseBroker;
+import me.ziyframework.web.sse.broker.SseBroker;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * SSE配置类.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@AutoConfiguration
+@RequiredArgsConstructor
+@EnableConfigurationProperties(SseProperties.class)
+public class SseAutoConfiguration {
+
+    private final SseProperties sseProperties;
+
+    /**
+     * 存在Micrometer时采集连接数、队列长度等指标.
+     */
+    @Configuration(proxyBeanMethods = false)
+    @ConditionalOnClass(name = "io.micrometer.core.instrument.binder.MeterBinder")
+    static class MicrometerMetricsConfiguration {
+
+        @Bean
+        public MeterBinder sseMeterBinder(SseManager sseManager) {
+            return new SseMeterBinder(sseManager);
+        }
+    }
+
+    /**
+     * 基于UDP组播的跨节点消息分发.
+     */
+    @ConditionalOnProperty(prefix = "ziy.web.sse.broker", name = "enabled", havingValue = "true")
+    @ConditionalOnMissingBean
+    @Bean
+    public SseBroker sseBroker() {
+        SseProperties.Broker broker = sseProperties.getBroker();
+        String secret = broker.getSecret();
+        if (secret == null || secret.isEmpty()) {
+            throw new GlobalException("ziy.web.sse.broker.secret is required");
+        }
+        return new MulticastSseBroker(
+                broker.getGroup(),
+                broker.getPort(),
+                secret.getBytes(StandardCharsets.UTF_8),
+                broker.getNetworkInterface(),
+                broker.getMaxDatagramSize(),
+                broker.getQueueCapacity());
+    }
+
+    /**
+     * SSE会话管理器，配置了心跳间隔时启动心跳，按配置启用事件重放，存在{@link SseBroker}时分发到其他节点.
+     */
+    @ConditionalOnMissingBean
+    @Bean
+    public SseManager sseManager(ObjectProvider<SseBroker> sseBroker) {
+        SseManager sseManager = new SseManager(
+                sseProperties.getMaxSession(),
+                sseProperties.getMaxConnections(),
+                sseProperties.getQueueCapacity(),
+                sseProperties.getOverflowPolicy(),
+                sseProperties.getSlowConsumerTimeout());
+        Duration heartbeat = sseProperties.getHeartbeat();
+        if (heartbeat.isPositive()) {
+            sseManager.startHeartbeat(heartbeat);
+        }
+        SseProperties.Replay replay = sseProperties.getReplay();
+        if (replay.isEnabled()) {
+            sseManager.enableReplay(
+                    replay.getCapacity(),
+                    replay.getMaxBytes().toBytes(),
+                    replay.getMaxStreams(),
+                    replay.getRetention());
+        }
+        sseBroker.ifAvailable(sseManager::setBroker);
+        return sseManager;
+    }
+}
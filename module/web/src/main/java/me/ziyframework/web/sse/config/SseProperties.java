@@ -0,0 +1,136 @@
+package me.ziyframework.web.sse.config;
+
+import java.time.Duration;
+import lombok.Data;
+import me.ziyframework.web.sse.SseManager;
+import me.ziyframework.web.sse.SseOverflowPolicy;
+import me.ziyframework.web.sse.broker.MulticastSseBroker;
+import org.jspecify.annotations.Nullable;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * SSE配置属性.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+@Data
+@ConfigurationProperties(prefix = "ziy.web.sse")
+public class SseProperties {
+
+    /**
+     * 最大客户端数，小于等于0时不限制.
+     */
+    private int maxSession = 0;
+
+    /**
+     * 每个客户端最多的连接数，超过时断开最早的连接，小于等于0时不限制.
+     */
+    private int maxConnections = SseManager.DEFAULT_MAX_CONNECTIONS;
+
+    /**
+     * 每个连接最多等待写出的事件数.
+     */
+    private int queueCapacity = 256;
+
+    /**
+     * 连接的待发送队列已满时的处理策略.
+     */
+    private SseOverflowPolicy overflowPolicy = SseOverflowPolicy.DROP_OLDEST;
+
+    /**
+     * 单次写出超过该时间的连接视为慢消费者并断开.
+     */
+    private Duration slowConsumerTimeout = Duration.ofSeconds(30);
+
+    /**
+     * 心跳间隔，为0时不发送心跳.
+     */
+    private Duration heartbeat = Duration.ofSeconds(30);
+
+    /**
+     * 断线重连的事件重放.
+     */
+    private Replay replay = new Replay();
+
+    /**
+     * 跨节点的消息分发.
+     */
+    private Broker broker = new Broker();
+
+    /**
+     * 断线重连的事件重放配置，内存上限为 maxStreams × maxBytes.
+     */
+    @Data
+    public static class Replay {
+
+        /**
+         * 是否启用，启用后事件带有单调递增的id，客户端重连时按{@code Last-Event-ID}重放错过的事件.
+         */
+        private boolean enabled = false;
+
+        /**
+         * 每个流(客户端、主题、广播)最多保存的事件数.
+         */
+        private int capacity = 256;
+
+        /**
+         * 每个流最多保存的已编码事件的字节数.
+         */
+        private DataSize maxBytes = DataSize.ofKilobytes(256);
+
+        /**
+         * 最多保存的流数量.
+         */
+        private int maxStreams = 10_000;
+
+        /**
+         * 流超过该时间没有新事件也没有重放时丢弃.
+         */
+        private Duration retention = Duration.ofMinutes(5);
+    }
+
+    /**
+     * 基于UDP组播的跨节点消息分发配置，同一组播地址和端口的节点互相分发广播、主题发布和发送给指定客户端的事件帧.
+     */
+    @Data
+    public static class Broker {
+
+        /**
+         * 是否启用.
+         */
+        private boolean enabled = false;
+
+        /**
+         * 组播地址.
+         */
+        private String group = "239.255.27.1";
+
+        /**
+         * 组播端口.
+         */
+        private int port = 27_271;
+
+        /**
+         * 节点间共享的HMAC密钥，至少{@value MulticastSseBroker#MIN_SECRET_LENGTH}字节，启用时必须配置.
+         * 签名不符的数据报被丢弃.
+         */
+        private @Nullable String secret;
+
+        /**
+         * 网卡名称，为空时使用回环网卡，只在本机的节点间分发；跨主机分发时需要配置.
+         */
+        private @Nullable String networkInterface;
+
+        /**
+         * 单个数据报的最大字节数，跨主机时建议不超过网络MTU.
+         */
+        private int maxDatagramSize = MulticastSseBroker.DEFAULT_MAX_DATAGRAM_SIZE;
+
+        /**
+         * 发送队列的长度，队列已满时丢弃新的消息.
+         */
+        private int queueCapacity = MulticastSseBroker.DEFAULT_QUEUE_CAPACITY;
+    }
+}
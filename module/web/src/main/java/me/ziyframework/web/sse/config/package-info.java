@@ -0,0 +1,10 @@
+/**
+ * SSE自动配置.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+@NullMarked
+package me.ziyframework.web.sse.config;
+
+import org.jspecify.annotations.NullMarked;
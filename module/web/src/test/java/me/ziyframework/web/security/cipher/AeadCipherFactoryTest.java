@@ -0,0 +1,82 @@
+package me.ziyframework.web.security.cipher;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.hash.Hashing;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link AeadCipherFactory}的nonce处理测试.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+class AeadCipherFactoryTest {
+
+    private static final byte[] KEY = randomBytes(32);
+
+    private static final byte[] PLAIN = "ziy-framework".getBytes(StandardCharsets.UTF_8);
+
+    private final AesGcmCipherFactory factory = new AesGcmCipherFactory(0);
+
+    @Test
+    void shortNonceIsUsedDirectly() throws Exception {
+        byte[] nonce = randomBytes(AeadCipherFactory.NONCE_LENGTH);
+        assertThat(encrypt(nonce)).isEqualTo(jceEncrypt(nonce));
+    }
+
+    @Test
+    void longNonceIsHashed() throws Exception {
+        byte[] nonce = randomBytes(16);
+        byte[] expected = Arrays.copyOf(Hashing.sha256().hashBytes(nonce).asBytes(), AeadCipherFactory.NONCE_LENGTH);
+        assertThat(encrypt(nonce)).isEqualTo(jceEncrypt(expected));
+    }
+
+    @Test
+    void nonceTailAffectsCipherText() throws Exception {
+        // 重放保护的nonce前8字节为时间戳，同一毫秒内的nonce前12字节可能相同
+        byte[] nonce = randomBytes(16);
+        byte[] other = nonce.clone();
+        other[15] ^= 1;
+        assertThat(encrypt(nonce)).isNotEqualTo(encrypt(other));
+    }
+
+    @Test
+    void decryptsRequestWithHashedNonce() throws Exception {
+        byte[] nonce = randomBytes(16);
+        byte[] hashed = Arrays.copyOf(Hashing.sha256().hashBytes(nonce).asBytes(), AeadCipherFactory.NONCE_LENGTH);
+        byte[] cipherText = jce(Cipher.ENCRYPT_MODE, hashed).doFinal(PLAIN);
+        assertThat(factory.createCipher(Cipher.DECRYPT_MODE, KEY, nonce).doFinal(cipherText)).isEqualTo(PLAIN);
+    }
+
+    private byte[] encrypt(byte[] nonce) throws Exception {
+        return factory.createCipher(Cipher.ENCRYPT_MODE, KEY, nonce).doFinal(PLAIN);
+    }
+
+    /**
+     * 响应方向：nonce首字节最高位取反.
+     */
+    private static byte[] jceEncrypt(byte[] nonce) throws Exception {
+        byte[] flipped = nonce.clone();
+        flipped[0] ^= (byte) 0x80;
+        return jce(Cipher.ENCRYPT_MODE, flipped).doFinal(PLAIN);
+    }
+
+    private static Cipher jce(int mode, byte[] nonce) throws Exception {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, new SecretKeySpec(KEY, "AES"), new GCMParameterSpec(128, nonce));
+        return cipher;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,218 @@
+package me.ziyframework.web.security.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.security.GeneralSecurityException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import me.ziyframework.web.common.exception.GlobalException;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
+import me.ziyframework.web.security.cipher.AesGcmCipherFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.DelegatingServletInputStream;
+import org.springframework.mock.web.DelegatingServletOutputStream;
+
+/**
+ * 分帧加解密流测试，客户端一侧的帧直接使用JCE按{@link CipherFrames}的格式构造.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+class FramedCipherStreamTest {
+
+    private static final int FRAME_SIZE = 16;
+
+    private static final byte[] SECRET = randomBytes(32);
+
+    private static final byte[] NONCE = randomBytes(16);
+
+    private final AesGcmCipherFactory factory = new AesGcmCipherFactory(0);
+
+    private final CipherBufferPool framePool = new CipherBufferPool(
+            CipherFrames.HEADER_LENGTH + FRAME_SIZE + AeadCipherFactory.TAG_LENGTH, CipherBufferPool.DEFAULT_POOL_SIZE);
+
+    @Test
+    void requestRoundTrip() throws Exception {
+        byte[] body = randomBytes(FRAME_SIZE * 3 + 5);
+        assertThat(decrypt(concat(requestFrames(body)))).isEqualTo(body);
+    }
+
+    @Test
+    void emptyRequestHasOnlyFinalFrame() throws Exception {
+        List<byte[]> frames = requestFrames(new byte[0]);
+        assertThat(frames).hasSize(1);
+        assertThat(decrypt(concat(frames))).isEmpty();
+    }
+
+    @Test
+    void responseRoundTrip() throws Exception {
+        byte[] body = randomBytes(FRAME_SIZE * 2 + 7);
+        ByteArrayOutputStream captured = new ByteArrayOutputStream();
+        FramedCipherServletOutputStream stream = new FramedCipherServletOutputStream(
+                new DelegatingServletOutputStream(captured), factory, SECRET, NONCE, FRAME_SIZE, framePool);
+        stream.write(body, 0, 5);
+        // flush写出一个较短的帧
+        stream.flush();
+        stream.write(body, 5, body.length - 5);
+        stream.finish();
+        stream.release();
+
+        List<Frame> frames = decryptResponse(captured.toByteArray());
+        ByteArrayOutputStream plain = new ByteArrayOutputStream();
+        for (int i = 0; i < frames.size(); i++) {
+            assertThat(frames.get(i).last()).isEqualTo(i == frames.size() - 1);
+            plain.writeBytes(frames.get(i).plain());
+        }
+        assertThat(frames.getFirst().plain()).hasSize(5);
+        assertThat(plain.toByteArray()).isEqualTo(body);
+    }
+
+    @Test
+    void missingFinalFrameIsTruncation() throws Exception {
+        List<byte[]> frames = requestFrames(randomBytes(FRAME_SIZE * 2 + 1));
+        frames.removeLast();
+        assertThatThrownBy(() -> decrypt(concat(frames))).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void partialFrameIsTruncation() throws Exception {
+        byte[] body = concat(requestFrames(randomBytes(FRAME_SIZE * 2)));
+        assertThatThrownBy(() -> decrypt(Arrays.copyOf(body, body.length - 1))).isInstanceOf(EOFException.class);
+    }
+
+    @Test
+    void reorderedFramesFailAuthentication() throws Exception {
+        List<byte[]> frames = requestFrames(randomBytes(FRAME_SIZE * 3));
+        Collections.swap(frames, 0, 1);
+        assertThatThrownBy(() -> decrypt(concat(frames)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("authentication");
+    }
+
+    @Test
+    void clearedFinalFlagFailsAuthentication() throws Exception {
+        List<byte[]> frames = requestFrames(randomBytes(FRAME_SIZE + 1));
+        frames.getLast()[0] &= 0x7f;
+        assertThatThrownBy(() -> decrypt(concat(frames)))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("authentication");
+    }
+
+    @Test
+    void forgedFinalFlagFailsAuthentication() throws Exception {
+        List<byte[]> frames = requestFrames(randomBytes(FRAME_SIZE * 3));
+        // 将第一帧伪造为最后一帧以截断请求体
+        frames.getFirst()[0] |= (byte) 0x80;
+        assertThatThrownBy(() -> decrypt(frames.getFirst()))
+                .isInstanceOf(IOException.class)
+                .hasMessageContaining("authentication");
+    }
+
+    @Test
+    void frameKeyDependsOnClientNonce() {
+        // nonce仅与另一个请求的nonce相差帧序号时，两个请求也使用不同的密钥
+        byte[] other = NONCE.clone();
+        other[NONCE.length - 1] ^= 1;
+        assertThat(CipherFrames.frameKey(SECRET, NONCE))
+                .isEqualTo(CipherFrames.frameKey(SECRET, NONCE.clone()))
+                .isNotEqualTo(CipherFrames.frameKey(SECRET, other));
+    }
+
+    @Test
+    void shortClientNonceIsRejected() {
+        assertThatThrownBy(() -> CipherFrames.frameKey(SECRET, new byte[CipherFrames.MIN_CLIENT_NONCE_LENGTH - 1]))
+                .isInstanceOf(GlobalException.class);
+    }
+
+    private byte[] decrypt(byte[] body) throws IOException {
+        FramedCipherServletInputStream stream = new FramedCipherServletInputStream(
+                new DelegatingServletInputStream(new ByteArrayInputStream(body)),
+                factory,
+                SECRET,
+                NONCE,
+                FRAME_SIZE + AeadCipherFactory.TAG_LENGTH,
+                framePool);
+        try {
+            return stream.readAllBytes();
+        } finally {
+            stream.release();
+        }
+    }
+
+    /**
+     * 按客户端的方式加密请求体.
+     */
+    private static List<byte[]> requestFrames(byte[] body) throws GeneralSecurityException {
+        byte[] frameKey = CipherFrames.frameKey(SECRET, NONCE);
+        List<byte[]> frames = new ArrayList<>();
+        int offset = 0;
+        long counter = 0;
+        do {
+            int length = Math.min(FRAME_SIZE, body.length - offset);
+            boolean last = offset + length == body.length;
+            Cipher cipher = cipher(Cipher.ENCRYPT_MODE, frameKey, CipherFrames.nonce(counter++));
+            byte[] frame = new byte[CipherFrames.HEADER_LENGTH + length + AeadCipherFactory.TAG_LENGTH];
+            CipherFrames.writeHeader(frame, 0, last, length + AeadCipherFactory.TAG_LENGTH);
+            cipher.updateAAD(frame, 0, CipherFrames.HEADER_LENGTH);
+            cipher.doFinal(body, offset, length, frame, CipherFrames.HEADER_LENGTH);
+            frames.add(frame);
+            offset += length;
+        } while (offset < body.length);
+        return frames;
+    }
+
+    /**
+     * 按客户端的方式解密响应体，响应方向的nonce首字节最高位取反.
+     */
+    private static List<Frame> decryptResponse(byte[] body) throws GeneralSecurityException {
+        byte[] frameKey = CipherFrames.frameKey(SECRET, NONCE);
+        ByteBuffer buffer = ByteBuffer.wrap(body);
+        List<Frame> frames = new ArrayList<>();
+        long counter = 0;
+        while (buffer.hasRemaining()) {
+            byte[] header = new byte[CipherFrames.HEADER_LENGTH];
+            buffer.get(header);
+            int value = CipherFrames.readHeader(header);
+            byte[] cipherText = new byte[value & ~CipherFrames.FINAL_FLAG];
+            buffer.get(cipherText);
+            byte[] nonce = CipherFrames.nonce(counter++);
+            nonce[0] ^= (byte) 0x80;
+            Cipher cipher = cipher(Cipher.DECRYPT_MODE, frameKey, nonce);
+            cipher.updateAAD(header);
+            frames.add(new Frame((value & CipherFrames.FINAL_FLAG) != 0, cipher.doFinal(cipherText)));
+        }
+        return frames;
+    }
+
+    private static Cipher cipher(int mode, byte[] key, byte[] nonce) throws GeneralSecurityException {
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(mode, new SecretKeySpec(key, "AES"), new GCMParameterSpec(AeadCipherFactory.TAG_LENGTH * 8, nonce));
+        return cipher;
+    }
+
+    private static byte[] concat(List<byte[]> frames) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        frames.forEach(out::writeBytes);
+        return out.toByteArray();
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private record Frame(boolean last, byte[] plain) {}
+}
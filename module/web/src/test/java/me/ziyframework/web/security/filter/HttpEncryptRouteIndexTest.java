@@ -0,0 +1,148 @@
+package me.ziyframework.web.security.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.MappingMatch;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import me.ziyframework.web.security.HttpEncrypt;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.mock.web.MockHttpServletMapping;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.servlet.mvc.method.RequestMappingInfo;
+
+/**
+ * {@link HttpEncryptRouteIndex}测试.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+class HttpEncryptRouteIndexTest {
+
+    private static final HttpEncrypt SECURE;
+
+    static {
+        try {
+            SECURE = Handlers.class.getMethod("secure").getAnnotation(HttpEncrypt.class);
+        } catch (NoSuchMethodException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final HttpEncryptRouteIndex index = new HttpEncryptRouteIndex();
+
+    private final AtomicInteger resolved = new AtomicInteger();
+
+    /**
+     * 完整的接口匹配，测试的请求都由声明了加解密的接口处理.
+     */
+    private final Function<HttpServletRequest, @Nullable HttpEncrypt> resolver = request -> {
+        resolved.incrementAndGet();
+        return SECURE;
+    };
+
+    @BeforeEach
+    void setUp() throws NoSuchMethodException {
+        register("/secure", "secure");
+        register("/plain", "plain");
+        register(RequestMappingInfo.paths("/orders/{id}").methods(RequestMethod.GET), "secure");
+        register(RequestMappingInfo.paths("/orders/export").methods(RequestMethod.GET).params("fmt"), "plain");
+        register(RequestMappingInfo.paths("/users/{id}").methods(RequestMethod.POST), "secure");
+        register("/users/me", "plain");
+        index.after();
+    }
+
+    @Test
+    void literalPathHitsIndex() {
+        assertThat(index.getHttpEncrypt(request("/secure"), resolver)).isSameAs(SECURE);
+        assertThat(index.getHttpEncrypt(request("/plain"), resolver)).isNull();
+        assertThat(resolved).hasValue(0);
+    }
+
+    @Test
+    void unknownPathIsNotEncrypted() {
+        assertThat(index.getHttpEncrypt(request("/missing"), resolver)).isNull();
+        assertThat(resolved).hasValue(0);
+    }
+
+    @ParameterizedTest
+    @ValueSource(
+            strings = {
+                "/secur%65",
+                "//secure",
+                "/./secure",
+                "/plain/../secure",
+                "/secure/",
+                "/secure;jsessionid=1",
+                "/secure/.",
+                "\\secure"
+            })
+    void nonNormalizedPathFallsBackToResolver(String uri) {
+        assertThat(index.getHttpEncrypt(request(uri), resolver)).isSameAs(SECURE);
+        assertThat(resolved).hasValue(1);
+    }
+
+    @Test
+    void conditionalLiteralPathFallsBackToResolver() {
+        // 不带fmt参数时由/orders/{id}处理
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/orders/export");
+        assertThat(index.getHttpEncrypt(request, resolver)).isSameAs(SECURE);
+        assertThat(resolved).hasValue(1);
+    }
+
+    @Test
+    void plainLiteralPathMatchingEncryptedPatternFallsBackToResolver() {
+        assertThat(index.getHttpEncrypt(request("/users/me"), resolver)).isSameAs(SECURE);
+        assertThat(resolved).hasValue(1);
+    }
+
+    @Test
+    void servletPathIsStripped() {
+        // spring.mvc.servlet.path=/api
+        MockHttpServletRequest request = request("/api/secure");
+        request.setServletPath("/api");
+        request.setPathInfo("/secure");
+        request.setHttpServletMapping(
+                new MockHttpServletMapping("secure", "/api/*", "dispatcherServlet", MappingMatch.PATH));
+        assertThat(index.getHttpEncrypt(request, resolver)).isSameAs(SECURE);
+        assertThat(resolved).hasValue(0);
+    }
+
+    @Test
+    void extensionMappingFallsBackToResolver() {
+        MockHttpServletRequest request = request("/secure.do");
+        request.setServletPath("/secure.do");
+        request.setHttpServletMapping(
+                new MockHttpServletMapping("/secure", "*.do", "dispatcherServlet", MappingMatch.EXTENSION));
+        assertThat(index.getHttpEncrypt(request, resolver)).isSameAs(SECURE);
+        assertThat(resolved).hasValue(1);
+    }
+
+    private void register(String path, String methodName) throws NoSuchMethodException {
+        register(RequestMappingInfo.paths(path).methods(RequestMethod.POST), methodName);
+    }
+
+    private void register(RequestMappingInfo.Builder builder, String methodName) throws NoSuchMethodException {
+        Method method = Handlers.class.getMethod(methodName);
+        index.accept(builder.build(), method, Handlers.class);
+    }
+
+    private static MockHttpServletRequest request(String uri) {
+        return new MockHttpServletRequest("POST", uri);
+    }
+
+    static class Handlers {
+
+        @HttpEncrypt
+        public void secure() {}
+
+        public void plain() {}
+    }
+}
@@ -0,0 +1,84 @@
+package me.ziyframework.web.security.filter;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import com.google.common.io.BaseEncoding;
+import com.google.common.primitives.Bytes;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ThreadLocalRandom;
+import javax.crypto.Cipher;
+import javax.crypto.KDF;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.HKDFParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import me.ziyframework.web.security.SecurityHttpHeaders;
+import me.ziyframework.web.security.cipher.AeadCipherFactory;
+import me.ziyframework.web.security.cipher.AesGcmCipherFactory;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+/**
+ * 加密响应的响应密钥测试，客户端一侧直接使用JCE按{@link CipherKeys}的格式派生密钥.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+class HttpEncryptServletResponseTest {
+
+    private static final byte[] SECRET = randomBytes(32);
+
+    private static final byte[] NONCE = randomBytes(AeadCipherFactory.NONCE_LENGTH);
+
+    private static final byte[] PLAIN = "ziy-framework".getBytes(StandardCharsets.UTF_8);
+
+    private final AesGcmCipherFactory factory = new AesGcmCipherFactory(0);
+
+    @Test
+    void replayedNonceGetsDifferentKeystream() throws Exception {
+        MockHttpServletResponse first = new MockHttpServletResponse();
+        MockHttpServletResponse second = new MockHttpServletResponse();
+        encrypt(first);
+        encrypt(second);
+
+        assertThat(first.getHeader(SecurityHttpHeaders.X_RESPONSE_SALT))
+                .isNotEqualTo(second.getHeader(SecurityHttpHeaders.X_RESPONSE_SALT));
+        // 明文相同，密文不同即密钥流不同
+        assertThat(first.getContentAsByteArray()).isNotEqualTo(second.getContentAsByteArray());
+    }
+
+    @Test
+    void clientDecryptsWithResponseSalt() throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        encrypt(response);
+
+        byte[] salt = BaseEncoding.base64Url().decode(response.getHeader(SecurityHttpHeaders.X_RESPONSE_SALT));
+        assertThat(salt).hasSize(CipherKeys.SALT_LENGTH);
+        byte[] key = KDF.getInstance("HKDF-SHA256")
+                .deriveData(HKDFParameterSpec.ofExtract()
+                        .addIKM(SECRET)
+                        .addSalt(Bytes.concat(salt, NONCE))
+                        .thenExpand("ziy-http-response".getBytes(StandardCharsets.US_ASCII), 32));
+        // 响应方向：nonce首字节最高位取反
+        byte[] nonce = NONCE.clone();
+        nonce[0] ^= (byte) 0x80;
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(128, nonce));
+        assertThat(cipher.doFinal(response.getContentAsByteArray())).isEqualTo(PLAIN);
+    }
+
+    private void encrypt(MockHttpServletResponse response) throws Exception {
+        HttpEncryptServletResponse encrypted = new HttpEncryptServletResponse(response, factory, SECRET, NONCE);
+        try {
+            encrypted.getOutputStream().write(PLAIN);
+            encrypted.finish();
+        } finally {
+            encrypted.release();
+        }
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,121 @@
+package me.ziyframework.web.security.replay;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatNoException;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import com.google.common.primitives.Longs;
+import java.util.concurrent.ThreadLocalRandom;
+import me.ziyframework.web.common.exception.GlobalException;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link NonceReplayDetector}测试.<br/>
+ * created on 2026-10
+ *
+ * @author ziy
+ */
+class NonceReplayDetectorTest {
+
+    private static final long WINDOW = 1000;
+
+    /**
+     * 时间片起点.
+     */
+    private static final long START = 1_000 * WINDOW;
+
+    private static final byte[] SECRET = randomBytes(32);
+
+    private final NonceReplayDetector detector = new NonceReplayDetector(WINDOW, 1 << 16, 4);
+
+    @Test
+    void acceptsTimestampsOnWindowEdges() {
+        long now = START + WINDOW / 2;
+        assertThatNoException().isThrownBy(() -> detector.check(nonce(now - WINDOW), SECRET, now));
+        assertThatNoException().isThrownBy(() -> detector.check(nonce(now + WINDOW), SECRET, now));
+        assertThat(detector.getRejectedCount()).isZero();
+    }
+
+    @Test
+    void rejectsTimestampsOutsideWindow() {
+        long now = START + WINDOW / 2;
+        assertThatThrownBy(() -> detector.check(nonce(now - WINDOW - 1), SECRET, now))
+                .isInstanceOf(GlobalException.class);
+        assertThatThrownBy(() -> detector.check(nonce(now + WINDOW + 1), SECRET, now))
+                .isInstanceOf(GlobalException.class);
+        assertThat(detector.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsShortNonce() {
+        byte[] nonce = Longs.toByteArray(START);
+        assertThatThrownBy(() -> detector.check(nonce, SECRET, START)).isInstanceOf(GlobalException.class);
+    }
+
+    @Test
+    void rejectsDuplicateInSameBucket() {
+        byte[] nonce = nonce(START);
+        detector.check(nonce, SECRET, START);
+        assertThatThrownBy(() -> detector.check(nonce.clone(), SECRET, START + 1))
+                .isInstanceOf(GlobalException.class);
+        assertThat(detector.getRejectedCount()).isEqualTo(1);
+    }
+
+    @Test
+    void sameNonceWithDifferentSecretIsAccepted() {
+        byte[] nonce = nonce(START);
+        detector.check(nonce, SECRET, START);
+        assertThatNoException().isThrownBy(() -> detector.check(nonce, randomBytes(32), START));
+    }
+
+    @Test
+    void rejectsDuplicateFromOlderBuckets() {
+        // 时间戳位于窗口的未来边缘，在接下来的两个时间片内都能通过时间戳检查，只能由过滤器拒绝
+        long accepted = START;
+        byte[] nonce = nonce(accepted + WINDOW);
+        detector.check(nonce, SECRET, accepted);
+        for (long bucket = 1; bucket < 3; bucket++) {
+            long now = accepted + bucket * WINDOW;
+            assertThatThrownBy(() -> detector.check(nonce, SECRET, now)).isInstanceOf(GlobalException.class);
+        }
+        assertThat(detector.getRejectedCount()).isEqualTo(2);
+    }
+
+    @Test
+    void rotationReplacesOldestBucket() {
+        // 每个时间片各接受一个nonce，3个时间片之后复用最旧的过滤器
+        byte[][] nonces = new byte[4][];
+        for (int bucket = 0; bucket < nonces.length; bucket++) {
+            long now = START + bucket * WINDOW;
+            nonces[bucket] = nonce(now);
+            detector.check(nonces[bucket], SECRET, now);
+        }
+        long now = START + 3 * WINDOW;
+        // 仍在保留的时间片内的nonce被拒绝
+        assertThatThrownBy(() -> detector.check(nonces[2], SECRET, now)).isInstanceOf(GlobalException.class);
+        assertThatThrownBy(() -> detector.check(nonces[3], SECRET, now)).isInstanceOf(GlobalException.class);
+        // 被替换的过滤器是新的，新的nonce依然可以写入
+        assertThatNoException().isThrownBy(() -> detector.check(nonce(now), SECRET, now));
+    }
+
+    @Test
+    void expiredBucketsAreIgnoredAfterLongIdle() {
+        detector.check(nonce(START), SECRET, START);
+        long now = START + 10 * WINDOW;
+        byte[] nonce = nonce(now);
+        assertThatNoException().isThrownBy(() -> detector.check(nonce, SECRET, now));
+        assertThatThrownBy(() -> detector.check(nonce, SECRET, now)).isInstanceOf(GlobalException.class);
+    }
+
+    private static byte[] nonce(long timestamp) {
+        byte[] nonce = randomBytes(NonceReplayDetector.TIMESTAMP_LENGTH * 2);
+        System.arraycopy(Longs.toByteArray(timestamp), 0, nonce, 0, NonceReplayDetector.TIMESTAMP_LENGTH);
+        return nonce;
+    }
+
+    private static byte[] randomBytes(int length) {
+        byte[] bytes = new byte[length];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+}
@@ -0,0 +1,116 @@
+package me.ziyframework.web.sse;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import org.jspecify.annotations.Nullable;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+/**
+ * {@link SseReplay}测试.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+class SseReplayTest {
+
+    private static final Duration RETENTION = Duration.ofMinutes(1);
+
+    private static final String ORDERS = SseReplay.topicStream("orders");
+
+    private static final String PRICES = SseReplay.topicStream("prices");
+
+    private final AtomicLong nanos = new AtomicLong();
+
+    private final SseReplay replay = new SseReplay(2, 1024, 16, RETENTION, nanos::get);
+
+    @Test
+    void replaysEventsAfterLastEventId() {
+        long first = record(ORDERS, "1");
+        record(ORDERS, "2");
+        assertThat(data(replay.collect(List.of(ORDERS), replay.format(first)))).containsExactly("2");
+    }
+
+    @Test
+    void emptyLastEventIdNeedsNoReplay() {
+        record(ORDERS, "1");
+        assertThat(replay.collect(List.of(ORDERS), null)).isEmpty();
+        assertThat(replay.collect(List.of(ORDERS), "")).isEmpty();
+    }
+
+    @Test
+    void foreignOrMalformedIdNeedsResync() {
+        long id = record(ORDERS, "1");
+        assertThat(replay.collect(List.of(ORDERS), "other-" + id)).isNull();
+        assertThat(replay.collect(List.of(ORDERS), replay.format(id) + "x")).isNull();
+        assertThat(replay.collect(List.of(ORDERS), replay.format(id + 1))).isNull();
+    }
+
+    @Test
+    void evictedEventsNeedResync() {
+        long first = record(ORDERS, "1");
+        long second = record(ORDERS, "2");
+        record(ORDERS, "3");
+        // 容量为2，第一个事件已被淘汰
+        assertThat(replay.collect(List.of(ORDERS), replay.format(first - 1))).isNull();
+        assertThat(data(replay.collect(List.of(ORDERS), replay.format(first)))).containsExactly("2", "3");
+        assertThat(data(replay.collect(List.of(ORDERS), replay.format(second)))).containsExactly("3");
+    }
+
+    @Test
+    void eventsInSeveralStreamsAreMergedInOrder() {
+        long first = record(ORDERS, "1");
+        record(PRICES, "2");
+        record(ORDERS, "3");
+        assertThat(data(replay.collect(List.of(ORDERS, PRICES), replay.format(first))))
+                .containsExactly("2", "3");
+    }
+
+    @Test
+    void expiredStreamNeedsResync() {
+        long first = record(ORDERS, "1");
+        record(ORDERS, "2");
+        nanos.addAndGet(RETENTION.multipliedBy(2).toNanos());
+        assertThat(replay.collect(List.of(ORDERS), replay.format(first))).isNull();
+    }
+
+    @Test
+    void recreatedStreamKeepsEvictionHorizon() {
+        long first = record(ORDERS, "1");
+        long second = record(ORDERS, "2");
+        nanos.addAndGet(RETENTION.multipliedBy(2).toNanos());
+        // 流过期后重新创建，新的缓冲区只有之后的事件
+        record(ORDERS, "3");
+        assertThat(replay.collect(List.of(ORDERS), replay.format(first))).isNull();
+        assertThat(data(replay.collect(List.of(ORDERS), replay.format(second)))).containsExactly("3");
+    }
+
+    private long record(String stream, String data) {
+        long id = replay.nextId();
+        replay.record(stream, id, event(data), data.length());
+        return id;
+    }
+
+    private static Set<DataWithMediaType> event(String data) {
+        return SseEmitter.event().data(data).build();
+    }
+
+    /**
+     * 重放事件的数据，事件中的其他部分是{@code text/plain}的字段文本.
+     */
+    private static List<Object> data(@Nullable List<Set<DataWithMediaType>> events) {
+        assertThat(events).isNotNull();
+        return events.stream()
+                .map(items -> items.stream()
+                        .filter(item -> item.getMediaType() == null)
+                        .findFirst()
+                        .orElseThrow()
+                        .getData())
+                .toList();
+    }
+}
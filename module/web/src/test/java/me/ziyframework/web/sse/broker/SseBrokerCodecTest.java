@@ -0,0 +1,125 @@
+package me.ziyframework.web.sse.broker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import javax.crypto.Mac;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link SseBrokerCodec}测试.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+class SseBrokerCodecTest {
+
+    private static final byte[] SECRET = "0123456789abcdef0123456789abcdef".getBytes(StandardCharsets.UTF_8);
+
+    private static final long SENDER = 1;
+
+    private static final long RECEIVER = 2;
+
+    private final List<String> received = new ArrayList<>();
+
+    private final SseBrokerReplayGuard guard = new SseBrokerReplayGuard(SseBrokerReplayGuard.DEFAULT_MAX_CLOCK_SKEW);
+
+    private long sequence;
+
+    private final SseBroker.Listener listener =
+            (topic, key, frame) -> received.add(topic + '|' + key + '|' + new String(frame, StandardCharsets.UTF_8));
+
+    @Test
+    void signedBatchRoundTrip() {
+        ByteBuffer buffer = batch(SseBrokerCodec.newMac(SECRET));
+        assertThat(decode(buffer, RECEIVER))
+                .isEqualTo(2);
+        assertThat(received).containsExactly("order|null|data:1\n\n", "|price|data:2\n\n");
+    }
+
+    @Test
+    void ownBatchIsIgnored() {
+        ByteBuffer buffer = batch(SseBrokerCodec.newMac(SECRET));
+        assertThat(decode(buffer, SENDER))
+                .isZero();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void batchSignedWithOtherSecretIsRejected() {
+        byte[] other = SECRET.clone();
+        other[0] ^= 1;
+        ByteBuffer buffer = batch(SseBrokerCodec.newMac(other));
+        assertThat(decode(buffer, RECEIVER))
+                .isNegative();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void tamperedBatchIsRejected() {
+        ByteBuffer buffer = batch(SseBrokerCodec.newMac(SECRET));
+        int last = buffer.limit() - SseBrokerCodec.MAC_SIZE - 1;
+        buffer.put(last, (byte) (buffer.get(last) ^ 1));
+        assertThat(decode(buffer, RECEIVER))
+                .isNegative();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void replayedBatchIsRejected() {
+        ByteBuffer buffer = batch(SseBrokerCodec.newMac(SECRET));
+        assertThat(decode(buffer.duplicate(), RECEIVER)).isEqualTo(2);
+        assertThat(decode(buffer, RECEIVER)).isNegative();
+        assertThat(received).hasSize(2);
+    }
+
+    @Test
+    void batchesFromSameNodeAreAccepted() {
+        Mac mac = SseBrokerCodec.newMac(SECRET);
+        ByteBuffer first = batch(mac);
+        ByteBuffer second = batch(mac);
+        // UDP可能乱序
+        assertThat(decode(second, RECEIVER)).isEqualTo(2);
+        assertThat(decode(first, RECEIVER)).isEqualTo(2);
+    }
+
+    @Test
+    void staleBatchIsRejected() {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        long sentAt = System.currentTimeMillis() - SseBrokerReplayGuard.DEFAULT_MAX_CLOCK_SKEW.toMillis() * 2;
+        SseBrokerCodec.start(buffer, SENDER, 1, sentAt);
+        SseBrokerCodec.put(buffer, bytes("order"), null, bytes("data:1\n\n"));
+        SseBrokerCodec.finish(buffer, 1, SseBrokerCodec.newMac(SECRET));
+        assertThat(decode(buffer, RECEIVER)).isNegative();
+        assertThat(received).isEmpty();
+    }
+
+    @Test
+    void unsignedBatchIsIgnored() {
+        ByteBuffer buffer = ByteBuffer.allocate(SseBrokerCodec.HEADER_SIZE + SseBrokerCodec.MAC_SIZE);
+        SseBrokerCodec.start(buffer, SENDER, 1, System.currentTimeMillis());
+        buffer.flip();
+        assertThat(decode(buffer, RECEIVER))
+                .isZero();
+    }
+
+    private int decode(ByteBuffer buffer, long selfNodeId) {
+        return SseBrokerCodec.decode(buffer, selfNodeId, SseBrokerCodec.newMac(SECRET), guard, listener);
+    }
+
+    private ByteBuffer batch(Mac mac) {
+        ByteBuffer buffer = ByteBuffer.allocate(256);
+        SseBrokerCodec.start(buffer, SENDER, ++sequence, System.currentTimeMillis());
+        SseBrokerCodec.put(buffer, bytes("order"), null, bytes("data:1\n\n"));
+        SseBrokerCodec.put(buffer, bytes(SseBroker.BROADCAST_TOPIC), bytes("price"), bytes("data:2\n\n"));
+        SseBrokerCodec.finish(buffer, 2, mac);
+        return buffer;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,64 @@
+package me.ziyframework.web.sse.broker;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/**
+ * {@link SseBrokerReplayGuard}测试.
+ * created in 2026-10
+ *
+ * @author ziy
+ */
+class SseBrokerReplayGuardTest {
+
+    private static final long SKEW = 1000;
+
+    private static final long NOW = 1_000_000;
+
+    private static final long NODE = 1;
+
+    private final SseBrokerReplayGuard guard = new SseBrokerReplayGuard(Duration.ofMillis(SKEW));
+
+    @Test
+    void rejectsDuplicateSequence() {
+        assertThat(guard.accept(NODE, 1, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 1, NOW, NOW)).isFalse();
+        // 其他节点的序号互不影响
+        assertThat(guard.accept(NODE + 1, 1, NOW, NOW)).isTrue();
+    }
+
+    @Test
+    void acceptsReorderedSequenceInsideWindow() {
+        assertThat(guard.accept(NODE, 10, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 8, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 9, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 8, NOW, NOW)).isFalse();
+    }
+
+    @Test
+    void rejectsSequenceBeforeWindow() {
+        assertThat(guard.accept(NODE, 1, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 1 + SseBrokerReplayGuard.WINDOW_SIZE, NOW, NOW)).isTrue();
+        assertThat(guard.accept(NODE, 1, NOW, NOW)).isFalse();
+        assertThat(guard.accept(NODE, 2, NOW, NOW)).isTrue();
+    }
+
+    @Test
+    void rejectsTimestampOutsideClockSkew() {
+        assertThat(guard.accept(NODE, 1, NOW - SKEW - 1, NOW)).isFalse();
+        assertThat(guard.accept(NODE, 2, NOW + SKEW + 1, NOW)).isFalse();
+        assertThat(guard.accept(NODE, 3, NOW - SKEW, NOW)).isTrue();
+    }
+
+    @Test
+    void idleNodeIsPurgedAndItsBatchesAreStale() {
+        assertThat(guard.accept(NODE, 1, NOW, NOW)).isTrue();
+        long later = NOW + 2 * SKEW + 1;
+        assertThat(guard.accept(NODE + 1, 1, later, later)).isTrue();
+        assertThat(guard.size()).isEqualTo(1);
+        // 窗口已丢弃，重放的批次因时间戳过期被拒绝
+        assertThat(guard.accept(NODE, 1, NOW, later)).isFalse();
+    }
+}